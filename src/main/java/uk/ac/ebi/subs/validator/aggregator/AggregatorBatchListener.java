@@ -0,0 +1,258 @@
+package uk.ac.ebi.subs.validator.aggregator;
+
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.listener.ListenerContainerIdleEvent;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
+import uk.ac.ebi.subs.validator.messaging.AggregatorMessagingConfiguration;
+import uk.ac.ebi.subs.validator.messaging.AggregatorQueues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Consumes the validation result {@code Queue} in batches, instead of {@link AggregatorListener}, when
+ * {@code validator.aggregator.batch.enabled} is set.
+ *
+ * The listener container has a single consumer, which collects the results it receives, and stores them with one
+ * bulk write when its batch is full, when a result arrives after the first one has waited for the batch timeout, or
+ * when the container goes idle. A batch is only ever processed on the thread of the consumer that received it,
+ * because the messages are acknowledged on that consumer's {@link Channel}, which must not be shared between threads.
+ *
+ * A batch that cannot be stored is returned to the queue. Once a batch is stored, its events are published, and
+ * the publishing is retried up to {@code validator.aggregator.batch.publish-attempts} times; only the results whose
+ * events could still not be published are dead-lettered, the rest of the batch is acknowledged. Every updated
+ * validation result gets one status flipper notification per batch, however many of its authors the batch holds.
+ */
+@Service
+@ConditionalOnProperty(name = "validator.aggregator.batch.enabled", havingValue = "true")
+public class AggregatorBatchListener {
+
+    public static final String LISTENER_ID = "aggregatorBatchListener";
+
+    private static Logger logger = LoggerFactory.getLogger(AggregatorBatchListener.class);
+
+    private AggregatorMessageSender aggregatorMessageSender;
+
+    private AggregatorValidationResultService aggregatorValidationResultService;
+
+    private boolean inProcessCompletion;
+
+    private int batchSize;
+
+    private long batchTimeoutMillis;
+
+    private int publishAttempts;
+
+    private final ThreadLocal<Batch> batchOfConsumer = ThreadLocal.withInitial(Batch::new);
+
+    public AggregatorBatchListener(AggregatorMessageSender aggregatorMessageSender,
+                                   AggregatorValidationResultService aggregatorValidationResultService,
+                                   @Value("${validator.aggregator.in-process-completion:false}") boolean inProcessCompletion,
+                                   @Value("${validator.aggregator.batch.size:100}") int batchSize,
+                                   @Value("${validator.aggregator.batch.timeout-ms:200}") long batchTimeoutMillis,
+                                   @Value("${validator.aggregator.batch.publish-attempts:3}") int publishAttempts) {
+        this.aggregatorMessageSender = aggregatorMessageSender;
+        this.aggregatorValidationResultService = aggregatorValidationResultService;
+        this.inProcessCompletion = inProcessCompletion;
+        this.batchSize = batchSize;
+        this.batchTimeoutMillis = batchTimeoutMillis;
+        this.publishAttempts = Math.max(1, publishAttempts);
+    }
+
+    @RabbitListener(id = LISTENER_ID, queues = AggregatorQueues.VALIDATION_RESULT,
+            containerFactory = AggregatorMessagingConfiguration.BATCH_LISTENER_CONTAINER_FACTORY)
+    public void handleValidationResult(SingleValidationResultsEnvelope singleValidationResultsEnvelope, Channel channel,
+                                       @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+        logger.debug("Received single validation results from {}.", singleValidationResultsEnvelope.getValidationAuthor());
+
+        Batch batch = batchOfConsumer.get();
+        batch.add(new Delivery(singleValidationResultsEnvelope, channel, deliveryTag));
+
+        if (batch.size() >= batchSize || batch.age() >= batchTimeoutMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Processes the batch of the consumer the event is published on. The idle event of the listener container is
+     * container-wide, and published on the thread of one of its consumers; as the container has a single consumer,
+     * that is always the consumer holding the batch.
+     */
+    @EventListener(condition = "event.listenerId == '" + LISTENER_ID + "'")
+    public void handleIdleConsumer(ListenerContainerIdleEvent event) {
+        flush();
+    }
+
+    /**
+     * Processes the results collected so far by the consumer of the calling thread, without waiting for its batch
+     * to fill up.
+     */
+    public void flush() {
+        List<Delivery> deliveries = batchOfConsumer.get().take();
+
+        if (!deliveries.isEmpty()) {
+            process(deliveries);
+        }
+    }
+
+    private void process(List<Delivery> deliveries) {
+        List<SingleValidationResultsEnvelope> envelopes = deliveries.stream()
+                .map(delivery -> delivery.envelope)
+                .collect(Collectors.toList());
+
+        logger.debug("Trying to update {} Validation Result Documents in MongoDB...", envelopes.size());
+
+        List<SingleValidationResultsEnvelope> stored;
+        try {
+            stored = inProcessCompletion
+                    ? aggregatorValidationResultService.updateAndCompleteValidationResults(envelopes)
+                    : aggregatorValidationResultService.updateValidationResults(envelopes);
+        } catch (RuntimeException e) {
+            logger.error("Could not store a batch of {} validation results, returning them to the queue.", envelopes.size(), e);
+            deliveries.forEach(Delivery::reject);
+            return;
+        }
+
+        if (stored.size() < envelopes.size()) {
+            logger.info("Ignoring {} obsolete validation results.", envelopes.size() - stored.size());
+        }
+
+        Set<SingleValidationResultsEnvelope> unpublished = sendEvents(stored);
+
+        for (Delivery delivery : deliveries) {
+            if (unpublished.contains(delivery.envelope)) {
+                delivery.deadLetter();
+            } else {
+                delivery.acknowledge();
+            }
+        }
+    }
+
+    /**
+     * @return the stored envelopes, by identity, whose events could not be published
+     */
+    private Set<SingleValidationResultsEnvelope> sendEvents(List<SingleValidationResultsEnvelope> stored) {
+        Set<SingleValidationResultsEnvelope> unpublished = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        if (!inProcessCompletion) {
+            Map<String, Integer> versionsByUuid = new LinkedHashMap<>();
+            stored.forEach(envelope -> versionsByUuid.put(envelope.getValidationResultUUID(), envelope.getValidationResultVersion()));
+
+            Set<String> failedUuids = new HashSet<>();
+            versionsByUuid.forEach((uuid, version) -> {
+                if (!publish(() -> aggregatorMessageSender.sendValidationResultDocumentUpdate(uuid, version),
+                        "document update of validation result " + uuid)) {
+                    failedUuids.add(uuid);
+                }
+            });
+            stored.stream()
+                    .filter(envelope -> failedUuids.contains(envelope.getValidationResultUUID()))
+                    .forEach(unpublished::add);
+        }
+
+        for (SingleValidationResultsEnvelope envelope : stored) {
+            if (!publish(() -> aggregatorMessageSender.sendValidationResultAuthorUpdate(envelope),
+                    envelope.getValidationAuthor() + " update of validation result " + envelope.getValidationResultUUID())) {
+                unpublished.add(envelope);
+            }
+        }
+        return unpublished;
+    }
+
+    private boolean publish(Runnable send, String event) {
+        for (int attempt = 1; attempt <= publishAttempts; attempt++) {
+            try {
+                send.run();
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt == publishAttempts) {
+                    logger.error("Could not publish the {} after {} attempts, dead-lettering its results.", event, attempt, e);
+                } else {
+                    logger.warn("Could not publish the {}, retrying.", event, e);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static class Batch {
+
+        private final List<Delivery> deliveries = new ArrayList<>();
+        private long startedAt;
+
+        void add(Delivery delivery) {
+            if (deliveries.isEmpty()) {
+                startedAt = System.currentTimeMillis();
+            }
+            deliveries.add(delivery);
+        }
+
+        int size() {
+            return deliveries.size();
+        }
+
+        long age() {
+            return System.currentTimeMillis() - startedAt;
+        }
+
+        List<Delivery> take() {
+            List<Delivery> taken = new ArrayList<>(deliveries);
+            deliveries.clear();
+            return taken;
+        }
+    }
+
+    private static class Delivery {
+
+        private final SingleValidationResultsEnvelope envelope;
+        private final Channel channel;
+        private final long deliveryTag;
+
+        Delivery(SingleValidationResultsEnvelope envelope, Channel channel, long deliveryTag) {
+            this.envelope = envelope;
+            this.channel = channel;
+            this.deliveryTag = deliveryTag;
+        }
+
+        void acknowledge() {
+            try {
+                channel.basicAck(deliveryTag, false);
+            } catch (IOException e) {
+                logger.error("Could not acknowledge validation results with delivery tag {}.", deliveryTag, e);
+            }
+        }
+
+        void reject() {
+            nack(true);
+        }
+
+        void deadLetter() {
+            nack(false);
+        }
+
+        private void nack(boolean requeue) {
+            try {
+                channel.basicNack(deliveryTag, false, requeue);
+            } catch (IOException e) {
+                logger.error("Could not reject validation results with delivery tag {}.", deliveryTag, e);
+            }
+        }
+    }
+}
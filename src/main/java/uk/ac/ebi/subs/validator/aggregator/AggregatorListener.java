@@ -3,35 +3,44 @@ package uk.ac.ebi.subs.validator.aggregator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import uk.ac.ebi.subs.messaging.Exchanges;
-import uk.ac.ebi.subs.validator.data.AggregatorToFlipperEnvelope;
 import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
 import uk.ac.ebi.subs.validator.messaging.AggregatorQueues;
-import uk.ac.ebi.subs.validator.messaging.AggregatorRoutingKeys;
 
 /**
  * This class is listening on events on the validation result {@code Queue}.
  * When processing a published event it will update the {@code {@link uk.ac.ebi.subs.validator.data.ValidationResult}}
  * document with the validation results and publish a message of the updated document's UUID
- * to the validation result document update queue.
+ * to the validation result document update queue. It also broadcasts which validation author has reported,
+ * so that validations waiting for the results of that author can resume.
+ *
+ * With in-process completion enabled, the status of the document is completed here in the same step as the update,
+ * and no message is sent to the status flipper.
+ *
+ * When batch consumption is enabled, {@link AggregatorBatchListener} consumes the queue instead.
  *
  * Created by karoly on 05/05/2017.
  */
 @Service
+@ConditionalOnProperty(name = "validator.aggregator.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class AggregatorListener {
 
     private static Logger logger = LoggerFactory.getLogger(AggregatorListener.class);
 
-    private RabbitMessagingTemplate rabbitMessagingTemplate;
+    private AggregatorMessageSender aggregatorMessageSender;
 
     AggregatorValidationResultService aggregatorValidationResultService;
 
-    public AggregatorListener(RabbitMessagingTemplate rabbitMessagingTemplate,
-                              AggregatorValidationResultService aggregatorValidationResultService) {
-        this.rabbitMessagingTemplate = rabbitMessagingTemplate;
+    private boolean inProcessCompletion;
+
+    public AggregatorListener(AggregatorMessageSender aggregatorMessageSender,
+                              AggregatorValidationResultService aggregatorValidationResultService,
+                              @Value("${validator.aggregator.in-process-completion:false}") boolean inProcessCompletion) {
+        this.aggregatorMessageSender = aggregatorMessageSender;
         this.aggregatorValidationResultService = aggregatorValidationResultService;
+        this.inProcessCompletion = inProcessCompletion;
     }
 
     @RabbitListener(queues = AggregatorQueues.VALIDATION_RESULT)
@@ -39,23 +48,19 @@ public class AggregatorListener {
         logger.debug("Received single validation results from {}.", singleValidationResultsEnvelope.getValidationAuthor());
 
         logger.debug("Trying to update Validation Result Document in MongoDB...");
-        boolean success = aggregatorValidationResultService.updateValidationResult(singleValidationResultsEnvelope);
+        boolean success = inProcessCompletion
+                ? aggregatorValidationResultService.updateAndCompleteValidationResult(singleValidationResultsEnvelope)
+                : aggregatorValidationResultService.updateValidationResult(singleValidationResultsEnvelope);
 
         if(success) {
-            sendValidationResultDocumentUpdate(singleValidationResultsEnvelope);
+            if (!inProcessCompletion) {
+                aggregatorMessageSender.sendValidationResultDocumentUpdate(
+                        singleValidationResultsEnvelope.getValidationResultUUID(),
+                        singleValidationResultsEnvelope.getValidationResultVersion());
+            }
+            aggregatorMessageSender.sendValidationResultAuthorUpdate(singleValidationResultsEnvelope);
         } else {
             logger.info("Ignoring obsolete validation results.");
         }
     }
-
-    private void sendValidationResultDocumentUpdate(SingleValidationResultsEnvelope singleValidationResultsEnvelope) {
-        logger.debug("Sending message: validation result {} document has been updated in MongoDB.", singleValidationResultsEnvelope.getValidationResultUUID());
-
-        AggregatorToFlipperEnvelope envelope = new AggregatorToFlipperEnvelope(
-                singleValidationResultsEnvelope.getValidationResultUUID(),
-                singleValidationResultsEnvelope.getValidationResultVersion()
-        );
-
-        rabbitMessagingTemplate.convertAndSend(Exchanges.SUBMISSIONS, AggregatorRoutingKeys.EVENT_VALIDATION_RESULT_DOCUMENT_UPDATED, envelope);
-    }
 }
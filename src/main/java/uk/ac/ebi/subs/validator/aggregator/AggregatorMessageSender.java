@@ -0,0 +1,49 @@
+package uk.ac.ebi.subs.validator.aggregator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.messaging.Exchanges;
+import uk.ac.ebi.subs.validator.aggregator.messages.ValidationResultAuthorUpdatedMessage;
+import uk.ac.ebi.subs.validator.data.AggregatorToFlipperEnvelope;
+import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
+import uk.ac.ebi.subs.validator.messaging.AggregatorRoutingKeys;
+
+/**
+ * Publishes the events of the aggregator, once the results of a validation author have been stored.
+ */
+@Component
+public class AggregatorMessageSender {
+
+    private static Logger logger = LoggerFactory.getLogger(AggregatorMessageSender.class);
+
+    private RabbitMessagingTemplate rabbitMessagingTemplate;
+
+    public AggregatorMessageSender(RabbitMessagingTemplate rabbitMessagingTemplate) {
+        this.rabbitMessagingTemplate = rabbitMessagingTemplate;
+    }
+
+    /**
+     * Notifies the status flipper that the validation result document has been updated in MongoDB.
+     */
+    public void sendValidationResultDocumentUpdate(String validationResultUuid, int validationResultVersion) {
+        logger.debug("Sending message: validation result {} document has been updated in MongoDB.", validationResultUuid);
+
+        AggregatorToFlipperEnvelope envelope = new AggregatorToFlipperEnvelope(validationResultUuid, validationResultVersion);
+
+        rabbitMessagingTemplate.convertAndSend(Exchanges.SUBMISSIONS, AggregatorRoutingKeys.EVENT_VALIDATION_RESULT_DOCUMENT_UPDATED, envelope);
+    }
+
+    /**
+     * Broadcasts which validation author has reported, so that validations waiting for its results can resume.
+     */
+    public void sendValidationResultAuthorUpdate(SingleValidationResultsEnvelope singleValidationResultsEnvelope) {
+        ValidationResultAuthorUpdatedMessage message = new ValidationResultAuthorUpdatedMessage(
+                singleValidationResultsEnvelope.getValidationResultUUID(),
+                singleValidationResultsEnvelope.getValidationAuthor()
+        );
+
+        rabbitMessagingTemplate.convertAndSend(Exchanges.SUBMISSIONS, AggregatorRoutingKeys.EVENT_VALIDATION_RESULT_AUTHOR_UPDATED, message);
+    }
+}
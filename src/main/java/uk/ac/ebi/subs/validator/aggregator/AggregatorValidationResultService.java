@@ -1,42 +1,271 @@
 package uk.ac.ebi.subs.validator.aggregator;
 
+import com.mongodb.BasicDBObject;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import uk.ac.ebi.subs.validator.data.AggregatorToFlipperEnvelope;
 import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
 import uk.ac.ebi.subs.validator.data.ValidationResult;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
+import uk.ac.ebi.subs.validator.flipper.StatusFlipperValidationResultService;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static uk.ac.ebi.subs.validator.util.BlankValidationResultMaps.PENDING_AUTHORS_FIELD;
+import static uk.ac.ebi.subs.validator.util.BlankValidationResultMaps.RESULT_HASHES_FIELD;
+
+/**
+ * Stores the results of the validation authors in the validation result documents.
+ *
+ * The hash of the results stored for each author is kept in the document, and results identical to the stored ones
+ * are not written again. They still count as stored, so a redelivered message completes the validation result and
+ * notifies the author like the first delivery did. The hashes are dropped when the validation result is reset for a
+ * new version.
+ */
 @Service
-public class AggregatorValidationResultService {
+public class AggregatorValidationResultService implements PublicMetrics {
+
+    static final String UNCHANGED_RESULTS_METRIC = "aggregator.results.unchanged";
 
     private MongoTemplate mongoTemplate;
 
-    public AggregatorValidationResultService(MongoTemplate mongoTemplate) {
+    private StatusFlipperValidationResultService statusFlipperValidationResultService;
+
+    private final AtomicLong unchangedResults = new AtomicLong();
+
+    public AggregatorValidationResultService(MongoTemplate mongoTemplate,
+                                             StatusFlipperValidationResultService statusFlipperValidationResultService) {
         this.mongoTemplate = mongoTemplate;
+        this.statusFlipperValidationResultService = statusFlipperValidationResultService;
     }
 
+    /**
+     * Stores the results of the validation author and removes the author from the pending authors of the
+     * validation result.
+     *
+     * @return false if the results are obsolete or the validation result does not exist; results identical to the
+     * stored ones are not written again, but count as stored
+     */
     public boolean updateValidationResult(SingleValidationResultsEnvelope envelope) {
 
         final boolean isFileContentValidation = envelope.getValidationAuthor().equals(ValidationAuthor.FileContent);
+        final String resultsHash = resultsHash(envelope);
+
+        Query query = validationResultQuery(envelope, isFileContentValidation)
+                .addCriteria(Criteria.where(resultsHashField(envelope)).ne(resultsHash));
+        query.fields().include("version");
+
+        ValidationResult validationResult = mongoTemplate.findAndModify(query, resultsUpdate(envelope, resultsHash), ValidationResult.class);
+
+        if (validationResult == null) {
+            Query unchangedResultsQuery = validationResultQuery(envelope, isFileContentValidation)
+                    .addCriteria(Criteria.where(resultsHashField(envelope)).is(resultsHash));
+            unchangedResultsQuery.fields().include("version");
+
+            validationResult = mongoTemplate.findOne(unchangedResultsQuery, ValidationResult.class);
+            if (validationResult == null) {
+                return false;
+            }
+            unchangedResults.incrementAndGet();
+        }
+
+        if (isFileContentValidation) {
+            envelope.setValidationResultVersion(validationResult.getVersion());
+        }
+
+        return true;
+    }
 
+    private static Query validationResultQuery(SingleValidationResultsEnvelope envelope, boolean isFileContentValidation) {
         Query query = new Query(Criteria.where("_id").is(envelope.getValidationResultUUID()));
 
         if (!isFileContentValidation) {
             query.addCriteria(Criteria.where("version").is(envelope.getValidationResultVersion()));
         }
+        return query;
+    }
 
-        Update update = new Update().set("expectedResults." + envelope.getValidationAuthor(), envelope.getSingleValidationResults());
+    /**
+     * Stores the results of several validation authors with one bulk write, guarded by the version of each
+     * validation result. Results of the same author for the same validation result are applied once, the later
+     * ones winning.
+     *
+     * @return the envelopes whose results have been stored, including the ones identical to the stored results,
+     * which are not written again; obsolete results and missing validation results are left out
+     */
+    public List<SingleValidationResultsEnvelope> updateValidationResults(List<SingleValidationResultsEnvelope> envelopes) {
+        Map<String, SingleValidationResultsEnvelope> latestByUuidAndAuthor = new LinkedHashMap<>();
+        for (SingleValidationResultsEnvelope envelope : envelopes) {
+            latestByUuidAndAuthor.remove(uuidAndAuthor(envelope));
+            latestByUuidAndAuthor.put(uuidAndAuthor(envelope), envelope);
+        }
 
-        ValidationResult validationResult = mongoTemplate.findAndModify(query, update, ValidationResult.class);
+        Map<String, BasicDBObject> currentStates = currentStates(latestByUuidAndAuthor.values());
 
-        if (validationResult != null && isFileContentValidation) {
-            envelope.setValidationResultVersion(validationResult.getVersion());
+        List<SingleValidationResultsEnvelope> unchanged = new ArrayList<>();
+        List<SingleValidationResultsEnvelope> written = new ArrayList<>();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ValidationResult.class);
+
+        for (SingleValidationResultsEnvelope envelope : latestByUuidAndAuthor.values()) {
+            BasicDBObject currentState = currentStates.get(envelope.getValidationResultUUID());
+
+            if (currentState == null) {
+                continue;
+            }
+            int currentVersion = currentState.getInt("version");
+            if (envelope.getValidationAuthor().equals(ValidationAuthor.FileContent)) {
+                envelope.setValidationResultVersion(currentVersion);
+            } else if (currentVersion != envelope.getValidationResultVersion()) {
+                continue;
+            }
+
+            String resultsHash = resultsHash(envelope);
+            BasicDBObject storedHashes = (BasicDBObject) currentState.get(RESULT_HASHES_FIELD);
+            if (storedHashes != null && resultsHash.equals(storedHashes.getString(envelope.getValidationAuthor().name()))) {
+                unchangedResults.incrementAndGet();
+                unchanged.add(envelope);
+                continue;
+            }
+
+            Query sameVersion = new Query(Criteria.where("_id").is(envelope.getValidationResultUUID())
+                    .and("version").is(envelope.getValidationResultVersion())
+                    .and(resultsHashField(envelope)).ne(resultsHash));
+            bulkOperations.updateOne(sameVersion, resultsUpdate(envelope, resultsHash));
+            written.add(envelope);
+        }
+
+        List<SingleValidationResultsEnvelope> stored = new ArrayList<>(unchanged);
+        if (written.isEmpty()) {
+            return stored;
         }
 
-        return validationResult != null;
+        if (bulkOperations.execute().getMatchedCount() < written.size()) {
+            stored.addAll(retryConcurrentlyChangedValidationResults(written));
+        } else {
+            stored.addAll(written);
+        }
+        return stored;
+    }
+
+    /**
+     * Some of the validation results have been reset between reading their versions and the bulk write. The results
+     * written for the previous version are obsolete, except the file content results, which are kept over a reset
+     * and are stored again one by one.
+     */
+    private List<SingleValidationResultsEnvelope> retryConcurrentlyChangedValidationResults(List<SingleValidationResultsEnvelope> written) {
+        Map<String, BasicDBObject> currentStates = currentStates(written);
+
+        List<SingleValidationResultsEnvelope> stored = new ArrayList<>();
+        for (SingleValidationResultsEnvelope envelope : written) {
+            BasicDBObject currentState = currentStates.get(envelope.getValidationResultUUID());
+
+            if (currentState != null && currentState.getInt("version") == envelope.getValidationResultVersion()) {
+                stored.add(envelope);
+            } else if (envelope.getValidationAuthor().equals(ValidationAuthor.FileContent) && updateValidationResult(envelope)) {
+                stored.add(envelope);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * @return the versions and result hashes of the validation results, keyed by their UUID
+     */
+    private Map<String, BasicDBObject> currentStates(Collection<SingleValidationResultsEnvelope> envelopes) {
+        Set<String> uuids = envelopes.stream()
+                .map(SingleValidationResultsEnvelope::getValidationResultUUID)
+                .collect(Collectors.toSet());
+
+        Query statesQuery = new Query(Criteria.where("_id").in(uuids));
+        statesQuery.fields().include("version").include(RESULT_HASHES_FIELD);
+
+        return mongoTemplate.find(statesQuery, BasicDBObject.class, mongoTemplate.getCollectionName(ValidationResult.class)).stream()
+                .collect(Collectors.toMap(state -> state.getString("_id"), state -> state));
+    }
+
+    private static String uuidAndAuthor(SingleValidationResultsEnvelope envelope) {
+        return envelope.getValidationResultUUID() + "/" + envelope.getValidationAuthor();
+    }
+
+    private static String resultsHashField(SingleValidationResultsEnvelope envelope) {
+        return RESULT_HASHES_FIELD + "." + envelope.getValidationAuthor();
+    }
+
+    /**
+     * @return the hex MD5 digest of the results, as they are stored in MongoDB
+     */
+    private String resultsHash(SingleValidationResultsEnvelope envelope) {
+        Object storedForm = mongoTemplate.getConverter().convertToMongoType(envelope.getSingleValidationResults());
+
+        return DigestUtils.md5DigestAsHex(String.valueOf(storedForm).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Update resultsUpdate(SingleValidationResultsEnvelope envelope, String resultsHash) {
+        Update update = new Update()
+                .set("expectedResults." + envelope.getValidationAuthor(), envelope.getSingleValidationResults())
+                .set(resultsHashField(envelope), resultsHash);
+
+        if (envelope.getSingleValidationResults() != null && !envelope.getSingleValidationResults().isEmpty()) {
+            update.pull(PENDING_AUTHORS_FIELD, envelope.getValidationAuthor().name());
+        }
+        return update;
+    }
+
+    /**
+     * Stores the results like {@link #updateValidationResult(SingleValidationResultsEnvelope)} does, then completes
+     * the validation result straight away when no author is pending any more. This replaces the round trip
+     * through the status flipper, when the two run in the same process.
+     *
+     * @return false if the results are obsolete or the validation result does not exist
+     */
+    public boolean updateAndCompleteValidationResult(SingleValidationResultsEnvelope envelope) {
+        if (!updateValidationResult(envelope)) {
+            return false;
+        }
+
+        statusFlipperValidationResultService.updateValidationResult(new AggregatorToFlipperEnvelope(
+                envelope.getValidationResultUUID(),
+                envelope.getValidationResultVersion()
+        ));
+        return true;
+    }
+
+    /**
+     * Stores the results like {@link #updateValidationResults(List)} does, then completes each updated validation
+     * result once, when no author is pending any more.
+     *
+     * @return the envelopes whose results have been stored
+     */
+    public List<SingleValidationResultsEnvelope> updateAndCompleteValidationResults(List<SingleValidationResultsEnvelope> envelopes) {
+        List<SingleValidationResultsEnvelope> stored = updateValidationResults(envelopes);
+
+        Map<String, Integer> versionsByUuid = new LinkedHashMap<>();
+        stored.forEach(envelope -> versionsByUuid.put(envelope.getValidationResultUUID(), envelope.getValidationResultVersion()));
+
+        versionsByUuid.forEach((uuid, version) ->
+                statusFlipperValidationResultService.updateValidationResult(new AggregatorToFlipperEnvelope(uuid, version)));
+        return stored;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Collections.singletonList(new Metric<>(UNCHANGED_RESULTS_METRIC, unchangedResults.get()));
     }
 
-}
\ No newline at end of file
+}
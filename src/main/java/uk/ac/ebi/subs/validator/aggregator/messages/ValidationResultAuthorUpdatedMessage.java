@@ -0,0 +1,20 @@
+package uk.ac.ebi.subs.validator.aggregator.messages;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
+
+/**
+ * Broadcast by the aggregator when the results of a validation author have been stored in a validation result.
+ */
+@Data
+@RequiredArgsConstructor
+@NoArgsConstructor
+public class ValidationResultAuthorUpdatedMessage {
+    @NonNull
+    private String validationResultUuid;
+    @NonNull
+    private ValidationAuthor validationAuthor;
+}
@@ -4,15 +4,35 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.validator.schema.BatchingJsonSchemaValidationService;
+import uk.ac.ebi.subs.validator.schema.EmbeddedJsonSchemaValidationService;
 import uk.ac.ebi.subs.validator.schema.JsonSchemaValidationService;
 
 @Configuration(value = "ValidatorConfiguration")
 public class Config {
 
+    /**
+     * The JSON schema validation engine is selected by {@code validator.schema.engine}: {@code remote} calls the
+     * JSON schema validator at {@code validator.schema.url}, {@code remote-batching} calls it with the documents
+     * validated against the same schema at the same time together, {@code embedded} validates in the JVM.
+     */
     @Bean
     public JsonSchemaValidationService jsonSchemaValidationService(
             @Value("${validator.schema.url}") String jsonSchemaValidatorUrl,
+            @Value("${validator.schema.engine:remote}") String engine,
+            @Value("${validator.schema.batch.max-size:50}") int maximumBatchSize,
+            @Value("${validator.schema.batch.max-wait-ms:10}") long maximumBatchWaitMillis,
             RestTemplate restTemplate) {
-        return new JsonSchemaValidationService(jsonSchemaValidatorUrl, restTemplate);
+        switch (engine) {
+            case "remote":
+                return new JsonSchemaValidationService(jsonSchemaValidatorUrl, restTemplate);
+            case "remote-batching":
+                return new BatchingJsonSchemaValidationService(jsonSchemaValidatorUrl, restTemplate,
+                        maximumBatchSize, maximumBatchWaitMillis);
+            case "embedded":
+                return new EmbeddedJsonSchemaValidationService(jsonSchemaValidatorUrl, restTemplate);
+            default:
+                throw new IllegalArgumentException(String.format("Unknown JSON schema validation engine: %s", engine));
+        }
     }
 }
@@ -0,0 +1,71 @@
+package uk.ac.ebi.subs.validator.config;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import uk.ac.ebi.subs.validator.http.MeteredConnectionManager;
+import uk.ac.ebi.subs.validator.http.ResponseSizeLimitInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client for the calls to the JSON schema validator and to BioSamples.
+ *
+ * Connections are pooled per target host and kept alive between calls, so a burst of validations does not pay for
+ * a TCP and TLS handshake on every call. Every call has a deadline for getting a connection from the pool, for
+ * connecting and for reading, and the size of the responses is limited.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public MeteredConnectionManager httpConnectionManager(
+            @Value("${validator.http.pool.max-total:100}") int maximumConnections,
+            @Value("${validator.http.pool.max-per-route:20}") int maximumConnectionsPerHost,
+            @Value("${validator.http.keep-alive-ms:30000}") long keepAliveMillis) {
+        MeteredConnectionManager connectionManager = new MeteredConnectionManager(keepAliveMillis);
+        connectionManager.setMaxTotal(maximumConnections);
+        connectionManager.setDefaultMaxPerRoute(maximumConnectionsPerHost);
+        connectionManager.setValidateAfterInactivity(2000);
+        return connectionManager;
+    }
+
+    @Bean
+    public HttpClient httpClient(
+            MeteredConnectionManager httpConnectionManager,
+            @Value("${validator.http.keep-alive-ms:30000}") long keepAliveMillis,
+            @Value("${validator.http.pool.wait-timeout-ms:2000}") int poolWaitTimeoutMillis,
+            @Value("${validator.http.connect-timeout-ms:2000}") int connectTimeoutMillis,
+            @Value("${validator.http.read-timeout-ms:10000}") int readTimeoutMillis,
+            @Value("${validator.http.max-response-bytes:10485760}") long maximumResponseBytes) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(poolWaitTimeoutMillis)
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .build();
+
+        return HttpClientBuilder.create()
+                .setConnectionManager(httpConnectionManager)
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? Math.min(keepAlive, keepAliveMillis) : keepAliveMillis;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                .addInterceptorLast(new ResponseSizeLimitInterceptor(maximumResponseBytes))
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory clientHttpRequestFactory(HttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+}
@@ -7,8 +7,6 @@ import uk.ac.ebi.subs.data.component.SampleRef;
 import uk.ac.ebi.subs.data.component.StudyRef;
 import uk.ac.ebi.subs.data.submittable.Sample;
 import uk.ac.ebi.subs.data.submittable.Study;
-import uk.ac.ebi.subs.repository.repos.submittables.SampleRepository;
-import uk.ac.ebi.subs.repository.repos.submittables.StudyRepository;
 import uk.ac.ebi.subs.validator.data.AnalysisValidationEnvelope;
 import uk.ac.ebi.subs.validator.model.Submittable;
 
@@ -21,10 +19,7 @@ import java.util.List;
 public class AnalysisValidationMessageEnvelopeExpander extends ValidationMessageEnvelopeExpander<AnalysisValidationEnvelope> {
 
     @NonNull
-    private SampleRepository sampleRepository;
-
-    @NonNull
-    private StudyRepository studyRepository;
+    private BatchedReferenceResolver batchedReferenceResolver;
 
     @Override
     void expandEnvelope(AnalysisValidationEnvelope validationMessageEnvelope) {
@@ -40,14 +35,11 @@ public class AnalysisValidationMessageEnvelopeExpander extends ValidationMessage
     private List<Submittable<Sample>> wrappedSamples(AnalysisValidationEnvelope validationMessageEnvelope, Collection<SampleRef> sampleRefs) {
         List<Submittable<Sample>> samples = new ArrayList<>();
 
-        for (SampleRef sampleRef : sampleRefs) {
-            uk.ac.ebi.subs.repository.model.Sample sampleStoredSubmittable;
+        BatchedReferenceResolver.ResolvedReferences<uk.ac.ebi.subs.repository.model.Sample> resolvedSamples =
+                batchedReferenceResolver.resolve(validationMessageEnvelope.getSubmissionId(), uk.ac.ebi.subs.repository.model.Sample.class, sampleRefs);
 
-            if (sampleRef.getAccession() != null && !sampleRef.getAccession().isEmpty()) {
-                sampleStoredSubmittable = sampleRepository.findFirstByAccessionOrderByCreatedDateDesc(sampleRef.getAccession());
-            } else {
-                sampleStoredSubmittable = sampleRepository.findFirstByTeamNameAndAliasOrderByCreatedDateDesc(sampleRef.getTeam(), sampleRef.getAlias());
-            }
+        for (SampleRef sampleRef : sampleRefs) {
+            uk.ac.ebi.subs.repository.model.Sample sampleStoredSubmittable = resolvedSamples.find(sampleRef);
 
             if (canAddSubmittable(validationMessageEnvelope, sampleStoredSubmittable)) {
                 Submittable<uk.ac.ebi.subs.data.submittable.Sample> sampleSubmittable = new Submittable<>(sampleStoredSubmittable, sampleStoredSubmittable.getSubmission().getId());
@@ -61,14 +53,11 @@ public class AnalysisValidationMessageEnvelopeExpander extends ValidationMessage
     private List<Submittable<Study>> wrappedStudies(AnalysisValidationEnvelope validationMessageEnvelope, Collection<StudyRef> studyRefs) {
         List<Submittable<Study>> studies = new ArrayList<>();
 
-        for (StudyRef studyRef : studyRefs) {
-            uk.ac.ebi.subs.repository.model.Study studyStoredSubmittable;
+        BatchedReferenceResolver.ResolvedReferences<uk.ac.ebi.subs.repository.model.Study> resolvedStudies =
+                batchedReferenceResolver.resolve(validationMessageEnvelope.getSubmissionId(), uk.ac.ebi.subs.repository.model.Study.class, studyRefs);
 
-            if (studyRef.getAccession() != null && !studyRef.getAccession().isEmpty()) {
-                studyStoredSubmittable = studyRepository.findFirstByAccessionOrderByCreatedDateDesc(studyRef.getAccession());
-            } else {
-                studyStoredSubmittable = studyRepository.findFirstByTeamNameAndAliasOrderByCreatedDateDesc(studyRef.getTeam(), studyRef.getAlias());
-            }
+        for (StudyRef studyRef : studyRefs) {
+            uk.ac.ebi.subs.repository.model.Study studyStoredSubmittable = resolvedStudies.find(studyRef);
 
             if (canAddSubmittable(validationMessageEnvelope, studyStoredSubmittable)) {
                 Submittable<uk.ac.ebi.subs.data.submittable.Study> sampleSubmittable = new Submittable<>(studyStoredSubmittable, studyStoredSubmittable.getSubmission().getId());
@@ -0,0 +1,152 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.data.component.AbstractSubsRef;
+import uk.ac.ebi.subs.data.component.SampleUse;
+import uk.ac.ebi.subs.data.submittable.Analysis;
+import uk.ac.ebi.subs.data.submittable.Assay;
+import uk.ac.ebi.subs.data.submittable.Sample;
+import uk.ac.ebi.subs.repository.model.StoredSubmittable;
+import uk.ac.ebi.subs.repository.repos.submittables.SubmittableRepository;
+import uk.ac.ebi.subs.validator.error.ArchivedSampleLookupException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Looks up, before a whole submission is revalidated, every sample the samples, assays and analyses of the submission
+ * refer to by an accession that is not in the submission or the repository, so the archive lookups of the
+ * revalidation are answered from the cache of {@link BioSamplesLookupService} instead of one by one on the way.
+ *
+ * The lookups run through {@link ArchivedSampleResolver}, with a deadline of
+ * {@code validator.coordinator.prefetch.deadline-ms} for all of them together. They are handed over in chunks of
+ * {@code validator.coordinator.prefetch.chunk-size}, each started once the previous one has finished, so a submission
+ * referring to many samples neither overflows the queue of the resolver nor fills it up for the envelope expansions
+ * needing it meanwhile. Samples not looked up in time are left to the revalidation. Only the repositories of the
+ * types able to refer to samples are read.
+ */
+@Component
+@Slf4j
+public class ArchivedSamplePrefetcher {
+
+    private static final List<Class<?>> SAMPLE_REFERRING_CLASSES = Arrays.asList(Sample.class, Assay.class, Analysis.class);
+
+    private final List<SubmittableRepository<? extends StoredSubmittable>> sampleReferringRepositories = new ArrayList<>();
+    private final BatchedReferenceResolver batchedReferenceResolver;
+    private final ArchivedSampleResolver archivedSampleResolver;
+    private final long deadlineMillis;
+    private final int chunkSize;
+
+    public ArchivedSamplePrefetcher(
+            Map<Class<? extends StoredSubmittable>, SubmittableRepository<? extends StoredSubmittable>> submittableRepositoryMap,
+            BatchedReferenceResolver batchedReferenceResolver,
+            ArchivedSampleResolver archivedSampleResolver,
+            @Value("${validator.coordinator.prefetch.deadline-ms:60000}") long deadlineMillis,
+            @Value("${validator.coordinator.prefetch.chunk-size:100}") int chunkSize) {
+        submittableRepositoryMap.forEach((storedSubmittableClass, repository) -> {
+            if (SAMPLE_REFERRING_CLASSES.stream().anyMatch(sampleReferringClass -> sampleReferringClass.isAssignableFrom(storedSubmittableClass))) {
+                sampleReferringRepositories.add(repository);
+            }
+        });
+        this.batchedReferenceResolver = batchedReferenceResolver;
+        this.archivedSampleResolver = archivedSampleResolver;
+        this.deadlineMillis = deadlineMillis;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * @return the number of samples looked up in the archive
+     */
+    public int prefetch(String submissionId) {
+        Map<String, AbstractSubsRef> sampleRefsByAccession = new LinkedHashMap<>();
+
+        for (SubmittableRepository<? extends StoredSubmittable> repository : sampleReferringRepositories) {
+            collectSampleRefs(repository, submissionId, sampleRefsByAccession);
+        }
+
+        if (sampleRefsByAccession.isEmpty()) {
+            return 0;
+        }
+
+        BatchedReferenceResolver.ResolvedReferences<uk.ac.ebi.subs.repository.model.Sample> storedSamples =
+                batchedReferenceResolver.resolve(submissionId, uk.ac.ebi.subs.repository.model.Sample.class, sampleRefsByAccession.values());
+
+        List<String> archivedAccessions = new ArrayList<>();
+        sampleRefsByAccession.forEach((accession, sampleRef) -> {
+            if (storedSamples.find(sampleRef) == null) {
+                archivedAccessions.add(accession);
+            }
+        });
+
+        if (!archivedAccessions.isEmpty()) {
+            long start = System.currentTimeMillis();
+            long deadline = start + deadlineMillis;
+            int found = 0;
+            int notLookedUp = 0;
+
+            for (int from = 0; from < archivedAccessions.size(); from += chunkSize) {
+                List<String> chunk = archivedAccessions.subList(from, Math.min(from + chunkSize, archivedAccessions.size()));
+                long remainingMillis = deadline - System.currentTimeMillis();
+                if (remainingMillis <= 0) {
+                    notLookedUp += chunk.size();
+                    continue;
+                }
+                try {
+                    found += archivedSampleResolver.resolve(chunk, remainingMillis).size();
+                } catch (ArchivedSampleLookupException e) {
+                    notLookedUp += e.getAccessions().size();
+                }
+            }
+
+            if (notLookedUp == 0) {
+                log.info("Prefetched {} of {} archived samples referenced by submission {} in {} ms",
+                        found, archivedAccessions.size(), submissionId, System.currentTimeMillis() - start);
+            } else {
+                log.warn("Prefetched archived samples referenced by submission {} in part, {} of {} were not looked up",
+                        submissionId, notLookedUp, archivedAccessions.size());
+            }
+        }
+        return archivedAccessions.size();
+    }
+
+    private static void collectSampleRefs(SubmittableRepository<? extends StoredSubmittable> repository, String submissionId,
+                                          Map<String, AbstractSubsRef> sampleRefsByAccession) {
+        try (Stream<? extends StoredSubmittable> items = repository.streamBySubmissionId(submissionId)) {
+            items.forEach(item -> {
+                for (AbstractSubsRef sampleRef : sampleRefs(item)) {
+                    if (sampleRef != null && BatchedReferenceResolver.hasAccession(sampleRef)) {
+                        sampleRefsByAccession.putIfAbsent(sampleRef.getAccession(), sampleRef);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the sample references of the item, none if items of its type do not refer to samples
+     */
+    private static Collection<? extends AbstractSubsRef> sampleRefs(StoredSubmittable item) {
+        if (item instanceof Sample) {
+            return ((Sample) item).getSampleRelationships();
+        }
+        if (item instanceof Assay) {
+            List<AbstractSubsRef> sampleRefs = new ArrayList<>();
+            for (SampleUse sampleUse : ((Assay) item).getSampleUses()) {
+                sampleRefs.add(sampleUse.getSampleRef());
+            }
+            return sampleRefs;
+        }
+        if (item instanceof Analysis) {
+            return ((Analysis) item).getSampleRefs();
+        }
+        return Collections.emptyList();
+    }
+}
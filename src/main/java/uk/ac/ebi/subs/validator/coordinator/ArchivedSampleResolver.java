@@ -0,0 +1,140 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.repository.model.Sample;
+import uk.ac.ebi.subs.validator.error.ArchivedSampleLookupException;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Looks up the samples of several accessions in the sample archive at the same time.
+ *
+ * The lookups run on a bounded pool of {@code validator.coordinator.archived-samples.threads} threads; lookups that
+ * do not fit in its queue are not started. All the lookups of one call share a deadline of
+ * {@code validator.coordinator.archived-samples.deadline-ms}, and the ones not finished by then are cancelled.
+ * A call with lookups that have failed, missed the deadline or were not started fails, instead of resolving their
+ * accessions to no sample, so the validation needing them is retried rather than reporting the samples as missing.
+ */
+@Component
+@Slf4j
+public class ArchivedSampleResolver {
+
+    private final SubmittableFinderService submittableFinderService;
+    private final long deadlineMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    public ArchivedSampleResolver(SubmittableFinderService submittableFinderService,
+                                  @Value("${validator.coordinator.archived-samples.threads:8}") int threads,
+                                  @Value("${validator.coordinator.archived-samples.queue-size:1000}") int queueSize,
+                                  @Value("${validator.coordinator.archived-samples.deadline-ms:20000}") long deadlineMillis) {
+        this.submittableFinderService = submittableFinderService;
+        this.deadlineMillis = deadlineMillis;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "archived-sample-resolver-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return the samples found in the archive by their accession; accessions without a sample are left out
+     * @throws ArchivedSampleLookupException if any of the lookups has failed, missed the deadline or could not be
+     * started, as then it is not known whether the archive holds those samples
+     */
+    public Map<String, Sample> resolve(Collection<String> accessions) {
+        return resolve(accessions, deadlineMillis);
+    }
+
+    /**
+     * @param deadlineMillis the time all the lookups have to finish in
+     */
+    public Map<String, Sample> resolve(Collection<String> accessions, long deadlineMillis) {
+        List<String> distinctAccessions = new ArrayList<>(new LinkedHashSet<>(accessions));
+        Map<String, Sample> samplesByAccession = new HashMap<>();
+
+        if (distinctAccessions.size() <= 1) {
+            for (String accession : distinctAccessions) {
+                Sample sample = submittableFinderService.findArchivedSampleByAccession(accession);
+                if (sample != null) {
+                    samplesByAccession.put(accession, sample);
+                }
+            }
+            return samplesByAccession;
+        }
+
+        long deadline = System.currentTimeMillis() + deadlineMillis;
+
+        Map<String, Future<Sample>> lookups = new LinkedHashMap<>();
+        try {
+            for (String accession : distinctAccessions) {
+                lookups.put(accession, executor.submit(() -> submittableFinderService.findArchivedSampleByAccession(accession)));
+            }
+        } catch (RejectedExecutionException e) {
+            cancel(lookups.values());
+            throw new ArchivedSampleLookupException("Too many archived sample lookups in progress to look up samples",
+                    distinctAccessions, e);
+        }
+
+        List<String> unresolvedAccessions = new ArrayList<>();
+        Throwable failure = null;
+
+        for (Map.Entry<String, Future<Sample>> lookup : lookups.entrySet()) {
+            try {
+                Sample sample = lookup.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (sample != null) {
+                    samplesByAccession.put(lookup.getKey(), sample);
+                }
+            } catch (TimeoutException e) {
+                lookup.getValue().cancel(true);
+                log.warn("Looking up sample {} in the archive has not finished in {} ms", lookup.getKey(), deadlineMillis);
+                unresolvedAccessions.add(lookup.getKey());
+                failure = failure == null ? e : failure;
+            } catch (ExecutionException e) {
+                log.error("Looking up sample {} in the archive has failed", lookup.getKey(), e.getCause());
+                unresolvedAccessions.add(lookup.getKey());
+                failure = failure == null ? e.getCause() : failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel(lookups.values());
+                throw new ArchivedSampleLookupException("Interrupted while looking up samples", distinctAccessions, e);
+            }
+        }
+
+        if (!unresolvedAccessions.isEmpty()) {
+            throw new ArchivedSampleLookupException("Could not look up samples in the archive", unresolvedAccessions, failure);
+        }
+        return samplesByAccession;
+    }
+
+    private static void cancel(Collection<Future<Sample>> lookups) {
+        lookups.forEach(lookup -> lookup.cancel(true));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
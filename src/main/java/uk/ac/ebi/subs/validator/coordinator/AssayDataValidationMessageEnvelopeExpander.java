@@ -4,11 +4,8 @@ import org.springframework.stereotype.Service;
 import uk.ac.ebi.subs.data.component.AssayRef;
 import uk.ac.ebi.subs.data.component.ProtocolRef;
 import uk.ac.ebi.subs.data.component.ProtocolUse;
-import uk.ac.ebi.subs.data.submittable.Assay;
 import uk.ac.ebi.subs.data.submittable.Protocol;
-import uk.ac.ebi.subs.repository.repos.submittables.AssayRepository;
-import uk.ac.ebi.subs.repository.repos.submittables.ProtocolRepository;
-import uk.ac.ebi.subs.repository.repos.submittables.SampleRepository;
+import uk.ac.ebi.subs.repository.model.Assay;
 import uk.ac.ebi.subs.validator.data.AssayDataValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.model.Submittable;
 
@@ -18,14 +15,10 @@ import java.util.List;
 @Service
 public class AssayDataValidationMessageEnvelopeExpander extends ValidationMessageEnvelopeExpander<AssayDataValidationMessageEnvelope> {
 
-    AssayRepository assayRepository;
-    SampleRepository sampleRepository;
-    ProtocolRepository protocolRepository;
+    BatchedReferenceResolver batchedReferenceResolver;
 
-    public AssayDataValidationMessageEnvelopeExpander(AssayRepository assayRepository, SampleRepository sampleRepository, ProtocolRepository protocolRepository) {
-        this.assayRepository = assayRepository;
-        this.sampleRepository = sampleRepository;
-        this.protocolRepository = protocolRepository;
+    public AssayDataValidationMessageEnvelopeExpander(BatchedReferenceResolver batchedReferenceResolver) {
+        this.batchedReferenceResolver = batchedReferenceResolver;
     }
 
     @Override
@@ -33,48 +26,57 @@ public class AssayDataValidationMessageEnvelopeExpander extends ValidationMessag
         final List<AssayRef> assayRefs = assayDataValidationMessageEnvelope.getEntityToValidate().getAssayRefs();
         if (assayRefs != null && !assayRefs.isEmpty()) {
             final List<Submittable<uk.ac.ebi.subs.data.submittable.Assay>> assays = new ArrayList<>();
-            final List<Submittable<Protocol>> protocols = new ArrayList<>();
+            final List<Assay> assayStoredSubmittables = new ArrayList<>();
 
-            for (AssayRef assayRef : assayRefs) {
-                uk.ac.ebi.subs.repository.model.Assay assayStoredSubmittable;
+            final BatchedReferenceResolver.ResolvedReferences<Assay> resolvedAssays =
+                    batchedReferenceResolver.resolve(assayDataValidationMessageEnvelope.getSubmissionId(), Assay.class, assayRefs);
 
-                if (assayRef.getAccession() != null && !assayRef.getAccession().isEmpty()) {
-                    assayStoredSubmittable = assayRepository.findFirstByAccessionOrderByCreatedDateDesc(assayRef.getAccession());
-                } else {
-                    assayStoredSubmittable = assayRepository.findFirstByTeamNameAndAliasOrderByCreatedDateDesc(assayRef.getTeam(), assayRef.getAlias());
-                }
+            for (AssayRef assayRef : assayRefs) {
+                Assay assayStoredSubmittable = resolvedAssays.find(assayRef);
 
                 if (canAddSubmittable(assayDataValidationMessageEnvelope, assayStoredSubmittable)) {
                     Submittable<uk.ac.ebi.subs.data.submittable.Assay> assaySubmittable = new Submittable<>(assayStoredSubmittable, assayStoredSubmittable.getSubmission().getId());
                     assays.add(assaySubmittable);
-                    expandProtocols(assayDataValidationMessageEnvelope, assayStoredSubmittable, protocols);
+                    assayStoredSubmittables.add(assayStoredSubmittable);
                 }
             }
 
             assayDataValidationMessageEnvelope.setAssays(assays);
-            assayDataValidationMessageEnvelope.setProtocols(protocols);
+            assayDataValidationMessageEnvelope.setProtocols(expandProtocols(assayDataValidationMessageEnvelope, assayStoredSubmittables));
         }
     }
 
-    private void expandProtocols(AssayDataValidationMessageEnvelope assayDataValidationMessageEnvelope, Assay assay, List<Submittable<Protocol>> protocols) {
-        List<ProtocolUse> protocolUses = assay.getProtocolUses();
-        if (protocols != null && !protocolUses.isEmpty()) {
-            for (ProtocolUse protocolUse : protocolUses) {
-                if (protocolUse != null) {
-                    ProtocolRef protocolRef = protocolUse.getProtocolRef();
-                    uk.ac.ebi.subs.repository.model.Protocol protocol;
-                    if (protocolRef != null && protocolRef.getAccession() != null && !protocolRef.getAccession().isEmpty()) {
-                        protocol = protocolRepository.findFirstByAccessionOrderByCreatedDateDesc(protocolRef.getAccession());
-                    } else {
-                        protocol = protocolRepository.findFirstByTeamNameAndAliasOrderByCreatedDateDesc(protocolRef.getTeam(), protocolRef.getAlias());
-                    }
-                    if (canAddSubmittable(assayDataValidationMessageEnvelope, protocol) && !addedBefore(protocol, protocols)) {
-                        Submittable<uk.ac.ebi.subs.data.submittable.Protocol> protocolSubmittable = new Submittable<>(protocol, protocol.getSubmission().getId());
-                        protocols.add(protocolSubmittable);
+    private List<Submittable<Protocol>> expandProtocols(AssayDataValidationMessageEnvelope assayDataValidationMessageEnvelope, List<Assay> assays) {
+        final List<Submittable<Protocol>> protocols = new ArrayList<>();
+        final List<ProtocolRef> protocolRefs = new ArrayList<>();
+
+        for (Assay assay : assays) {
+            List<ProtocolUse> protocolUses = assay.getProtocolUses();
+            if (protocolUses != null) {
+                for (ProtocolUse protocolUse : protocolUses) {
+                    if (protocolUse != null) {
+                        protocolRefs.add(protocolUse.getProtocolRef());
                     }
                 }
             }
         }
+
+        if (protocolRefs.isEmpty()) {
+            return protocols;
+        }
+
+        final BatchedReferenceResolver.ResolvedReferences<uk.ac.ebi.subs.repository.model.Protocol> resolvedProtocols =
+                batchedReferenceResolver.resolve(assayDataValidationMessageEnvelope.getSubmissionId(), uk.ac.ebi.subs.repository.model.Protocol.class, protocolRefs);
+
+        for (ProtocolRef protocolRef : protocolRefs) {
+            uk.ac.ebi.subs.repository.model.Protocol protocol = resolvedProtocols.find(protocolRef);
+            if (canAddSubmittable(assayDataValidationMessageEnvelope, protocol) && !addedBefore(protocol, protocols)) {
+                Submittable<uk.ac.ebi.subs.data.submittable.Protocol> protocolSubmittable = new Submittable<>(protocol, protocol.getSubmission().getId());
+                protocols.add(protocolSubmittable);
+            }
+        }
+
+        return protocols;
     }
 
     private boolean addedBefore(Protocol protocol, List<Submittable<Protocol>> protocols) {
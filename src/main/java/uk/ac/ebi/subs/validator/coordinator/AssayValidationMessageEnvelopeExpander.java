@@ -1,45 +1,43 @@
 package uk.ac.ebi.subs.validator.coordinator;
 
 import org.springframework.stereotype.Service;
+import uk.ac.ebi.subs.data.component.SampleRef;
 import uk.ac.ebi.subs.data.component.SampleUse;
 import uk.ac.ebi.subs.data.component.StudyRef;
 import uk.ac.ebi.subs.data.submittable.Assay;
 
 import uk.ac.ebi.subs.repository.model.Sample;
 import uk.ac.ebi.subs.repository.model.Study;
-import uk.ac.ebi.subs.repository.repos.submittables.SampleRepository;
-import uk.ac.ebi.subs.repository.repos.submittables.StudyRepository;
 import uk.ac.ebi.subs.validator.data.AssayValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.model.Submittable;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 public class AssayValidationMessageEnvelopeExpander extends ValidationMessageEnvelopeExpander<AssayValidationMessageEnvelope> {
 
-    SampleRepository sampleRepository;
-    StudyRepository studyRepository;
+    BatchedReferenceResolver batchedReferenceResolver;
 
-    public AssayValidationMessageEnvelopeExpander(SampleRepository sampleRepository, StudyRepository studyRepository) {
-        this.sampleRepository = sampleRepository;
-        this.studyRepository = studyRepository;
+    public AssayValidationMessageEnvelopeExpander(BatchedReferenceResolver batchedReferenceResolver) {
+        this.batchedReferenceResolver = batchedReferenceResolver;
     }
 
     @Override
     public void expandEnvelope(AssayValidationMessageEnvelope validationMessageEnvelope) {
         final Assay entityToValidate = validationMessageEnvelope.getEntityToValidate();
 
-        final List<SampleUse> sampleUses = entityToValidate.getSampleUses();
+        final List<SampleRef> sampleRefs = entityToValidate.getSampleUses().stream()
+                .map(SampleUse::getSampleRef)
+                .collect(Collectors.toList());
 
-        for (SampleUse sampleUse : sampleUses) {
+        final BatchedReferenceResolver.ResolvedReferences<Sample> samples =
+                batchedReferenceResolver.resolve(validationMessageEnvelope.getSubmissionId(), Sample.class, sampleRefs);
 
-            Sample sample;
+        for (SampleRef sampleRef : sampleRefs) {
 
-            if (sampleUse.getSampleRef().getAccession() != null && !sampleUse.getSampleRef().getAccession().isEmpty()) {
-                sample = sampleRepository.findByAccession(sampleUse.getSampleRef().getAccession());
-            } else {
-                sample = sampleRepository.findFirstByTeamNameAndAliasOrderByCreatedDateDesc(sampleUse.getSampleRef().getTeam(), sampleUse.getSampleRef().getAlias());
-            }
+            Sample sample = samples.find(sampleRef);
 
             if (canAddSubmittable(validationMessageEnvelope,sample)) {
                 Submittable<uk.ac.ebi.subs.data.submittable.Sample> sampleSubmittable = new Submittable<>(sample, sample.getSubmission().getId());
@@ -50,13 +48,9 @@ public class AssayValidationMessageEnvelopeExpander extends ValidationMessageEnv
 
         final StudyRef studyRef = entityToValidate.getStudyRef();
 
-        Study study;
-
-        if (studyRef.getAccession() != null && !studyRef.getAccession().isEmpty()) {
-            study = studyRepository.findFirstByAccessionOrderByCreatedDateDesc(studyRef.getAccession());
-        } else {
-            study = studyRepository.findFirstByTeamNameAndAliasOrderByCreatedDateDesc(studyRef.getTeam(), studyRef.getAlias());
-        }
+        final Study study = batchedReferenceResolver
+                .resolve(validationMessageEnvelope.getSubmissionId(), Study.class, Collections.singletonList(studyRef))
+                .find(studyRef);
 
         if (canAddSubmittable(validationMessageEnvelope, study)) {
             Submittable<uk.ac.ebi.subs.data.submittable.Study> studySubmittable = new Submittable<>(study, study.getSubmission().getId());
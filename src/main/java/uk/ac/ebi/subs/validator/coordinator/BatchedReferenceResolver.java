@@ -0,0 +1,214 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.subs.data.component.AbstractSubsRef;
+import uk.ac.ebi.subs.repository.model.StoredSubmittable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves all the references of an envelope with a handful of {@code $in} queries instead of
+ * one query per reference.
+ *
+ * References with an accession are looked up by accession, the others by team name and alias.
+ * When more than one document matches the same key the most recently created one is kept,
+ * the same way as the {@code findFirst...OrderByCreatedDateDesc} repository methods do.
+ *
+ * While a revalidation burst of a submission is running (see {@link #openIndex(String)}) the lookups made
+ * for that submission go through a {@link SubmissionReferenceIndex}, so each referenced item is read from
+ * Mongo once per burst rather than once per referencing item.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchedReferenceResolver {
+
+    static final int MAX_VALUES_PER_QUERY = 500;
+
+    private static final Sort LATEST_FIRST = new Sort(Sort.Direction.DESC, "createdDate");
+
+    @NonNull
+    private MongoTemplate mongoTemplate;
+
+    @Value("${validator.coordinator.reference-index.max-entries:50000}")
+    private int referenceIndexMaxEntries;
+
+    private final Map<String, SubmissionReferenceIndex> openIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Starts using a reference index for the given submission. Every call has to be paired with a call to
+     * {@link #closeIndex(String)}, the index is dropped when the last user closes it.
+     */
+    public void openIndex(String submissionId) {
+        openIndexes.compute(submissionId, (id, index) -> {
+            if (index == null) {
+                index = new SubmissionReferenceIndex(id, referenceIndexMaxEntries, mongoTemplate);
+            }
+            index.retain();
+            return index;
+        });
+    }
+
+    public void closeIndex(String submissionId) {
+        openIndexes.computeIfPresent(submissionId, (id, index) -> index.release() == 0 ? null : index);
+    }
+
+    /**
+     * Drops everything indexed so far for the given submission, to be called when its contents change.
+     */
+    public void invalidateIndex(String submissionId) {
+        openIndexes.computeIfPresent(submissionId, (id, index) -> {
+            index.clear();
+            return index;
+        });
+    }
+
+    /**
+     * Resolves the references made from an item of the given submission, using the reference index of the
+     * submission when one is open.
+     */
+    public <T extends StoredSubmittable> ResolvedReferences<T> resolve(String submissionId, Class<T> storedSubmittableClass,
+                                                                      Collection<? extends AbstractSubsRef> refs) {
+        SubmissionReferenceIndex index = (submissionId == null) ? null : openIndexes.get(submissionId);
+
+        if (index == null) {
+            return resolve(storedSubmittableClass, refs);
+        }
+        return index.resolve(storedSubmittableClass, refs, this);
+    }
+
+    public <T extends StoredSubmittable> ResolvedReferences<T> resolve(Class<T> storedSubmittableClass,
+                                                                      Collection<? extends AbstractSubsRef> refs) {
+        Set<String> accessions = new LinkedHashSet<>();
+        Map<String, Set<String>> aliasesByTeamName = new HashMap<>();
+
+        for (AbstractSubsRef ref : refs) {
+            if (ref == null) {
+                continue;
+            }
+            if (hasAccession(ref)) {
+                accessions.add(ref.getAccession());
+            } else {
+                aliasesByTeamName.computeIfAbsent(ref.getTeam(), teamName -> new LinkedHashSet<>()).add(ref.getAlias());
+            }
+        }
+
+        ResolvedReferences<T> resolvedReferences = new ResolvedReferences<>();
+
+        for (List<String> accessionChunk : chunks(accessions)) {
+            Query query = new Query(Criteria.where("accession").in(accessionChunk)).with(LATEST_FIRST);
+
+            for (T storedSubmittable : mongoTemplate.find(query, storedSubmittableClass)) {
+                resolvedReferences.byAccession.putIfAbsent(storedSubmittable.getAccession(), storedSubmittable);
+            }
+        }
+
+        for (Map.Entry<String, Set<String>> entry : aliasesByTeamName.entrySet()) {
+            String teamName = entry.getKey();
+
+            for (List<String> aliasChunk : chunks(entry.getValue())) {
+                Query query = new Query(Criteria.where("team.name").is(teamName).and("alias").in(aliasChunk))
+                        .with(LATEST_FIRST);
+
+                for (T storedSubmittable : mongoTemplate.find(query, storedSubmittableClass)) {
+                    resolvedReferences.byTeamNameAndAlias.putIfAbsent(
+                            teamNameAndAlias(teamName, storedSubmittable.getAlias()), storedSubmittable);
+                }
+            }
+        }
+
+        return resolvedReferences;
+    }
+
+    static boolean hasAccession(AbstractSubsRef ref) {
+        return ref.getAccession() != null && !ref.getAccession().isEmpty();
+    }
+
+    static List<String> teamNameAndAlias(String teamName, String alias) {
+        return Arrays.asList(teamName, alias);
+    }
+
+    private static List<List<String>> chunks(Collection<String> values) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(Math.min(values.size(), MAX_VALUES_PER_QUERY));
+
+        for (String value : values) {
+            chunk.add(value);
+            if (chunk.size() == MAX_VALUES_PER_QUERY) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(MAX_VALUES_PER_QUERY);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * The result of a batched resolution, keyed the same way as the references it was built from.
+     */
+    public static class ResolvedReferences<T extends StoredSubmittable> {
+
+        private final Map<String, T> byAccession = new HashMap<>();
+        private final Map<List<String>, T> byTeamNameAndAlias = new HashMap<>();
+
+        public T find(AbstractSubsRef ref) {
+            if (ref == null) {
+                return null;
+            }
+            if (hasAccession(ref)) {
+                return byAccession.get(ref.getAccession());
+            }
+            return byTeamNameAndAlias.get(teamNameAndAlias(ref.getTeam(), ref.getAlias()));
+        }
+
+        boolean contains(AbstractSubsRef ref) {
+            if (hasAccession(ref)) {
+                return byAccession.containsKey(ref.getAccession());
+            }
+            return byTeamNameAndAlias.containsKey(teamNameAndAlias(ref.getTeam(), ref.getAlias()));
+        }
+
+        /**
+         * Records what the reference resolved to, {@code null} included, so a known miss is not looked up again.
+         */
+        void put(AbstractSubsRef ref, T storedSubmittable) {
+            if (hasAccession(ref)) {
+                byAccession.put(ref.getAccession(), storedSubmittable);
+            } else {
+                byTeamNameAndAlias.put(teamNameAndAlias(ref.getTeam(), ref.getAlias()), storedSubmittable);
+            }
+        }
+
+        void putIfAbsent(T storedSubmittable) {
+            if (storedSubmittable.getAccession() != null && !storedSubmittable.getAccession().isEmpty()) {
+                byAccession.putIfAbsent(storedSubmittable.getAccession(), storedSubmittable);
+            }
+            if (storedSubmittable.getTeam() != null && storedSubmittable.getAlias() != null) {
+                byTeamNameAndAlias.putIfAbsent(
+                        teamNameAndAlias(storedSubmittable.getTeam().getName(), storedSubmittable.getAlias()),
+                        storedSubmittable);
+            }
+        }
+
+        int size() {
+            return byAccession.size() + byTeamNameAndAlias.size();
+        }
+    }
+}
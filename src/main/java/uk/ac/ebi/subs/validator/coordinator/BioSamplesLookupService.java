@@ -0,0 +1,221 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.validator.error.ArchivedSampleLookupException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Looks up archived samples in BioSamples by their accession, remembering the answers for a while.
+ *
+ * Found samples are remembered for {@code validator.biosamples.cache.ttl-ms}, and accessions BioSamples does not know
+ * for {@code validator.biosamples.cache.not-found-ttl-ms}. After a failed lookup the accession is not looked up again
+ * for a backoff period, which doubles with every consecutive failure, so an unavailable BioSamples is not called for
+ * every message referring to it; until then, looking the accession up fails again, instead of reporting the sample as
+ * missing. Concurrent lookups of the same accession wait for a single call to BioSamples.
+ *
+ * With a {@link PersistentSampleStore}, found samples are also kept on disk, and samples stored less than
+ * {@code validator.biosamples.cache.ttl-ms} ago are taken from there, so a restarted service does not fetch them all
+ * again; a stored sample is not trusted for longer than a remembered one. A sample stored earlier is still used while
+ * BioSamples cannot be asked.
+ */
+@Component
+@Slf4j
+public class BioSamplesLookupService implements PublicMetrics {
+
+    static final String METRIC_PREFIX = "cache.biosamples.";
+
+    private final RestTemplate restTemplate;
+    private final String sampleStorageURI;
+    private final PersistentSampleStore persistentSampleStore;
+
+    private final long ttlMillis;
+    private final long notFoundTtlMillis;
+    private final long errorBackoffMillis;
+    private final long maximumErrorBackoffMillis;
+
+    private final Cache<String, CompletableFuture<Lookup>> lookupsByAccession;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong notFound = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong backedOff = new AtomicLong();
+
+    public BioSamplesLookupService(
+            RestTemplate restTemplate,
+            @Value("${biosamples.client.uri}") String sampleStorageURI,
+            @Value("${validator.biosamples.cache.max-entries:10000}") long maxEntries,
+            @Value("${validator.biosamples.cache.ttl-ms:600000}") long ttlMillis,
+            @Value("${validator.biosamples.cache.not-found-ttl-ms:60000}") long notFoundTtlMillis,
+            @Value("${validator.biosamples.cache.error-backoff-ms:5000}") long errorBackoffMillis,
+            @Value("${validator.biosamples.cache.max-error-backoff-ms:300000}") long maximumErrorBackoffMillis,
+            Optional<PersistentSampleStore> persistentSampleStore) {
+        this.restTemplate = restTemplate;
+        this.sampleStorageURI = sampleStorageURI;
+        this.persistentSampleStore = persistentSampleStore.orElse(null);
+        this.ttlMillis = ttlMillis;
+        this.notFoundTtlMillis = notFoundTtlMillis;
+        this.errorBackoffMillis = errorBackoffMillis;
+        this.maximumErrorBackoffMillis = maximumErrorBackoffMillis;
+        this.lookupsByAccession = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Math.max(ttlMillis, Math.max(notFoundTtlMillis, maximumErrorBackoffMillis)), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the JSON document of the sample with the given accession, or empty if BioSamples does not have it
+     * @throws ArchivedSampleLookupException if BioSamples could not be asked, and no document of the sample is stored
+     */
+    public Optional<String> findSampleDocument(String accession) {
+        CompletableFuture<Lookup> fetching = new CompletableFuture<>();
+        Lookup[] previousLookup = {null};
+
+        CompletableFuture<Lookup> lookup = lookupsByAccession.asMap().compute(accession, (key, previous) -> {
+            boolean completed = previous != null && previous.isDone() && !previous.isCompletedExceptionally();
+            if (previous != null && (!previous.isDone() || completed && !previous.join().isExpired())) {
+                return previous;
+            }
+            previousLookup[0] = completed ? previous.join() : null;
+            return fetching;
+        });
+
+        if (lookup == fetching) {
+            try {
+                fetching.complete(fetch(accession, previousLookup[0]));
+            } catch (RuntimeException e) {
+                lookupsByAccession.asMap().remove(accession, fetching);
+                fetching.completeExceptionally(e);
+                throw e;
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+
+        Lookup result = lookup.join();
+        if (lookup != fetching && result.status == LookupStatus.FAILED) {
+            backedOff.incrementAndGet();
+            log.debug("Not looking up sample {} in BioSamples again for now", accession);
+        }
+        if (result.status == LookupStatus.FAILED && result.sampleDocument == null) {
+            throw new ArchivedSampleLookupException("Could not look up samples in BioSamples",
+                    Collections.singletonList(accession), result.failure);
+        }
+        return Optional.ofNullable(result.sampleDocument);
+    }
+
+    public void invalidateAll() {
+        lookupsByAccession.invalidateAll();
+    }
+
+    private Lookup fetch(String accession, Lookup previous) {
+        misses.incrementAndGet();
+        long now = System.currentTimeMillis();
+
+        Optional<PersistentSampleStore.StoredSample> storedSample = persistentSampleStore == null
+                ? Optional.empty()
+                : persistentSampleStore.get(accession);
+        if (storedSample.isPresent() && now - storedSample.get().getStoredAt() < ttlMillis) {
+            return new Lookup(LookupStatus.FOUND, storedSample.get().getDocument(),
+                    storedSample.get().getStoredAt() + ttlMillis, 0, null);
+        }
+
+        try {
+            final ResponseEntity<String> response =
+                    restTemplate.getForEntity(sampleStorageURI + "samples/" + accession, String.class);
+            if (response.getStatusCode() == HttpStatus.OK) {
+                if (persistentSampleStore != null && response.getBody() != null) {
+                    persistentSampleStore.put(accession, response.getBody());
+                }
+                return new Lookup(LookupStatus.FOUND, response.getBody(), now + ttlMillis, 0, null);
+            }
+            return notFound(accession, now);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return notFound(accession, now);
+            }
+            return failed(accession, previous, storedSample, now, e);
+        } catch (RestClientException e) {
+            return failed(accession, previous, storedSample, now, e);
+        }
+    }
+
+    private Lookup notFound(String accession, long now) {
+        notFound.incrementAndGet();
+        if (persistentSampleStore != null) {
+            persistentSampleStore.remove(accession);
+        }
+        return new Lookup(LookupStatus.NOT_FOUND, null, now + notFoundTtlMillis, 0, null);
+    }
+
+    private Lookup failed(String accession, Lookup previous, Optional<PersistentSampleStore.StoredSample> storedSample,
+                          long now, RestClientException e) {
+        failures.incrementAndGet();
+
+        int consecutiveFailures = previous != null && previous.status == LookupStatus.FAILED ? previous.consecutiveFailures + 1 : 1;
+        long backoff = Math.min(errorBackoffMillis << Math.min(consecutiveFailures - 1, 30), maximumErrorBackoffMillis);
+
+        log.error("Getting sample {} from Sample storage repository resulted with an error, not retrying for {} ms: {}",
+                accession, backoff, e.getMessage());
+        return new Lookup(LookupStatus.FAILED, storedSample.map(PersistentSampleStore.StoredSample::getDocument).orElse(null),
+                now + backoff, consecutiveFailures, e);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+                new Metric<>(METRIC_PREFIX + "hits", hits.get()),
+                new Metric<>(METRIC_PREFIX + "misses", misses.get()),
+                new Metric<>(METRIC_PREFIX + "not-found", notFound.get()),
+                new Metric<>(METRIC_PREFIX + "failures", failures.get()),
+                new Metric<>(METRIC_PREFIX + "backed-off", backedOff.get()),
+                new Metric<>(METRIC_PREFIX + "evictions", lookupsByAccession.stats().evictionCount()),
+                new Metric<>(METRIC_PREFIX + "size", lookupsByAccession.estimatedSize())
+        );
+    }
+
+    private enum LookupStatus {
+        FOUND, NOT_FOUND, FAILED
+    }
+
+    private static class Lookup {
+
+        private final LookupStatus status;
+        private final String sampleDocument;
+        private final long expiresAt;
+        private final int consecutiveFailures;
+        private final RestClientException failure;
+
+        Lookup(LookupStatus status, String sampleDocument, long expiresAt, int consecutiveFailures,
+               RestClientException failure) {
+            this.status = status;
+            this.sampleDocument = sampleDocument;
+            this.expiresAt = expiresAt;
+            this.consecutiveFailures = consecutiveFailures;
+            this.failure = failure;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
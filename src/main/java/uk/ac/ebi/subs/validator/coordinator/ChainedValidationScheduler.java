@@ -0,0 +1,174 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.data.component.AbstractSubsRef;
+import uk.ac.ebi.subs.data.submittable.Submittable;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces the chained validation triggers of a submission.
+ *
+ * The triggers arriving for a submission within the configured window are collected and dispatched together
+ * when the window closes, so an item referencing several of the triggering items is revalidated once per
+ * window instead of once per trigger. A window of 0 dispatches every trigger straight away.
+ *
+ * The trigger messages are acknowledged once the triggers are collected, so a dispatch that fails puts its
+ * triggers back for the submission and is attempted again after {@code validator.coordinator.chained-validation.retry-delay-ms},
+ * doubled with every further failure up to {@code validator.coordinator.chained-validation.max-retry-delay-ms}. After
+ * {@code validator.coordinator.chained-validation.max-attempts} failed attempts in a row the triggers are dropped.
+ * Dispatches run on {@code validator.coordinator.chained-validation.threads} threads.
+ */
+@Component
+@Slf4j
+public class ChainedValidationScheduler implements PublicMetrics {
+
+    static final String TRIGGERS_COUNTER = "counter.chained-validation.triggers";
+    static final String DISPATCHED_COUNTER = "counter.chained-validation.dispatched";
+    static final String FAILED_COUNTER = "counter.chained-validation.failed";
+    static final String DROPPED_COUNTER = "counter.chained-validation.dropped";
+
+    private final ChainedValidationService chainedValidationService;
+    private final long windowMillis;
+    private final long retryDelayMillis;
+    private final long maxRetryDelayMillis;
+    private final int maxAttempts;
+
+    private final Map<String, Set<AbstractSubsRef>> pendingRefsBySubmissionId = new ConcurrentHashMap<>();
+    private final Map<String, Integer> failedAttemptsBySubmissionId = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    private final AtomicLong triggers = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public ChainedValidationScheduler(ChainedValidationService chainedValidationService,
+                                      @Value("${validator.coordinator.chained-validation.window-ms:2000}") long windowMillis,
+                                      @Value("${validator.coordinator.chained-validation.retry-delay-ms:10000}") long retryDelayMillis,
+                                      @Value("${validator.coordinator.chained-validation.max-retry-delay-ms:300000}") long maxRetryDelayMillis,
+                                      @Value("${validator.coordinator.chained-validation.max-attempts:5}") int maxAttempts,
+                                      @Value("${validator.coordinator.chained-validation.threads:4}") int threads) {
+        this.chainedValidationService = chainedValidationService;
+        this.windowMillis = windowMillis;
+        this.retryDelayMillis = retryDelayMillis;
+        this.maxRetryDelayMillis = maxRetryDelayMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.executor = Executors.newScheduledThreadPool(threads);
+    }
+
+    public void scheduleChainedValidation(Submittable triggerSubmittable, String submissionId) {
+        triggers.incrementAndGet();
+        chainedValidationService.submittableChanged(triggerSubmittable, submissionId);
+
+        AbstractSubsRef ref = chainedValidationService.submittableToRef(triggerSubmittable);
+        if (ref == null) {
+            return;
+        }
+
+        if (windowMillis <= 0) {
+            dispatch(submissionId, Collections.singleton(ref));
+            return;
+        }
+
+        schedule(submissionId, Collections.singleton(ref), windowMillis);
+    }
+
+    /**
+     * Adds the refs to the pending ones of the submission, and schedules their dispatch if none is scheduled yet.
+     */
+    private void schedule(String submissionId, Set<AbstractSubsRef> refs, long delayMillis) {
+        boolean[] firstPending = {false};
+        pendingRefsBySubmissionId.compute(submissionId, (id, pendingRefs) -> {
+            if (pendingRefs == null) {
+                pendingRefs = new LinkedHashSet<>();
+                firstPending[0] = true;
+            }
+            pendingRefs.addAll(refs);
+            return pendingRefs;
+        });
+
+        if (firstPending[0]) {
+            try {
+                executor.schedule(() -> dispatchPending(submissionId), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                drop(submissionId, pendingRefsBySubmissionId.remove(submissionId), "the scheduler is shut down");
+            }
+        }
+    }
+
+    private void dispatchPending(String submissionId) {
+        Set<AbstractSubsRef> refs = pendingRefsBySubmissionId.remove(submissionId);
+
+        if (refs == null) {
+            return;
+        }
+        try {
+            dispatch(submissionId, refs);
+            failedAttemptsBySubmissionId.remove(submissionId);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            int attempts = failedAttemptsBySubmissionId.merge(submissionId, 1, Integer::sum);
+
+            if (attempts >= maxAttempts) {
+                failedAttemptsBySubmissionId.remove(submissionId);
+                log.error("Chained validation of submission {} has failed", submissionId, e);
+                drop(submissionId, refs, "it has failed " + attempts + " times");
+                return;
+            }
+
+            long delayMillis = Math.min(retryDelayMillis << Math.min(attempts - 1, 30), maxRetryDelayMillis);
+            log.error("Chained validation of submission {} has failed, retrying in {} ms", submissionId, delayMillis, e);
+            schedule(submissionId, refs, delayMillis);
+        }
+    }
+
+    private void drop(String submissionId, Set<AbstractSubsRef> refs, String reason) {
+        if (refs == null) {
+            return;
+        }
+        dropped.addAndGet(refs.size());
+        log.error("Dropping {} chained validation triggers of submission {}, as {}", refs.size(), submissionId, reason);
+    }
+
+    private void dispatch(String submissionId, Set<AbstractSubsRef> refs) {
+        int revalidated = chainedValidationService.triggerChainedValidation(refs, submissionId);
+
+        log.trace("Chained validation of submission {}: {} triggers, {} items revalidated", submissionId, refs.size(), revalidated);
+        dispatched.addAndGet(revalidated);
+    }
+
+    /**
+     * The pending dispatches still run; retries of the ones failing on the way are given up.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+                new Metric<>(TRIGGERS_COUNTER, triggers.get()),
+                new Metric<>(DISPATCHED_COUNTER, dispatched.get()),
+                new Metric<>(FAILED_COUNTER, failed.get()),
+                new Metric<>(DROPPED_COUNTER, dropped.get())
+        );
+    }
+}
@@ -2,6 +2,7 @@ package uk.ac.ebi.subs.validator.coordinator;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.subs.data.component.AbstractSubsRef;
 import uk.ac.ebi.subs.data.component.AnalysisRef;
@@ -29,26 +30,57 @@ import uk.ac.ebi.subs.data.submittable.Study;
 import uk.ac.ebi.subs.data.submittable.Submittable;
 import uk.ac.ebi.subs.repository.model.StoredSubmittable;
 import uk.ac.ebi.subs.repository.repos.submittables.SubmittableRepository;
-import uk.ac.ebi.subs.repository.repos.submittables.SubmittableRepositoryCustom;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ChainedValidationService {
 
     @NonNull
     private List<SubmittableRepository<?>> submissionContentsRepositories;
     @NonNull
     private SubmittableHandler submittableHandler;
-
+    @NonNull
+    private BatchedReferenceResolver batchedReferenceResolver;
+    @NonNull
+    private ReferencingItemFinder referencingItemFinder;
+    @NonNull
+    private ArchivedSamplePrefetcher archivedSamplePrefetcher;
+
+    /**
+     * Revalidates every item of the submission. The references of the items are resolved through a reference
+     * index of the submission that lives as long as the revalidation, so each referenced item is read once.
+     * The archived samples the submission refers to are all looked up before the first item is revalidated; if that
+     * fails, the revalidation goes ahead and looks them up on the way.
+     */
     public void triggerChainedValidation(String submissionId) {
-        submissionContentsRepositories.stream()
-                .flatMap(repo -> repo.streamBySubmissionId(submissionId))
-                .forEach(storedSubmittable -> revalidate(storedSubmittable, submissionId));
+        batchedReferenceResolver.invalidateIndex(submissionId);
+        batchedReferenceResolver.openIndex(submissionId);
+        try {
+            prefetchArchivedSamples(submissionId);
+            submittableHandler.handleSubmittables(
+                    submissionContentsRepositories.stream().flatMap(repo -> repo.streamBySubmissionId(submissionId)),
+                    submissionId);
+        } finally {
+            batchedReferenceResolver.closeIndex(submissionId);
+        }
     }
 
 
+    private void prefetchArchivedSamples(String submissionId) {
+        try {
+            archivedSamplePrefetcher.prefetch(submissionId);
+        } catch (RuntimeException e) {
+            log.warn("Could not prefetch the archived samples referenced by submission {}", submissionId, e);
+        }
+    }
+
     private void revalidate(StoredSubmittable storedSubmittable, String submissionId) {
         submittableHandler.handleSubmittable(
                 storedSubmittable,
@@ -61,17 +93,46 @@ public class ChainedValidationService {
     public void triggerChainedValidation(Submittable triggerSubmittable, String submissionId) {
         AbstractSubsRef ref = submittableToRef(triggerSubmittable);
 
+        submittableChanged(triggerSubmittable, submissionId);
+
         if (ref != null) {
-            submissionContentsRepositories.stream()
-                    .flatMap(repo -> {
-                        List<StoredSubmittable> itemsReferencingTriggerSubmittable = ((SubmittableRepositoryCustom) repo)
-                                .findBySubmissionIdAndReference(submissionId, ref);
-                        return itemsReferencingTriggerSubmittable.stream();
-                    })
+            itemsReferencing(ref, submissionId)
                     .forEach(storedSubmittable -> revalidate(storedSubmittable, submissionId));
         }
     }
 
+    /**
+     * Revalidates the items referencing any of the given refs, each item once however many of the refs it uses.
+     *
+     * @return the number of items revalidated
+     */
+    public int triggerChainedValidation(Collection<AbstractSubsRef> triggerRefs, String submissionId) {
+        Map<String, StoredSubmittable> itemsToRevalidate = new LinkedHashMap<>();
+
+        for (AbstractSubsRef ref : triggerRefs) {
+            itemsReferencing(ref, submissionId)
+                    .forEach(storedSubmittable -> itemsToRevalidate.putIfAbsent(storedSubmittable.getId(), storedSubmittable));
+        }
+
+        batchedReferenceResolver.openIndex(submissionId);
+        try {
+            return submittableHandler.handleSubmittables(itemsToRevalidate.values().stream(), submissionId);
+        } finally {
+            batchedReferenceResolver.closeIndex(submissionId);
+        }
+    }
+
+    /**
+     * To be called when an item of the submission has been added or changed.
+     */
+    public void submittableChanged(Submittable submittable, String submissionId) {
+        batchedReferenceResolver.invalidateIndex(submissionId);
+    }
+
+    private Stream<StoredSubmittable> itemsReferencing(AbstractSubsRef ref, String submissionId) {
+        return referencingItemFinder.findItemsReferencing(submissionId, ref).stream();
+    }
+
     protected AbstractSubsRef submittableToRef(Submittable submittable) {
         AbstractSubsRef ref = null;
 
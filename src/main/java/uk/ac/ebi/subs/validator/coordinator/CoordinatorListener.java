@@ -61,6 +61,8 @@ public class CoordinatorListener {
     private FileValidationRequestHandler fileValidationRequestHandler;
     @NonNull
     private ChainedValidationService chainedValidationService;
+    @NonNull
+    private ChainedValidationScheduler chainedValidationScheduler;
 
 
     /**
@@ -143,7 +145,7 @@ public class CoordinatorListener {
             logger.error("Error handling {} with id {}", clazz.getSimpleName().toLowerCase(), submittable.getId());
         } else {
             logger.trace("Triggering chained validation from {} {}", clazz.getSimpleName().toLowerCase(), submittable.getId());
-            chainedValidationService.triggerChainedValidation(submittable, envelope.getSubmissionId());
+            chainedValidationScheduler.scheduleChainedValidation(submittable, envelope.getSubmissionId());
         }
     }
 
@@ -169,7 +171,7 @@ public class CoordinatorListener {
             fileValidationRequestHandler.handleFilesWhenSubmittableChanged(envelope.getSubmissionId());
 
             logger.trace("Triggering chained validation from assayData {}", assayData.getId());
-            chainedValidationService.triggerChainedValidation(assayData, envelope.getSubmissionId());
+            chainedValidationScheduler.scheduleChainedValidation(assayData, envelope.getSubmissionId());
         }
     }
 
@@ -195,7 +197,7 @@ public class CoordinatorListener {
             fileValidationRequestHandler.handleFilesWhenSubmittableChanged(envelope.getSubmissionId());
 
             logger.trace("Triggering chained validation from analysis {}", analysis.getId());
-            chainedValidationService.triggerChainedValidation(analysis, envelope.getSubmissionId());
+            chainedValidationScheduler.scheduleChainedValidation(analysis, envelope.getSubmissionId());
         }
     }
 
@@ -2,6 +2,12 @@ package uk.ac.ebi.subs.validator.coordinator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.subs.data.fileupload.File;
 import uk.ac.ebi.subs.data.submittable.Submittable;
@@ -9,76 +15,177 @@ import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.ValidationResult;
 import uk.ac.ebi.subs.validator.data.structures.GlobalValidationStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
-import uk.ac.ebi.subs.validator.repository.ValidationResultRepository;
 import uk.ac.ebi.subs.validator.util.BlankValidationResultMaps;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static uk.ac.ebi.subs.validator.util.BlankValidationResultMaps.PENDING_AUTHORS_FIELD;
+import static uk.ac.ebi.subs.validator.util.BlankValidationResultMaps.RESULT_HASHES_FIELD;
+
 @Service
 public class CoordinatorValidationResultService {
     private static Logger logger = LoggerFactory.getLogger(CoordinatorValidationResultService.class);
 
-    private ValidationResultRepository repository;
+    private MongoTemplate mongoTemplate;
 
-    public CoordinatorValidationResultService(ValidationResultRepository repository) {
-        this.repository = repository;
+    public CoordinatorValidationResultService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
     }
 
     public Optional<ValidationResult> fetchValidationResultDocument(Submittable submittable, Collection<ValidationAuthor> authorsRequired) {
-        Optional<ValidationResult> optionalValidationResult = findAndUpdateValidationResult(submittable);
+        Update update = resetUpdate(BlankValidationResultMaps.generateDefaultMap(authorsRequired));
 
-        if (optionalValidationResult.isPresent()) {
-            ValidationResult validationResult = optionalValidationResult.get();
-            logger.trace("Validation result document has been persisted into MongoDB with ID: {}", validationResult.getUuid());
-            validationResult.setExpectedResults(BlankValidationResultMaps.generateDefaultMap(authorsRequired));
+        Optional<ValidationResult> optionalValidationResult = resetValidationResult(submittable.getId(), update);
 
-            repository.save(validationResult);
-        }
+        optionalValidationResult.ifPresent(validationResult ->
+                logger.trace("Validation result document has been persisted into MongoDB with ID: {}", validationResult.getUuid()));
 
         return optionalValidationResult;
     }
 
+    /**
+     * Resets the validation result of the file, keeping the results of the file content validation.
+     */
     public Optional<ValidationResult> fetchValidationResultDocument(File file) {
-        Optional<ValidationResult> optionalValidationResult = findAndUpdateValidationResult(file);
-        ValidationResult validationResult = null;
+        Update update = resetUpdate()
+                .set("expectedResults." + ValidationAuthor.FileReference, new ArrayList<SingleValidationResult>())
+                .set(PENDING_AUTHORS_FIELD, Collections.singletonList(ValidationAuthor.FileReference.name()))
+                .unset(RESULT_HASHES_FIELD + "." + ValidationAuthor.FileReference);
+
+        Optional<ValidationResult> optionalValidationResult = resetValidationResult(file.getId(), update);
+
+        optionalValidationResult.ifPresent(validationResult -> {
+            Map<ValidationAuthor, List<SingleValidationResult>> expectedResults = validationResult.getExpectedResults();
+
+            if (!expectedResults.keySet().equals(BlankValidationResultMaps.forFile().keySet())) {
+                List<SingleValidationResult> fileContentValidationResults = expectedResults.get(ValidationAuthor.FileContent);
 
-        if (optionalValidationResult.isPresent()) {
-            validationResult = optionalValidationResult.get();
+                Map<ValidationAuthor, List<SingleValidationResult>> expectedResultsForFile =
+                        BlankValidationResultMaps.forFile();
+                if (fileContentValidationResults != null) {
+                    expectedResultsForFile.put(ValidationAuthor.FileContent, fileContentValidationResults);
+                }
 
-            List<SingleValidationResult> fileContentValidationResults =
-                    validationResult.getExpectedResults().get(ValidationAuthor.FileContent);
+                Query sameVersion = new Query(Criteria.where("_id").is(validationResult.getUuid())
+                        .and("version").is(validationResult.getVersion()));
+                mongoTemplate.updateFirst(sameVersion, new Update().set("expectedResults", expectedResultsForFile), ValidationResult.class);
 
-            Map<ValidationAuthor, List<SingleValidationResult>> expectedResultsForFile =
-                    BlankValidationResultMaps.forFile();
-            if (fileContentValidationResults != null) {
-                expectedResultsForFile.put(ValidationAuthor.FileContent, fileContentValidationResults);
+                validationResult.setExpectedResults(expectedResultsForFile);
             }
 
-            validationResult.setExpectedResults(expectedResultsForFile);
+            List<SingleValidationResult> fileContentValidationResults = validationResult.getExpectedResults().get(ValidationAuthor.FileContent);
+            if (fileContentValidationResults == null || fileContentValidationResults.isEmpty()) {
+                Query fileContentStillPending = new Query(Criteria.where("_id").is(validationResult.getUuid())
+                        .and("version").is(validationResult.getVersion())
+                        .and("expectedResults." + ValidationAuthor.FileContent + ".0").exists(false));
+                mongoTemplate.updateFirst(fileContentStillPending,
+                        new Update().addToSet(PENDING_AUTHORS_FIELD, ValidationAuthor.FileContent.name()), ValidationResult.class);
+            }
+        });
+
+        return optionalValidationResult;
+    }
 
-            repository.save(validationResult);
+    /**
+     * Resets the validation results of several entities with one bulk write.
+     *
+     * @param authorsRequiredByEntityId the validation authors required by each entity, keyed by the entity ID
+     * @return the reset validation results, keyed by the entity ID; entities without a validation result are left out
+     */
+    public Map<String, ValidationResult> fetchValidationResultDocuments(Map<String, ? extends Collection<ValidationAuthor>> authorsRequiredByEntityId) {
+        Map<String, ValidationResult> validationResultsByEntityId = new HashMap<>();
+
+        if (authorsRequiredByEntityId.isEmpty()) {
+            return validationResultsByEntityId;
+        }
+
+        Query currentVersionsQuery = new Query(Criteria.where("entityUuid").in(authorsRequiredByEntityId.keySet()));
+        currentVersionsQuery.fields().include("version").include("entityUuid").include("submissionId");
+
+        List<ValidationResult> currentValidationResults = mongoTemplate.find(currentVersionsQuery, ValidationResult.class);
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ValidationResult.class);
+
+        for (ValidationResult validationResult : currentValidationResults) {
+            Map<ValidationAuthor, List<SingleValidationResult>> expectedResults =
+                    BlankValidationResultMaps.generateDefaultMap(authorsRequiredByEntityId.get(validationResult.getEntityUuid()));
+
+            Query sameVersion = new Query(Criteria.where("_id").is(validationResult.getUuid())
+                    .and("version").is(validationResult.getVersion()));
+            bulkOperations.updateOne(sameVersion, resetUpdate(expectedResults));
+
+            validationResult.setVersion(validationResult.getVersion() + 1);
+            validationResult.setValidationStatus(GlobalValidationStatus.Pending);
+            validationResult.setExpectedResults(expectedResults);
+            validationResultsByEntityId.put(validationResult.getEntityUuid(), validationResult);
+        }
+
+        if (!currentValidationResults.isEmpty()) {
+            int matched = bulkOperations.execute().getMatchedCount();
+
+            if (matched < currentValidationResults.size()) {
+                retryConcurrentlyChangedValidationResults(validationResultsByEntityId, authorsRequiredByEntityId);
+            }
+        }
+
+        authorsRequiredByEntityId.keySet().stream()
+                .filter(entityId -> !validationResultsByEntityId.containsKey(entityId))
+                .forEach(entityId -> logger.error(String.format("Could not find ValidationResult for submittable with ID: %s", entityId)));
+
+        return validationResultsByEntityId;
+    }
+
+    /**
+     * Some of the validation results have been changed between reading their versions and the bulk write, those are
+     * reset one by one.
+     */
+    private void retryConcurrentlyChangedValidationResults(Map<String, ValidationResult> validationResultsByEntityId,
+                                                           Map<String, ? extends Collection<ValidationAuthor>> authorsRequiredByEntityId) {
+        Query versionsQuery = new Query(Criteria.where("entityUuid").in(validationResultsByEntityId.keySet()));
+        versionsQuery.fields().include("version").include("entityUuid");
+
+        for (ValidationResult current : mongoTemplate.find(versionsQuery, ValidationResult.class)) {
+            ValidationResult expected = validationResultsByEntityId.get(current.getEntityUuid());
+
+            if (current.getVersion() != expected.getVersion()) {
+                Update update = resetUpdate(
+                        BlankValidationResultMaps.generateDefaultMap(authorsRequiredByEntityId.get(current.getEntityUuid())));
+
+                resetValidationResult(current.getEntityUuid(), update)
+                        .ifPresent(validationResult -> validationResultsByEntityId.put(current.getEntityUuid(), validationResult));
+            }
         }
-        return Optional.ofNullable(validationResult);
     }
 
-    private Optional<ValidationResult> findAndUpdateValidationResult(Submittable submittable) {
-        String submittableUuid = submittable.getId();
-        return getValidationResult(submittableUuid);
+    private Update resetUpdate() {
+        return new Update()
+                .inc("version", 1)
+                .set("validationStatus", GlobalValidationStatus.Pending);
     }
 
-    private Optional<ValidationResult> findAndUpdateValidationResult(File file) {
-        String fileId = file.getId();
-        return getValidationResult(fileId);
+    private Update resetUpdate(Map<ValidationAuthor, List<SingleValidationResult>> expectedResults) {
+        return resetUpdate()
+                .set("expectedResults", expectedResults)
+                .set(PENDING_AUTHORS_FIELD, BlankValidationResultMaps.pendingAuthors(expectedResults))
+                .unset(RESULT_HASHES_FIELD);
     }
 
-    private Optional<ValidationResult> getValidationResult(String entityId) {
-        ValidationResult validationResult = repository.findByEntityUuid(entityId);
+    /**
+     * Applies the reset to the validation result of the entity atomically and returns the updated document.
+     */
+    private Optional<ValidationResult> resetValidationResult(String entityId, Update update) {
+        Query query = new Query(Criteria.where("entityUuid").is(entityId));
+
+        ValidationResult validationResult = mongoTemplate.findAndModify(
+                query, update, FindAndModifyOptions.options().returnNew(true), ValidationResult.class);
+
         if (validationResult != null) {
-            validationResult.setValidationStatus(GlobalValidationStatus.Pending);
-            validationResult.setVersion(validationResult.getVersion() + 1);
             logger.trace("ValidationResult has been changed to status: {} and version: {}",
                     validationResult.getValidationStatus().name(), validationResult.getVersion());
         } else {
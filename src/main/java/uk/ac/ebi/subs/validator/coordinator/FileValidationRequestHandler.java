@@ -65,33 +65,15 @@ public class FileValidationRequestHandler {
     }
 
     void handleSubmittableForFileReferenceValidation(String submissionId) {
-        List<AssayData> assayDataList = assayDataRepository.findBySubmissionId(submissionId);
-        assayDataList.forEach(assayData -> {
 
-            // TODO: karoly add later a check if that entity has been archived previously (proposed: ArchivedSubmittable)
-            // if yes, then make sure that the list of file references has not been changed
+        // TODO: karoly add later a check if that entity has been archived previously (proposed: ArchivedSubmittable)
+        // if yes, then make sure that the list of file references has not been changed
 
-            submittableHandler.handleSubmittable(
-                    assayData,
-                    submissionId,
-                    (assayData.getDataType() == null) ? null : assayData.getDataType().getId(),
-                    (assayData.getChecklist() == null) ? null : assayData.getChecklist().getId()
-            );
-        });
+        List<AssayData> assayDataList = assayDataRepository.findBySubmissionId(submissionId);
+        submittableHandler.handleSubmittables(assayDataList.stream(), submissionId);
 
         List<Analysis> analysisList = analysisRepository.findBySubmissionId(submissionId);
-        analysisList.forEach(analysis -> {
-
-            // TODO: karoly add later a check if that entity has been archived previously (proposed: ArchivedSubmittable)
-            // if yes, then make sure that the list of file references has not been changed
-
-            submittableHandler.handleSubmittable(
-                    analysis,
-                    submissionId,
-                    (analysis.getDataType() == null) ? null : analysis.getDataType().getId(),
-                    (analysis.getChecklist() == null) ? null : analysis.getChecklist().getId()
-            );
-        });
+        submittableHandler.handleSubmittables(analysisList.stream(), submissionId);
     }
 
     void handleFilesWhenSubmittableChanged(String submissionId) {
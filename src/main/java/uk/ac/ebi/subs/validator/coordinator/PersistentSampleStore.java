@@ -0,0 +1,304 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the sample documents fetched from BioSamples in a memory-mapped file, keyed by accession, so they survive a
+ * restart of the service.
+ *
+ * Documents are appended to the file, and an index of the latest record of every accession is held in memory and
+ * rebuilt from the file on start. Every record carries a checksum, so a record cut short by a crash ends the file.
+ * When the file reaches {@code validator.biosamples.store.max-bytes} it is compacted into a new file holding only the
+ * latest records, dropping the oldest ones if they would still fill more than three quarters of it. A document too
+ * large to store removes the earlier record of its accession, so that record is not taken for the current one.
+ *
+ * Enabled by setting {@code validator.biosamples.store.path}.
+ */
+@Component
+@ConditionalOnProperty(name = "validator.biosamples.store.path")
+@Slf4j
+public class PersistentSampleStore implements PublicMetrics {
+
+    static final String METRIC_PREFIX = "store.biosamples.";
+
+    /**
+     * record length, checksum, time stored, key length, value length
+     */
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4;
+    private static final int REMOVED = -1;
+
+    private final Path file;
+    private final long maximumBytes;
+
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private final Map<String, Record> recordsByKey = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long compactions;
+
+    public PersistentSampleStore(@Value("${validator.biosamples.store.path}") String path,
+                                 @Value("${validator.biosamples.store.max-bytes:268435456}") long maximumBytes) throws IOException {
+        if (maximumBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The sample store cannot be larger than " + Integer.MAX_VALUE + " bytes");
+        }
+        this.file = Paths.get(path);
+        this.maximumBytes = maximumBytes;
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.buffer = map(file, Math.max(maximumBytes, Files.exists(file) ? Files.size(file) : 0));
+
+        boolean intact = load();
+        log.info("Loaded {} samples from {}", recordsByKey.size(), file);
+
+        if (!intact || writePosition > maximumBytes) {
+            compact();
+        }
+    }
+
+    public synchronized Optional<StoredSample> get(String key) {
+        Record record = recordsByKey.get(key);
+        if (record == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+
+        ByteBuffer recordBuffer = slice(record.position, record.length);
+        long storedAt = recordBuffer.getLong(8);
+        int keyLength = recordBuffer.getInt(16);
+        int valueLength = recordBuffer.getInt(20);
+
+        byte[] value = new byte[valueLength];
+        recordBuffer.position(HEADER_BYTES + keyLength);
+        recordBuffer.get(value);
+        return Optional.of(new StoredSample(new String(value, StandardCharsets.UTF_8), storedAt));
+    }
+
+    public synchronized void put(String key, String value) {
+        append(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public synchronized void remove(String key) {
+        if (recordsByKey.containsKey(key)) {
+            append(key, null);
+        }
+    }
+
+    public synchronized int size() {
+        return recordsByKey.size();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        buffer.force();
+    }
+
+    private void append(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_BYTES + keyBytes.length + (value == null ? 0 : value.length);
+
+        if (length > maximumBytes / 4) {
+            log.debug("Not storing sample {} of {} bytes", key, length);
+            if (value != null && recordsByKey.containsKey(key)) {
+                append(key, null);
+            }
+            recordsByKey.remove(key);
+            return;
+        }
+        if (writePosition + length > maximumBytes) {
+            compact();
+        }
+
+        ByteBuffer recordBuffer = ByteBuffer.allocate(length);
+        recordBuffer.putInt(length);
+        recordBuffer.putInt(0);
+        recordBuffer.putLong(System.currentTimeMillis());
+        recordBuffer.putInt(keyBytes.length);
+        recordBuffer.putInt(value == null ? REMOVED : value.length);
+        recordBuffer.put(keyBytes);
+        if (value != null) {
+            recordBuffer.put(value);
+        }
+        recordBuffer.putInt(4, checksum(recordBuffer.array(), 0, length));
+
+        buffer.position(writePosition);
+        buffer.put(recordBuffer.array());
+
+        if (value == null) {
+            recordsByKey.remove(key);
+        } else {
+            recordsByKey.put(key, new Record(writePosition, length));
+        }
+        writePosition += length;
+    }
+
+    /**
+     * @return false if the file ends with a damaged record
+     */
+    private boolean load() {
+        writePosition = 0;
+
+        while (writePosition + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(writePosition);
+            if (length == 0) {
+                return true;
+            }
+            if (length < HEADER_BYTES || writePosition + length > buffer.capacity()) {
+                return false;
+            }
+
+            ByteBuffer recordBuffer = slice(writePosition, length);
+            byte[] recordBytes = new byte[length];
+            recordBuffer.get(recordBytes);
+            int keyLength = recordBuffer.getInt(16);
+            int valueLength = recordBuffer.getInt(20);
+
+            if (recordBuffer.getInt(4) != checksum(recordBytes, 0, length)
+                    || keyLength < 0 || HEADER_BYTES + keyLength + Math.max(valueLength, 0) != length) {
+                return false;
+            }
+
+            String key = new String(recordBytes, HEADER_BYTES, keyLength, StandardCharsets.UTF_8);
+            if (valueLength == REMOVED) {
+                recordsByKey.remove(key);
+            } else {
+                recordsByKey.put(key, new Record(writePosition, length));
+            }
+            writePosition += length;
+        }
+        return true;
+    }
+
+    /**
+     * Rewrites the latest records into a new file and replaces the current file with it. Records are appended in the
+     * order they were stored, so the records kept are the ones furthest into the file.
+     */
+    private void compact() {
+        List<Map.Entry<String, Record>> records = new ArrayList<>(recordsByKey.entrySet());
+        records.sort(Comparator.comparingInt((Map.Entry<String, Record> entry) -> entry.getValue().position).reversed());
+
+        long keptBytes = 0;
+        int kept = 0;
+        while (kept < records.size() && keptBytes + records.get(kept).getValue().length <= maximumBytes * 3 / 4) {
+            keptBytes += records.get(kept).getValue().length;
+            kept++;
+        }
+        List<Map.Entry<String, Record>> keptRecords = new ArrayList<>(records.subList(0, kept));
+        Collections.reverse(keptRecords);
+
+        Path compactedFile = file.resolveSibling(file.getFileName() + ".compacting");
+        try {
+            Files.deleteIfExists(compactedFile);
+            MappedByteBuffer compactedBuffer = map(compactedFile, maximumBytes);
+
+            Map<String, Record> compactedRecords = new HashMap<>();
+            int position = 0;
+            for (Map.Entry<String, Record> entry : keptRecords) {
+                Record record = entry.getValue();
+                compactedBuffer.position(position);
+                compactedBuffer.put(slice(record.position, record.length));
+                compactedRecords.put(entry.getKey(), new Record(position, record.length));
+                position += record.length;
+            }
+            compactedBuffer.force();
+
+            Files.move(compactedFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            log.info("Compacted {} from {} to {} bytes, keeping {} of {} samples",
+                    file, writePosition, position, compactedRecords.size(), recordsByKey.size());
+
+            buffer = compactedBuffer;
+            writePosition = position;
+            recordsByKey.clear();
+            recordsByKey.putAll(compactedRecords);
+            compactions++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Compacting the sample store " + file + " has failed", e);
+        }
+    }
+
+    private ByteBuffer slice(int position, int length) {
+        ByteBuffer recordBuffer = buffer.duplicate();
+        recordBuffer.position(position);
+        recordBuffer.limit(position + length);
+        return recordBuffer.slice();
+    }
+
+    /**
+     * The checksum covers the record after its length and checksum.
+     */
+    private static int checksum(byte[] record, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(record, offset + 8, length - 8);
+        return (int) crc.getValue();
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    @Override
+    public synchronized Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+                new Metric<>(METRIC_PREFIX + "hits", hits),
+                new Metric<>(METRIC_PREFIX + "misses", misses),
+                new Metric<>(METRIC_PREFIX + "size", recordsByKey.size()),
+                new Metric<>(METRIC_PREFIX + "bytes", writePosition),
+                new Metric<>(METRIC_PREFIX + "compactions", compactions)
+        );
+    }
+
+    @Data
+    public static class StoredSample {
+
+        private final String document;
+        private final long storedAt;
+    }
+
+    private static class Record {
+
+        private final int position;
+        private final int length;
+
+        Record(int position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
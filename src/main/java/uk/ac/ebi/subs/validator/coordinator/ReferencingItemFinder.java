@@ -0,0 +1,116 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.data.component.AbstractSubsRef;
+import uk.ac.ebi.subs.data.component.AnalysisRef;
+import uk.ac.ebi.subs.data.component.AssayDataRef;
+import uk.ac.ebi.subs.data.component.AssayRef;
+import uk.ac.ebi.subs.data.component.ProjectRef;
+import uk.ac.ebi.subs.data.component.ProtocolRef;
+import uk.ac.ebi.subs.data.component.SampleRef;
+import uk.ac.ebi.subs.data.component.StudyRef;
+import uk.ac.ebi.subs.data.submittable.Analysis;
+import uk.ac.ebi.subs.data.submittable.Assay;
+import uk.ac.ebi.subs.data.submittable.AssayData;
+import uk.ac.ebi.subs.data.submittable.Project;
+import uk.ac.ebi.subs.data.submittable.Protocol;
+import uk.ac.ebi.subs.data.submittable.Sample;
+import uk.ac.ebi.subs.data.submittable.Study;
+import uk.ac.ebi.subs.repository.model.StoredSubmittable;
+import uk.ac.ebi.subs.repository.repos.submittables.SubmittableRepository;
+import uk.ac.ebi.subs.repository.repos.submittables.SubmittableRepositoryCustom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the items of a submission referencing a given item, querying only the repositories whose items can hold
+ * a ref of its kind.
+ *
+ * The refs each submittable type can hold are the ones read through its ref accessors, e.g.
+ * {@link Assay#getStudyRef()} and {@link Assay#getSampleUses()}. Types missing from that table are queried for
+ * every kind of ref. The referencing items are always read from MongoDB, so items stored through any instance of
+ * the service are found.
+ *
+ * There is no reverse-reference index: the items are stored by other services, which would have to maintain it, so
+ * finding the referencing items still takes one query per compatible repository rather than a single keyed read.
+ */
+@Component
+@Slf4j
+public class ReferencingItemFinder {
+
+    /**
+     * The type compatibility table: the ref kinds the items of a submittable type can hold.
+     */
+    private static final Map<Class<?>, List<Class<? extends AbstractSubsRef>>> REF_CLASSES_BY_SUBMITTABLE_CLASS = new LinkedHashMap<>();
+
+    static {
+        REF_CLASSES_BY_SUBMITTABLE_CLASS.put(Analysis.class,
+                Arrays.asList(StudyRef.class, SampleRef.class, AssayRef.class, AssayDataRef.class, AnalysisRef.class));
+        REF_CLASSES_BY_SUBMITTABLE_CLASS.put(Assay.class, Arrays.asList(StudyRef.class, SampleRef.class, ProtocolRef.class));
+        REF_CLASSES_BY_SUBMITTABLE_CLASS.put(AssayData.class, Arrays.asList(AssayRef.class, SampleRef.class));
+        REF_CLASSES_BY_SUBMITTABLE_CLASS.put(Sample.class, Collections.singletonList(SampleRef.class));
+        REF_CLASSES_BY_SUBMITTABLE_CLASS.put(Study.class, Arrays.asList(ProjectRef.class, ProtocolRef.class));
+        REF_CLASSES_BY_SUBMITTABLE_CLASS.put(Project.class, Collections.emptyList());
+        REF_CLASSES_BY_SUBMITTABLE_CLASS.put(Protocol.class, Collections.emptyList());
+    }
+
+    private final Map<Class<? extends StoredSubmittable>, SubmittableRepository<? extends StoredSubmittable>> submittableRepositoryMap;
+
+    private final Map<Class<? extends AbstractSubsRef>, List<Class<? extends StoredSubmittable>>> referencingTypesByRefClass = new HashMap<>();
+    private final List<Class<? extends StoredSubmittable>> typesHoldingAnyRef = new ArrayList<>();
+
+    public ReferencingItemFinder(
+            Map<Class<? extends StoredSubmittable>, SubmittableRepository<? extends StoredSubmittable>> submittableRepositoryMap) {
+        this.submittableRepositoryMap = submittableRepositoryMap;
+
+        for (Class<? extends StoredSubmittable> storedSubmittableClass : submittableRepositoryMap.keySet()) {
+            List<Class<? extends AbstractSubsRef>> refClasses = refClassesHeldBy(storedSubmittableClass);
+
+            if (refClasses == null) {
+                typesHoldingAnyRef.add(storedSubmittableClass);
+                continue;
+            }
+            for (Class<? extends AbstractSubsRef> refClass : refClasses) {
+                referencingTypesByRefClass.computeIfAbsent(refClass, key -> new ArrayList<>()).add(storedSubmittableClass);
+            }
+        }
+        log.debug("Reference type compatibility: {}, any ref: {}", referencingTypesByRefClass, typesHoldingAnyRef);
+    }
+
+    public List<StoredSubmittable> findItemsReferencing(String submissionId, AbstractSubsRef ref) {
+        List<StoredSubmittable> items = new ArrayList<>();
+
+        for (Class<? extends StoredSubmittable> referencingType : referencingTypes(ref.getClass())) {
+            items.addAll(((SubmittableRepositoryCustom) submittableRepositoryMap.get(referencingType))
+                    .findBySubmissionIdAndReference(submissionId, ref));
+        }
+        return items;
+    }
+
+    List<Class<? extends StoredSubmittable>> referencingTypes(Class<? extends AbstractSubsRef> refClass) {
+        List<Class<? extends StoredSubmittable>> referencingTypes =
+                new ArrayList<>(referencingTypesByRefClass.getOrDefault(refClass, Collections.emptyList()));
+        referencingTypes.addAll(typesHoldingAnyRef);
+        return referencingTypes;
+    }
+
+    /**
+     * @return the ref kinds the items of the stored submittable type can hold, or null if the type is not in the
+     * type compatibility table
+     */
+    private static List<Class<? extends AbstractSubsRef>> refClassesHeldBy(Class<? extends StoredSubmittable> storedSubmittableClass) {
+        for (Map.Entry<Class<?>, List<Class<? extends AbstractSubsRef>>> entry : REF_CLASSES_BY_SUBMITTABLE_CLASS.entrySet()) {
+            if (entry.getKey().isAssignableFrom(storedSubmittableClass)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
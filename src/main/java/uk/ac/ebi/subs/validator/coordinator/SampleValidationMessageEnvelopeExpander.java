@@ -10,6 +10,8 @@ import uk.ac.ebi.subs.validator.data.SampleValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.model.Submittable;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -17,20 +19,36 @@ import java.util.List;
 public class SampleValidationMessageEnvelopeExpander extends ValidationMessageEnvelopeExpander<SampleValidationMessageEnvelope> {
 
     @NonNull
-    private SubmittableFinderService submittableFinderService;
+    private BatchedReferenceResolver batchedReferenceResolver;
 
+    @NonNull
+    private ArchivedSampleResolver archivedSampleResolver;
+
+    /**
+     * Samples not found in the submission are looked up in the archive all at the same time. The samples are added
+     * in the order of the relationships, whatever order their lookups finish in. If any archive lookup fails or
+     * misses its deadline, the {@link uk.ac.ebi.subs.validator.error.ArchivedSampleLookupException} fails the
+     * envelope, so it is validated again instead of the sample being reported as not found.
+     */
     @Override
     void expandEnvelope(SampleValidationMessageEnvelope validationMessageEnvelope) {
         final List<SampleRelationship> sampleRelationships = validationMessageEnvelope.getEntityToValidate().getSampleRelationships();
 
+        final BatchedReferenceResolver.ResolvedReferences<Sample> resolvedSamples =
+                batchedReferenceResolver.resolve(validationMessageEnvelope.getSubmissionId(), Sample.class, sampleRelationships);
+
+        final Map<String, Sample> archivedSamples = archivedSampleResolver.resolve(sampleRelationships.stream()
+                .filter(sampleRelationship -> resolvedSamples.find(sampleRelationship) == null)
+                .filter(BatchedReferenceResolver::hasAccession)
+                .map(SampleRelationship::getAccession)
+                .collect(Collectors.toList()));
+
         for (SampleRelationship sampleRelationship : sampleRelationships) {
 
-            Sample sample;
+            Sample sample = resolvedSamples.find(sampleRelationship);
 
-            if (sampleRelationship.getAccession() != null && !sampleRelationship.getAccession().isEmpty()) {
-                sample = submittableFinderService.findSampleByAccession(sampleRelationship.getAccession());
-            } else {
-                sample = submittableFinderService.findSampleByTeamNameAndAlias(sampleRelationship);
+            if (sample == null && BatchedReferenceResolver.hasAccession(sampleRelationship)) {
+                sample = archivedSamples.get(sampleRelationship.getAccession());
             }
 
             if (canAddSubmittable(validationMessageEnvelope, sample)) {
@@ -39,4 +57,4 @@ public class SampleValidationMessageEnvelopeExpander extends ValidationMessageEn
             }
         }
     }
-}
\ No newline at end of file
+}
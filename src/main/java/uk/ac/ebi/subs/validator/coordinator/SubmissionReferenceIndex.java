@@ -0,0 +1,155 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import uk.ac.ebi.subs.data.component.AbstractSubsRef;
+import uk.ac.ebi.subs.repository.model.StoredSubmittable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory index of the items a submission references, by accession and by team name and alias.
+ *
+ * The first lookup of a type scans the items of that type in the submission once; references that are not
+ * satisfied by the submission itself are resolved through the {@link BatchedReferenceResolver} and remembered,
+ * misses included. Items of the submission are taken as the latest version of themselves, as a submission
+ * is always created after the earlier versions of the items it updates.
+ *
+ * The number of entries is bounded, once the bound is reached further lookups are passed through
+ * without being remembered. Lookups from several threads share the index; none of them holds a lock while
+ * querying MongoDB.
+ */
+@Slf4j
+class SubmissionReferenceIndex {
+
+    private final String submissionId;
+    private final int maxEntries;
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<Class<?>, CompletableFuture<BatchedReferenceResolver.ResolvedReferences<?>>> referencesByType =
+            new ConcurrentHashMap<>();
+    private final AtomicInteger entries = new AtomicInteger();
+    private int users;
+
+    SubmissionReferenceIndex(String submissionId, int maxEntries, MongoTemplate mongoTemplate) {
+        this.submissionId = submissionId;
+        this.maxEntries = maxEntries;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    synchronized void retain() {
+        users++;
+    }
+
+    synchronized int release() {
+        return --users;
+    }
+
+    void clear() {
+        referencesByType.clear();
+        entries.set(0);
+    }
+
+    /**
+     * The queries run without holding any lock, so lookups of other types, or of references already indexed,
+     * do not wait for them. Only the indexed references of a type are guarded, and only while they are read or added.
+     */
+    <T extends StoredSubmittable> BatchedReferenceResolver.ResolvedReferences<T> resolve(
+            Class<T> storedSubmittableClass, Collection<? extends AbstractSubsRef> refs, BatchedReferenceResolver resolver) {
+        BatchedReferenceResolver.ResolvedReferences<T> indexed = indexedReferences(storedSubmittableClass);
+
+        List<AbstractSubsRef> notIndexed = new ArrayList<>();
+        synchronized (indexed) {
+            for (AbstractSubsRef ref : refs) {
+                if (ref != null && !indexed.contains(ref)) {
+                    notIndexed.add(ref);
+                }
+            }
+        }
+
+        BatchedReferenceResolver.ResolvedReferences<T> fetched = notIndexed.isEmpty()
+                ? new BatchedReferenceResolver.ResolvedReferences<>()
+                : resolver.resolve(storedSubmittableClass, notIndexed);
+        BatchedReferenceResolver.ResolvedReferences<T> resolved = new BatchedReferenceResolver.ResolvedReferences<>();
+
+        synchronized (indexed) {
+            for (AbstractSubsRef ref : refs) {
+                if (ref == null) {
+                    continue;
+                }
+                if (indexed.contains(ref)) {
+                    resolved.put(ref, indexed.find(ref));
+                } else {
+                    T storedSubmittable = fetched.find(ref);
+                    resolved.put(ref, storedSubmittable);
+
+                    if (entries.get() < maxEntries) {
+                        indexed.put(ref, storedSubmittable);
+                        entries.incrementAndGet();
+                    }
+                }
+            }
+        }
+
+        return resolved;
+    }
+
+    /**
+     * The items of a type are loaded by the first lookup of the type; lookups of the same type arriving meanwhile
+     * wait for that load instead of loading the type again. A failed load is forgotten, so the next lookup retries it.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends StoredSubmittable> BatchedReferenceResolver.ResolvedReferences<T> indexedReferences(Class<T> storedSubmittableClass) {
+        CompletableFuture<BatchedReferenceResolver.ResolvedReferences<?>> loading = new CompletableFuture<>();
+        CompletableFuture<BatchedReferenceResolver.ResolvedReferences<?>> indexed =
+                referencesByType.putIfAbsent(storedSubmittableClass, loading);
+
+        if (indexed == null) {
+            try {
+                loading.complete(load(storedSubmittableClass));
+            } catch (RuntimeException e) {
+                referencesByType.remove(storedSubmittableClass, loading);
+                loading.completeExceptionally(e);
+                throw e;
+            }
+            indexed = loading;
+        }
+
+        try {
+            return (BatchedReferenceResolver.ResolvedReferences<T>) indexed.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private <T extends StoredSubmittable> BatchedReferenceResolver.ResolvedReferences<T> load(Class<T> storedSubmittableClass) {
+        BatchedReferenceResolver.ResolvedReferences<T> indexed = new BatchedReferenceResolver.ResolvedReferences<>();
+
+        Query query = new Query(Criteria.where("submission.$id").is(submissionId));
+
+        for (T storedSubmittable : mongoTemplate.find(query, storedSubmittableClass)) {
+            if (entries.get() >= maxEntries) {
+                log.warn("Reference index of submission {} is full, {} items are no longer indexed",
+                        submissionId, storedSubmittableClass.getSimpleName());
+                break;
+            }
+            int sizeBefore = indexed.size();
+            indexed.putIfAbsent(storedSubmittable);
+            entries.addAndGet(indexed.size() - sizeBefore);
+        }
+
+        return indexed;
+    }
+}
@@ -4,17 +4,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.subs.data.component.SampleRelationship;
 import uk.ac.ebi.subs.repository.model.Sample;
 import uk.ac.ebi.subs.repository.repos.submittables.SampleRepository;
+import uk.ac.ebi.subs.validator.error.ArchivedSampleLookupException;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
 
 @Service
 @Slf4j
@@ -24,30 +22,36 @@ public class SubmittableFinderService {
     @NonNull
     private SampleRepository sampleRepository;
     @NonNull
-    private RestTemplate restTemplate;
+    private BioSamplesLookupService bioSamplesLookupService;
     @NonNull
     private ObjectMapper objectMapper;
 
-    @Value("${biosamples.client.uri}")
-    private String sampleStorageURI;
-
     Sample findSampleByAccession(String accessionID) {
         Sample sample = sampleRepository.findByAccession(accessionID);
 
         if (sample == null) {
+            sample = findArchivedSampleByAccession(accessionID);
+        }
+
+        return sample;
+    }
+
+    /**
+     * @return the sample with the given accession in the sample archive, or null if the archive does not have it
+     * @throws ArchivedSampleLookupException if the archive could not be asked, or its answer could not be read
+     */
+    Sample findArchivedSampleByAccession(String accessionID) {
+        Sample sample = null;
+
+        Optional<String> sampleDocument = bioSamplesLookupService.findSampleDocument(accessionID);
+        if (sampleDocument.isPresent()) {
             try {
-                final ResponseEntity<String> response =
-                        restTemplate.getForEntity(sampleStorageURI + "samples/" + accessionID, String.class);
-                if (response.getStatusCode() == HttpStatus.OK) {
-                    sample = objectMapper.readValue(response.getBody(), Sample.class);
-                }
+                sample = objectMapper.readValue(sampleDocument.get(), Sample.class);
             } catch (IOException e) {
                 log.error("Processing sample search from Sample storage repository has failed with sample ID: {}", accessionID);
-            } catch (RestClientException rce) {
-                log.error("Getting sample information from Sample storage repository resulted with an error.");
-                log.error("Error message: " + rce.getMessage());
+                throw new ArchivedSampleLookupException("Could not read samples from the archive",
+                        Collections.singletonList(accessionID), e);
             }
-
         }
 
         return sample;
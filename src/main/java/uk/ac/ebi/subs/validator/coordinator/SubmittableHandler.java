@@ -4,21 +4,35 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import uk.ac.ebi.subs.data.submittable.Project;
 import uk.ac.ebi.subs.data.submittable.Submittable;
 import uk.ac.ebi.subs.messaging.Exchanges;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
+import uk.ac.ebi.subs.repository.model.StoredSubmittable;
 import uk.ac.ebi.subs.validator.data.ValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.ValidationResult;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @RequiredArgsConstructor
@@ -29,7 +43,7 @@ public class SubmittableHandler {
     private RabbitMessagingTemplate rabbitMessagingTemplate;
 
     @NonNull
-    private DataTypeRepository dataTypeRepository;
+    private ReferenceDataCache referenceDataCache;
 
     @NonNull
     private CoordinatorValidationResultService coordinatorValidationResultService;
@@ -37,6 +51,11 @@ public class SubmittableHandler {
     @NonNull
     private ValidationEnvelopeFactory validationEnvelopeFactory;
 
+    @Value("${validator.coordinator.bulk-reset.batch-size:200}")
+    private int bulkResetBatchSize;
+
+    private final Map<Class<?>, Map<ValidationAuthor, String>> routingKeysBySubmittableClass = new ConcurrentHashMap<>();
+
     /**
      * @param submittable the submittable entity to handle
      * @param submissionId the ID of the submission the submittable belongs to
@@ -48,14 +67,7 @@ public class SubmittableHandler {
                                         String checklistId) {
         logger.trace("submittable {}; submissionId {}; dataTypeId {}",submittable,submissionId,dataTypeId);
 
-        Set<ValidationAuthor> validationAuthors = new HashSet<>();
-
-        if (dataTypeId != null) {
-            DataType dataType = dataTypeRepository.findOne(dataTypeId);
-            if (dataType != null) {
-                validationAuthors.addAll(validationAuthorsForDataType(dataType));
-            }
-        }
+        Set<ValidationAuthor> validationAuthors = validationAuthorsForDataTypeId(dataTypeId);
 
         Optional<ValidationResult> validationResult = coordinatorValidationResultService.fetchValidationResultDocument(submittable, validationAuthors);
 
@@ -66,14 +78,103 @@ public class SubmittableHandler {
         return validationResult.isPresent() && validationResult.get().getEntityUuid() != null;
     }
 
+    /**
+     * Handles many stored submittables of a submission, resetting their validation results in bulk
+     * in batches of the configured size.
+     *
+     * @return the number of submittables sent for validation
+     */
+    protected int handleSubmittables(Stream<? extends StoredSubmittable> storedSubmittables, String submissionId) {
+        List<StoredSubmittable> batch = new ArrayList<>(bulkResetBatchSize);
+        int handled = 0;
+
+        for (Iterator<? extends StoredSubmittable> iterator = storedSubmittables.iterator(); iterator.hasNext(); ) {
+            batch.add(iterator.next());
+
+            if (batch.size() == bulkResetBatchSize || !iterator.hasNext()) {
+                handled += handleBatch(batch, submissionId);
+                batch.clear();
+            }
+        }
+        return handled;
+    }
+
+    private int handleBatch(List<StoredSubmittable> batch, String submissionId) {
+        Map<String, Set<ValidationAuthor>> validationAuthorsByDataTypeId = new HashMap<>();
+        Map<String, Set<ValidationAuthor>> validationAuthorsByEntityId = new LinkedHashMap<>();
+
+        for (StoredSubmittable storedSubmittable : batch) {
+            validationAuthorsByEntityId.put(storedSubmittable.getId(),
+                    validationAuthorsByDataTypeId.computeIfAbsent(dataTypeId(storedSubmittable), this::validationAuthorsForDataTypeId));
+        }
+
+        Map<String, ValidationResult> validationResults =
+                coordinatorValidationResultService.fetchValidationResultDocuments(validationAuthorsByEntityId);
+
+        int handled = 0;
+        for (StoredSubmittable storedSubmittable : batch) {
+            ValidationResult validationResult = validationResults.get(storedSubmittable.getId());
+
+            if (validationResult == null) {
+                logger.error("Error handling {} with id {} in submission {}",
+                        storedSubmittable.getClass().getSimpleName().toLowerCase(), storedSubmittable.getId(), submissionId);
+                continue;
+            }
+
+            String dataTypeId = dataTypeId(storedSubmittable);
+            String checklistId = (storedSubmittable.getChecklist() == null) ? null : storedSubmittable.getChecklist().getId();
+
+            ValidationMessageEnvelope<?> messageEnvelope = validationEnvelopeFactory.buildValidationMessageEnvelope(storedSubmittable, validationResult, dataTypeId, checklistId);
+            triggerValidationEvents(storedSubmittable, validationAuthorsByEntityId.get(storedSubmittable.getId()), messageEnvelope);
+            handled++;
+        }
+        return handled;
+    }
+
+    private static String dataTypeId(StoredSubmittable storedSubmittable) {
+        return (storedSubmittable.getDataType() == null) ? null : storedSubmittable.getDataType().getId();
+    }
+
+    /**
+     * Sends the envelope to each of the validation authors. The envelope is serialized once and the same message
+     * body is published with the routing key of each author.
+     */
     private void triggerValidationEvents(Submittable submittable, Set<ValidationAuthor> authors, ValidationMessageEnvelope<?> envelope) {
-        String className = submittable.getClass().getSimpleName();
+        if (authors.isEmpty()) {
+            return;
+        }
+
+        RabbitTemplate rabbitTemplate = rabbitMessagingTemplate.getRabbitTemplate();
+        Message message = rabbitTemplate.getMessageConverter().toMessage(envelope, new MessageProperties());
+        Map<ValidationAuthor, String> routingKeys = routingKeysFor(submittable.getClass());
 
         for (ValidationAuthor author : authors) {
-            String routingKey = String.join(".", author.name(), className, "validation").toLowerCase();
+            String routingKey = routingKeys.get(author);
             logger.trace("Sending {} for validation with routing key {}", submittable, routingKey);
-            rabbitMessagingTemplate.convertAndSend(Exchanges.SUBMISSIONS, routingKey, envelope);
+            rabbitTemplate.send(Exchanges.SUBMISSIONS, routingKey, message);
+        }
+    }
+
+    private Map<ValidationAuthor, String> routingKeysFor(Class<?> submittableClass) {
+        return routingKeysBySubmittableClass.computeIfAbsent(submittableClass, clazz -> {
+            Map<ValidationAuthor, String> routingKeys = new EnumMap<>(ValidationAuthor.class);
+            for (ValidationAuthor author : ValidationAuthor.values()) {
+                routingKeys.put(author, String.join(".", author.name(), clazz.getSimpleName(), "validation").toLowerCase());
+            }
+            return routingKeys;
+        });
+    }
+
+    private Set<ValidationAuthor> validationAuthorsForDataTypeId(String dataTypeId) {
+        Set<ValidationAuthor> validationAuthors = new HashSet<>();
+
+        if (dataTypeId != null) {
+            DataType dataType = referenceDataCache.findDataType(dataTypeId);
+            if (dataType != null) {
+                validationAuthors.addAll(validationAuthorsForDataType(dataType));
+            }
         }
+        return validationAuthors;
     }
 
     private Set<ValidationAuthor> validationAuthorsForDataType(DataType dataType) {
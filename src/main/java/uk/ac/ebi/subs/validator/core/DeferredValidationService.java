@@ -0,0 +1,316 @@
+package uk.ac.ebi.subs.validator.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
+import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
+import uk.ac.ebi.subs.validator.error.PendingValidationResultsException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs validations that can depend on the results of other validation authors.
+ *
+ * A validation that finds those results still pending is parked, so the listener thread that received the request
+ * is free for other requests in the meantime. It is attempted again on a thread of this service as soon as one of
+ * the authors it waits for is reported to have stored its results, or else after a growing delay, in case the
+ * report is missed. A report arriving while the validation is being parked is caught by re-checking once the
+ * validation is registered. A validation still pending after the configured maximum wait is given up, and its failure
+ * results are handed to the result handler instead, so the entity does not stay pending.
+ *
+ * At most {@code validator.core.deferred-validation.max-parked} validations are parked at a time; once they are
+ * all taken, the calling thread waits for the results itself, like validations did before they were parked. A
+ * validation that fails on a thread of this service, and the ones still parked when the service is shut down, are
+ * requeued, so the broker delivers them again.
+ */
+@Component
+@Slf4j
+public class DeferredValidationService {
+
+    /**
+     * The number of slots the validation result UUIDs are spread over to remember their latest report.
+     */
+    private static final int UPDATE_STRIPES = 1024;
+
+    private final long maximumWaitMillis;
+    private final long retryDelayMillis;
+    private final long maximumRetryDelayMillis;
+
+    private final ScheduledExecutorService executor;
+    private final Semaphore parkingPermits;
+
+    private final Map<String, Set<DeferredValidation>> parkedByValidationResultUuid = new ConcurrentHashMap<>();
+    private final Set<DeferredValidation> deferred = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong updateSequence = new AtomicLong();
+    private final AtomicLongArray lastUpdateByStripe = new AtomicLongArray(UPDATE_STRIPES);
+
+    public DeferredValidationService(
+            @Value("${validator.core.deferred-validation.max-wait-ms:120000}") long maximumWaitMillis,
+            @Value("${validator.core.deferred-validation.retry-delay-ms:5000}") long retryDelayMillis,
+            @Value("${validator.core.deferred-validation.max-retry-delay-ms:30000}") long maximumRetryDelayMillis,
+            @Value("${validator.core.deferred-validation.threads:2}") int threads,
+            @Value("${validator.core.deferred-validation.max-parked:10000}") int maximumParked) {
+        this.maximumWaitMillis = maximumWaitMillis;
+        this.retryDelayMillis = retryDelayMillis;
+        this.maximumRetryDelayMillis = maximumRetryDelayMillis;
+        this.executor = Executors.newScheduledThreadPool(threads);
+        this.parkingPermits = new Semaphore(maximumParked);
+    }
+
+    /**
+     * Runs the validation and hands its results to the result handler, straight away or once the results
+     * the validation depends on have arrived.
+     *
+     * @param description    describes the validation in the logs
+     * @param failureResults builds the results handed to the result handler when the validation is given up
+     * @param requeue        hands the validation request back to the broker
+     */
+    public void validate(String description, Supplier<SingleValidationResultsEnvelope> validation,
+                         Consumer<SingleValidationResultsEnvelope> resultHandler,
+                         Function<String, SingleValidationResultsEnvelope> failureResults,
+                         Runnable requeue) {
+        attempt(new DeferredValidation(description, validation, resultHandler, failureResults, requeue,
+                System.currentTimeMillis() + maximumWaitMillis));
+    }
+
+    /**
+     * Resumes the parked validations waiting for the results of the given author in the given validation result.
+     */
+    public void validationResultUpdated(String validationResultUuid, ValidationAuthor validationAuthor) {
+        lastUpdateByStripe.set(stripe(validationResultUuid), updateSequence.incrementAndGet());
+
+        List<DeferredValidation> resumed = new ArrayList<>();
+
+        parkedByValidationResultUuid.computeIfPresent(validationResultUuid, (uuid, parked) -> {
+            for (Iterator<DeferredValidation> iterator = parked.iterator(); iterator.hasNext(); ) {
+                DeferredValidation deferredValidation = iterator.next();
+                if (deferredValidation.pendingAuthors.contains(validationAuthor)) {
+                    iterator.remove();
+                    resumed.add(deferredValidation);
+                }
+            }
+            return parked.isEmpty() ? null : parked;
+        });
+
+        for (DeferredValidation deferredValidation : resumed) {
+            log.debug("Resuming {}, {} results of {} have arrived", deferredValidation.description, validationAuthor, validationResultUuid);
+            ScheduledFuture<?> fallback = deferredValidation.fallback;
+            if (fallback != null) {
+                fallback.cancel(false);
+            }
+            executor.execute(() -> retry(deferredValidation));
+        }
+    }
+
+    private void attempt(DeferredValidation deferredValidation) {
+        while (true) {
+            SingleValidationResultsEnvelope results;
+
+            deferredValidation.attemptStartedAt = updateSequence.get();
+            try {
+                results = deferredValidation.validation.get();
+            } catch (PendingValidationResultsException e) {
+                if (System.currentTimeMillis() >= deferredValidation.deadline) {
+                    giveUp(deferredValidation, e);
+                } else if (deferredValidation.parkingPermit || waitForParkingPermit(deferredValidation)) {
+                    park(deferredValidation, e);
+                } else {
+                    continue;
+                }
+                return;
+            }
+            finish(deferredValidation);
+            deferredValidation.resultHandler.accept(results);
+            return;
+        }
+    }
+
+    /**
+     * Waits on the calling thread for a parked validation to finish, for up to the next retry delay.
+     *
+     * @return false if every validation that can be parked is still parked, and the validation should be attempted
+     * again on the calling thread
+     */
+    private boolean waitForParkingPermit(DeferredValidation deferredValidation) {
+        long delay = Math.min(deferredValidation.nextRetryDelay(), deferredValidation.deadline - System.currentTimeMillis());
+
+        try {
+            if (!parkingPermits.tryAcquire(Math.max(delay, 0), TimeUnit.MILLISECONDS)) {
+                log.debug("Too many validations are deferred, waiting for {} on the calling thread", deferredValidation.description);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to defer " + deferredValidation.description, e);
+        }
+        deferredValidation.parkingPermit = true;
+        deferred.add(deferredValidation);
+        return true;
+    }
+
+    private void giveUp(DeferredValidation deferredValidation, PendingValidationResultsException e) {
+        log.error("Gave up waiting for validation results for {}: {}", deferredValidation.description, e.getMessage());
+
+        finish(deferredValidation);
+        deferredValidation.resultHandler.accept(deferredValidation.failureResults.apply(
+                String.format("Gave up waiting for validation results: %s", e.getMessage())));
+    }
+
+    private void finish(DeferredValidation deferredValidation) {
+        if (deferredValidation.parkingPermit) {
+            deferredValidation.parkingPermit = false;
+            deferred.remove(deferredValidation);
+            parkingPermits.release();
+        }
+    }
+
+    private void park(DeferredValidation deferredValidation, PendingValidationResultsException e) {
+        long now = System.currentTimeMillis();
+
+        deferredValidation.validationResultUuid = e.getValidationResultUuid();
+        deferredValidation.pendingAuthors = e.getPendingAuthors();
+        parkedByValidationResultUuid.compute(deferredValidation.validationResultUuid, (uuid, parked) -> {
+            if (parked == null) {
+                parked = new HashSet<>();
+            }
+            parked.add(deferredValidation);
+            return parked;
+        });
+
+        if (updatedSince(deferredValidation.validationResultUuid, deferredValidation.attemptStartedAt) && unpark(deferredValidation)) {
+            log.debug("Retrying {}, results of {} have arrived while it was attempted", deferredValidation.description,
+                    deferredValidation.validationResultUuid);
+            executor.execute(() -> retry(deferredValidation));
+            return;
+        }
+
+        long delay = Math.min(deferredValidation.nextRetryDelay(), deferredValidation.deadline - now);
+        log.debug("Deferring {} for up to {} ms: {}", deferredValidation.description, delay, e.getMessage());
+        deferredValidation.fallback = executor.schedule(() -> {
+            if (unpark(deferredValidation)) {
+                retry(deferredValidation);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reports are only remembered per stripe of validation results, so this can also be true for a report about
+     * another validation result, which costs an extra attempt.
+     *
+     * @return true if results of the validation result may have been reported after the given point of the
+     * update sequence
+     */
+    private boolean updatedSince(String validationResultUuid, long sequence) {
+        return lastUpdateByStripe.get(stripe(validationResultUuid)) > sequence;
+    }
+
+    private static int stripe(String validationResultUuid) {
+        return Math.floorMod(validationResultUuid.hashCode(), UPDATE_STRIPES);
+    }
+
+    /**
+     * @return true if the validation was still parked, i.e. it has not been resumed already
+     */
+    private boolean unpark(DeferredValidation deferredValidation) {
+        boolean[] removed = {false};
+
+        parkedByValidationResultUuid.computeIfPresent(deferredValidation.validationResultUuid, (uuid, parked) -> {
+            removed[0] = parked.remove(deferredValidation);
+            return parked.isEmpty() ? null : parked;
+        });
+        return removed[0];
+    }
+
+    private void retry(DeferredValidation deferredValidation) {
+        try {
+            attempt(deferredValidation);
+        } catch (RuntimeException e) {
+            log.error("Deferred {} has failed, requeuing it", deferredValidation.description, e);
+            requeue(deferredValidation);
+        }
+    }
+
+    private void requeue(DeferredValidation deferredValidation) {
+        finish(deferredValidation);
+        try {
+            deferredValidation.requeue.run();
+        } catch (RuntimeException e) {
+            log.error("Requeuing deferred {} has failed, it is lost", deferredValidation.description, e);
+        }
+    }
+
+    /**
+     * Stops retrying the deferred validations and requeues the ones that have not finished yet. It is called by the
+     * listeners handing validations to this service, so the validations are requeued before the broker connection
+     * is closed.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<DeferredValidation> unfinished = new ArrayList<>(deferred);
+        if (!unfinished.isEmpty()) {
+            log.info("Requeuing {} deferred validations", unfinished.size());
+        }
+        unfinished.forEach(this::requeue);
+        parkedByValidationResultUuid.clear();
+    }
+
+    private class DeferredValidation {
+
+        private final String description;
+        private final Supplier<SingleValidationResultsEnvelope> validation;
+        private final Consumer<SingleValidationResultsEnvelope> resultHandler;
+        private final Function<String, SingleValidationResultsEnvelope> failureResults;
+        private final Runnable requeue;
+        private final long deadline;
+        private long retryDelay = retryDelayMillis;
+        private volatile boolean parkingPermit;
+        private volatile long attemptStartedAt;
+
+        private volatile String validationResultUuid;
+        private volatile Collection<ValidationAuthor> pendingAuthors;
+        private volatile ScheduledFuture<?> fallback;
+
+        DeferredValidation(String description, Supplier<SingleValidationResultsEnvelope> validation,
+                           Consumer<SingleValidationResultsEnvelope> resultHandler,
+                           Function<String, SingleValidationResultsEnvelope> failureResults,
+                           Runnable requeue, long deadline) {
+            this.description = description;
+            this.validation = validation;
+            this.resultHandler = resultHandler;
+            this.failureResults = failureResults;
+            this.requeue = requeue;
+            this.deadline = deadline;
+        }
+
+        long nextRetryDelay() {
+            long delay = retryDelay;
+            retryDelay = Math.min(retryDelay * 2, maximumRetryDelayMillis);
+            return delay;
+        }
+    }
+}
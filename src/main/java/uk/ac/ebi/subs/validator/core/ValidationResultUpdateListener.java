@@ -0,0 +1,29 @@
+package uk.ac.ebi.subs.validator.core;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.subs.validator.aggregator.messages.ValidationResultAuthorUpdatedMessage;
+
+/**
+ * Listens on the validation result author updates broadcast by the aggregator, and resumes the deferred
+ * validations of this instance that are waiting for them.
+ */
+@Service
+@RequiredArgsConstructor
+public class ValidationResultUpdateListener {
+    private static Logger logger = LoggerFactory.getLogger(ValidationResultUpdateListener.class);
+
+    @NonNull
+    private DeferredValidationService deferredValidationService;
+
+    @RabbitListener(queues = "#{coreValidationResultAuthorUpdateQueue.name}")
+    public void handleValidationResultAuthorUpdate(ValidationResultAuthorUpdatedMessage message) {
+        logger.trace("{} results of validation result {} have been stored.", message.getValidationAuthor(), message.getValidationResultUuid());
+
+        deferredValidationService.validationResultUpdated(message.getValidationResultUuid(), message.getValidationAuthor());
+    }
+}
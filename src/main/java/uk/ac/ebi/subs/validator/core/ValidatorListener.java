@@ -8,6 +8,7 @@ import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.subs.messaging.Exchanges;
+import uk.ac.ebi.subs.validator.core.handlers.AbstractHandler;
 import uk.ac.ebi.subs.validator.core.handlers.AnalysisHandler;
 import uk.ac.ebi.subs.validator.core.handlers.AssayDataHandler;
 import uk.ac.ebi.subs.validator.core.handlers.AssayHandler;
@@ -17,6 +18,7 @@ import uk.ac.ebi.subs.validator.core.handlers.SampleGroupHandler;
 import uk.ac.ebi.subs.validator.core.handlers.SampleHandler;
 import uk.ac.ebi.subs.validator.core.handlers.StudyHandler;
 import uk.ac.ebi.subs.validator.core.messaging.Queues;
+import uk.ac.ebi.subs.validator.core.validators.ValidatorHelper;
 import uk.ac.ebi.subs.validator.data.AnalysisValidationEnvelope;
 import uk.ac.ebi.subs.validator.data.AssayDataValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.AssayValidationMessageEnvelope;
@@ -27,8 +29,12 @@ import uk.ac.ebi.subs.validator.data.SampleValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
 import uk.ac.ebi.subs.validator.data.StudyValidationMessageEnvelope;
+import uk.ac.ebi.subs.validator.data.ValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
+import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
 
+import javax.annotation.PreDestroy;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -60,68 +66,97 @@ public class ValidatorListener {
     @NonNull
     private RabbitMessagingTemplate rabbitMessagingTemplate;
 
+    @NonNull
+    private DeferredValidationService deferredValidationService;
+
     @RabbitListener(queues = Queues.CORE_EGA_DAC_POLICY_VALIDATION)
     public void handleEgaDacPolicyValidationRequest(EgaDacPolicyValidationMessageEnvelope envelope) {
         logger.debug("EgaDacPolicy validation request received with ID: {}.", envelope.getEntityToValidate().getId());
 
-        SingleValidationResultsEnvelope singleValidationResultsEnvelope = egaDacPolicyHandler.handleValidationRequest(envelope);
-        sendResults(singleValidationResultsEnvelope);
+        validate(egaDacPolicyHandler, envelope, Queues.CORE_EGA_DAC_POLICY_VALIDATION);
     }
 
     @RabbitListener(queues = Queues.CORE_EGA_DATASET_VALIDATION)
     public void handleEgaDatasetPolicyValidationRequest(EgaDatasetValidationMessageEnvelope envelope) {
         logger.debug("EgaDataset validation request received with ID: {}.", envelope.getEntityToValidate().getId());
 
-        SingleValidationResultsEnvelope singleValidationResultsEnvelope = egaDatasetHandler.handleValidationRequest(envelope);
-        sendResults(singleValidationResultsEnvelope);
+        validate(egaDatasetHandler, envelope, Queues.CORE_EGA_DATASET_VALIDATION);
     }
 
     @RabbitListener(queues = Queues.CORE_SAMPLE_GROUP_VALIDATION)
     public void handleSampleGroupPolicyValidationRequest(SampleGroupValidationMessageEnvelope envelope) {
         logger.debug("SampleGroup validation request received with ID: {}.", envelope.getEntityToValidate().getId());
 
-        SingleValidationResultsEnvelope singleValidationResultsEnvelope = sampleGroupHandler.handleValidationRequest(envelope);
-        sendResults(singleValidationResultsEnvelope);
+        validate(sampleGroupHandler, envelope, Queues.CORE_SAMPLE_GROUP_VALIDATION);
     }
 
     @RabbitListener(queues = Queues.CORE_ASSAY_VALIDATION)
     public void handleAssayValidationRequest(AssayValidationMessageEnvelope envelope) {
         logger.debug("Assay validation request received with ID: {}.", envelope.getEntityToValidate().getId());
 
-        SingleValidationResultsEnvelope singleValidationResultsEnvelope = assayHandler.handleValidationRequest(envelope);
-        sendResults(singleValidationResultsEnvelope);
+        validate(assayHandler, envelope, Queues.CORE_ASSAY_VALIDATION);
     }
 
     @RabbitListener(queues = Queues.CORE_ASSAYDATA_VALIDATION)
     public void handleAssayDataValidationRequest(AssayDataValidationMessageEnvelope envelope) {
         logger.debug("AssayData validation request received with ID: {}.", envelope.getEntityToValidate().getId());
 
-        SingleValidationResultsEnvelope singleValidationResultsEnvelope = assayDataHandler.handleValidationRequest(envelope);
-        sendResults(singleValidationResultsEnvelope);
+        validate(assayDataHandler, envelope, Queues.CORE_ASSAYDATA_VALIDATION);
     }
 
     @RabbitListener(queues = Queues.CORE_SAMPLE_VALIDATION)
     public void handleSampleValidationRequest(SampleValidationMessageEnvelope envelope) {
         logger.debug("Sample validation request received with ID: {}.", envelope.getEntityToValidate().getId());
 
-        SingleValidationResultsEnvelope singleValidationResultsEnvelope = sampleHandler.handleValidationRequest(envelope);
-        sendResults(singleValidationResultsEnvelope);
+        validate(sampleHandler, envelope, Queues.CORE_SAMPLE_VALIDATION);
     }
 
     @RabbitListener(queues = Queues.CORE_STUDY_VALIDATION)
     public void handleStudyValidationRequest(StudyValidationMessageEnvelope envelope) {
         logger.debug("Study validation request received with ID: {}.", envelope.getEntityToValidate().getId());
 
-        SingleValidationResultsEnvelope singleValidationResultsEnvelope = studyHandler.handleValidationRequest(envelope);
-        sendResults(singleValidationResultsEnvelope);
+        validate(studyHandler, envelope, Queues.CORE_STUDY_VALIDATION);
     }
 
     @RabbitListener(queues = Queues.CORE_ANALYSIS_VALIDATION)
     public void handleStudyValidationRequest(AnalysisValidationEnvelope envelope) {
         logger.debug("Analysis validation request received with ID: {}.", envelope.getEntityToValidate().getId());
 
-        SingleValidationResultsEnvelope singleValidationResultsEnvelope = analysisHandler.handleValidationRequest(envelope);
-        sendResults(singleValidationResultsEnvelope);
+        validate(analysisHandler, envelope, Queues.CORE_ANALYSIS_VALIDATION);
+    }
+
+    /**
+     * Validations waiting for the results of other validation authors are deferred, so they don't hold the listener thread.
+     * A deferred validation that fails is sent back to the queue it came from.
+     */
+    private <T extends ValidationMessageEnvelope<?>> void validate(AbstractHandler<T> handler, T envelope, String queue) {
+        deferredValidationService.validate(
+                "validation of " + envelope.getEntityToValidate().getId(),
+                () -> handler.handleValidationRequest(envelope),
+                this::sendResults,
+                message -> errorResults(envelope, message),
+                () -> rabbitMessagingTemplate.convertAndSend("", queue, envelope));
+    }
+
+    private static SingleValidationResultsEnvelope errorResults(ValidationMessageEnvelope<?> envelope, String message) {
+        SingleValidationResult error = ValidatorHelper.singleValidationResult(
+                envelope.getEntityToValidate().getId(), ValidationAuthor.Core, SingleValidationResultStatus.Error);
+        error.setMessage(message);
+
+        return new SingleValidationResultsEnvelope(
+                Collections.singletonList(error),
+                envelope.getValidationResultVersion(),
+                envelope.getValidationResultUUID(),
+                ValidationAuthor.Core
+        );
+    }
+
+    /**
+     * The listener containers are stopped by now, so no validation is deferred any more.
+     */
+    @PreDestroy
+    public void requeueDeferredValidations() {
+        deferredValidationService.shutdown();
     }
 
     private void sendResults(SingleValidationResultsEnvelope envelope) {
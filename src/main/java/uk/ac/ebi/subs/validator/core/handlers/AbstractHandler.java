@@ -2,7 +2,6 @@ package uk.ac.ebi.subs.validator.core.handlers;
 
 import uk.ac.ebi.subs.data.submittable.BaseSubmittable;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ValidatorHelper;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
@@ -11,6 +10,7 @@ import uk.ac.ebi.subs.validator.data.ValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
 import uk.ac.ebi.subs.validator.error.EntityNotFoundException;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -21,10 +21,10 @@ import java.util.stream.Collectors;
 
 public abstract class AbstractHandler<T extends ValidationMessageEnvelope<?>> {
 
-    private DataTypeRepository dataTypeRepository;
+    private ReferenceDataCache referenceDataCache;
 
-    public AbstractHandler(DataTypeRepository dataTypeRepository) {
-        this.dataTypeRepository = dataTypeRepository;
+    public AbstractHandler(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
     }
 
     abstract List<SingleValidationResult> validateSubmittable(T envelope);
@@ -51,7 +51,7 @@ public abstract class AbstractHandler<T extends ValidationMessageEnvelope<?>> {
     }
 
     DataType getDataTypeFromRepository(String dataTypeId) {
-        return Optional.ofNullable(dataTypeRepository.findOne(dataTypeId))
+        return Optional.ofNullable(referenceDataCache.findDataType(dataTypeId))
                 .orElseThrow(() -> new EntityNotFoundException(
                         String.format("DataType entity with ID: %s is not found in the database.", dataTypeId)));
     }
@@ -12,12 +12,12 @@ import uk.ac.ebi.subs.data.submittable.Assay;
 import uk.ac.ebi.subs.data.submittable.AssayData;
 import uk.ac.ebi.subs.data.submittable.Study;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.AnalysisValidationEnvelope;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.model.Submittable;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.Collection;
 import java.util.List;
@@ -34,8 +34,8 @@ public class AnalysisHandler extends AbstractHandler<AnalysisValidationEnvelope>
     private AttributeValidator attributeValidator;
 
     public AnalysisHandler(@NonNull ReferenceValidator refValidator, @NonNull AttributeValidator attributeValidator,
-                           DataTypeRepository dataTypeRepository) {
-        super(dataTypeRepository);
+                           ReferenceDataCache referenceDataCache) {
+        super(referenceDataCache);
         this.refValidator = refValidator;
         this.attributeValidator = attributeValidator;
     }
@@ -5,11 +5,11 @@ import lombok.NonNull;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.subs.data.submittable.AssayData;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.AssayDataValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.List;
 
@@ -29,8 +29,8 @@ public class AssayDataHandler extends AbstractHandler<AssayDataValidationMessage
     private AttributeValidator attributeValidator;
 
     public AssayDataHandler(@NonNull ReferenceValidator refValidator, @NonNull AttributeValidator attributeValidator,
-                            DataTypeRepository dataTypeRepository) {
-        super(dataTypeRepository);
+                            ReferenceDataCache referenceDataCache) {
+        super(referenceDataCache);
         this.refValidator = refValidator;
         this.attributeValidator = attributeValidator;
     }
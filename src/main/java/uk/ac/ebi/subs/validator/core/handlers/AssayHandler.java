@@ -7,11 +7,11 @@ import uk.ac.ebi.subs.data.component.SampleRef;
 import uk.ac.ebi.subs.data.component.SampleUse;
 import uk.ac.ebi.subs.data.submittable.Assay;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.AssayValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -34,8 +34,8 @@ public class AssayHandler extends AbstractHandler<AssayValidationMessageEnvelope
     private AttributeValidator attributeValidator;
 
     public AssayHandler(@NonNull ReferenceValidator refValidator, @NonNull AttributeValidator attributeValidator,
-                        DataTypeRepository dataTypeRepository) {
-        super(dataTypeRepository);
+                        ReferenceDataCache referenceDataCache) {
+        super(referenceDataCache);
         this.refValidator = refValidator;
         this.attributeValidator = attributeValidator;
     }
@@ -3,10 +3,10 @@ package uk.ac.ebi.subs.validator.core.handlers;
 import lombok.Getter;
 import lombok.NonNull;
 import org.springframework.stereotype.Service;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.data.EgaDacPolicyValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.Collections;
 import java.util.List;
@@ -18,8 +18,8 @@ public class EgaDacPolicyHandler extends AbstractHandler<EgaDacPolicyValidationM
     @Getter
     private AttributeValidator attributeValidator;
 
-    public EgaDacPolicyHandler(@NonNull AttributeValidator attributeValidator, DataTypeRepository dataTypeRepository) {
-        super(dataTypeRepository);
+    public EgaDacPolicyHandler(@NonNull AttributeValidator attributeValidator, ReferenceDataCache referenceDataCache) {
+        super(referenceDataCache);
         this.attributeValidator = attributeValidator;
     }
 
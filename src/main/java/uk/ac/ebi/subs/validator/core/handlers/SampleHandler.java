@@ -5,11 +5,11 @@ import lombok.NonNull;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.subs.data.submittable.Sample;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.SampleValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.List;
 
@@ -28,8 +28,8 @@ public class SampleHandler extends AbstractHandler<SampleValidationMessageEnvelo
     private AttributeValidator attributeValidator;
 
     public SampleHandler(@NonNull ReferenceValidator referenceValidator, @NonNull AttributeValidator attributeValidator,
-                         DataTypeRepository dataTypeRepository) {
-        super(dataTypeRepository);
+                         ReferenceDataCache referenceDataCache) {
+        super(referenceDataCache);
         this.referenceValidator = referenceValidator;
         this.attributeValidator = attributeValidator;
     }
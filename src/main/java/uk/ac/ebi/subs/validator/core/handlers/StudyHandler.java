@@ -5,11 +5,11 @@ import lombok.NonNull;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.subs.data.submittable.Study;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.StudyValidationMessageEnvelope;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,8 +30,8 @@ public class StudyHandler extends AbstractHandler<StudyValidationMessageEnvelope
     private ReferenceValidator referenceValidator;
 
     public StudyHandler(@NonNull AttributeValidator attributeValidator, @NonNull ReferenceValidator referenceValidator,
-                        DataTypeRepository dataTypeRepository) {
-        super(dataTypeRepository);
+                        ReferenceDataCache referenceDataCache) {
+        super(referenceDataCache);
         this.attributeValidator = attributeValidator;
         this.referenceValidator = referenceValidator;
     }
@@ -1,5 +1,6 @@
 package uk.ac.ebi.subs.validator.core.messaging;
 
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
@@ -8,6 +9,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import uk.ac.ebi.subs.messaging.ExchangeConfig;
+import uk.ac.ebi.subs.validator.messaging.AggregatorRoutingKeys;
 
 import static uk.ac.ebi.subs.messaging.Queues.buildQueueWithDlx;
 
@@ -95,4 +97,18 @@ public class MessagingConfiguration {
         return BindingBuilder.bind(coreEgaDacPolicyValidationQueue).to(submissionExchange).with(RoutingKeys.EVENT_CORE_EGA_DAC_POLICY_VALIDATION);
     }
 
+    /**
+     * Every instance receives the validation result author updates on a queue of its own, to resume
+     * the validations it has deferred.
+     */
+    @Bean
+    public Queue coreValidationResultAuthorUpdateQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding coreValidationResultAuthorUpdateBinding(Queue coreValidationResultAuthorUpdateQueue, TopicExchange submissionExchange) {
+        return BindingBuilder.bind(coreValidationResultAuthorUpdateQueue).to(submissionExchange).with(AggregatorRoutingKeys.EVENT_VALIDATION_RESULT_AUTHOR_UPDATED);
+    }
+
 }
@@ -2,7 +2,6 @@ package uk.ac.ebi.subs.validator.core.validators;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.util.Pair;
@@ -17,8 +16,7 @@ import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.ValidationResult;
 import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
-import uk.ac.ebi.subs.validator.error.EntityNotFoundException;
-import uk.ac.ebi.subs.validator.repository.ValidationResultRepository;
+import uk.ac.ebi.subs.validator.error.PendingValidationResultsException;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -27,23 +25,25 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
+/**
+ * Checks the requirements the data type of an entity puts on the entities it references.
+ *
+ * When the referenced entity has not been validated yet by the validation authors the requirements depend on,
+ * a {@link PendingValidationResultsException} is thrown instead of waiting for the results, so the caller can
+ * defer the validation without holding on to its thread.
+ */
 @Component
 @RequiredArgsConstructor
 public class ReferenceRequirementsValidator {
 
-    @Setter
-    private long maximumTimeToWaitInMillis = 2 * 60 * 1000; //minutes requried * seconds in minute * millis in second
-
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @NonNull
     private Map<Class<? extends StoredSubmittable>, SubmittableRepository<? extends StoredSubmittable>> submittableRepositoryMap;
 
-    @NonNull
-    private ValidationResultRepository validationResultRepository;
-
     public List<SingleValidationResult> validate(Submittable entityUnderValidation, DataType dataType, AbstractSubsRef<?> ref, Submittable referencedEntity) {
 
         //bail out early if there are no ref requirements defined
@@ -114,15 +114,9 @@ public class ReferenceRequirementsValidator {
         if (!requiredValidationAuthors.isEmpty()) {
             ValidationResult validationResult = pair.getSecond();
 
-
-            long timeToGiveupWaitingForResults = System.currentTimeMillis() + this.maximumTimeToWaitInMillis;
-
-            while (waitingForResults(validationResult, requiredValidationAuthors, timeToGiveupWaitingForResults)) {
-                sleep();
-                final String validationResultUuid = validationResult.getUuid();
-                validationResult = Optional.ofNullable(validationResultRepository.findOne(validationResultUuid))
-                        .orElseThrow(() -> new EntityNotFoundException(
-                                String.format("Validation result entity with ID: %s is not found in the database.", validationResultUuid)));
+            Collection<ValidationAuthor> pendingAuthors = pendingAuthors(validationResult, requiredValidationAuthors);
+            if (!pendingAuthors.isEmpty()) {
+                throw new PendingValidationResultsException(validationResult.getUuid(), pendingAuthors);
             }
 
             for (ValidationAuthor author : requiredValidationAuthors) {
@@ -172,36 +166,19 @@ public class ReferenceRequirementsValidator {
 
     }
 
-    private void sleep() {
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private boolean waitingForResults(ValidationResult validationResult, Collection<ValidationAuthor> requiredValidationAuthors, long timeToGiveupWaitingForResults) {
+    private Collection<ValidationAuthor> pendingAuthors(ValidationResult validationResult, Collection<ValidationAuthor> requiredValidationAuthors) {
         Map<ValidationAuthor, List<SingleValidationResult>> results = validationResult.getExpectedResults();
 
-        boolean stillWaiting = false;
+        Set<ValidationAuthor> pendingAuthors = new TreeSet<>();
 
         for (ValidationAuthor author : requiredValidationAuthors) {
             List<SingleValidationResult> authorResults = results.get(author);
             if (authorResults == null || authorResults.isEmpty()) {
-                stillWaiting = true; //no results = still waiting
+                pendingAuthors.add(author); //no results = still waiting
             }
         }
 
-        long timeNow = System.currentTimeMillis();
-
-
-        if (stillWaiting && timeNow > timeToGiveupWaitingForResults) {
-            String msg = String.join(" ", "Gave up waiting for validation results", validationResult.toString(), requiredValidationAuthors.toString(), "" + timeToGiveupWaitingForResults, "" + timeNow);
-            throw new RuntimeException(msg);
-        }
-
-        return stillWaiting;
-
+        return pendingAuthors;
     }
 
     private Pair<DataType, ValidationResult> fetchDataTypeAndValidationResult(Submittable submittable) {
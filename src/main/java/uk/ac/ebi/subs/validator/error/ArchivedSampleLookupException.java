@@ -0,0 +1,21 @@
+package uk.ac.ebi.subs.validator.error;
+
+import java.util.Collection;
+
+/**
+ * Thrown when samples could not be looked up in the sample archive, because their lookups have failed, missed their
+ * deadline or could not be started, so it is not known whether the archive holds them.
+ */
+public class ArchivedSampleLookupException extends RuntimeException {
+
+    private final Collection<String> accessions;
+
+    public ArchivedSampleLookupException(String message, Collection<String> accessions, Throwable cause) {
+        super(String.format("%s: %s", message, accessions), cause);
+        this.accessions = accessions;
+    }
+
+    public Collection<String> getAccessions() {
+        return accessions;
+    }
+}
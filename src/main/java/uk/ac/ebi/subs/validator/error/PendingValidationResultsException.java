@@ -0,0 +1,29 @@
+package uk.ac.ebi.subs.validator.error;
+
+import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
+
+import java.util.Collection;
+
+/**
+ * Thrown when a validation depends on the results of other validation authors for a referenced entity
+ * and those results have not arrived yet.
+ */
+public class PendingValidationResultsException extends RuntimeException {
+
+    private final String validationResultUuid;
+    private final Collection<ValidationAuthor> pendingAuthors;
+
+    public PendingValidationResultsException(String validationResultUuid, Collection<ValidationAuthor> pendingAuthors) {
+        super(String.format("Waiting for the %s results of validation result %s", pendingAuthors, validationResultUuid));
+        this.validationResultUuid = validationResultUuid;
+        this.pendingAuthors = pendingAuthors;
+    }
+
+    public String getValidationResultUuid() {
+        return validationResultUuid;
+    }
+
+    public Collection<ValidationAuthor> getPendingAuthors() {
+        return pendingAuthors;
+    }
+}
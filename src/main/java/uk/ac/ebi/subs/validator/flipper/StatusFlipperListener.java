@@ -3,9 +3,25 @@ package uk.ac.ebi.subs.validator.flipper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.stereotype.Service;
+import uk.ac.ebi.subs.messaging.Exchanges;
 import uk.ac.ebi.subs.validator.data.AggregatorToFlipperEnvelope;
+import uk.ac.ebi.subs.validator.messaging.AggregatorRoutingKeys;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static uk.ac.ebi.subs.validator.messaging.StatusFlipperQueues.VALIDATION_RESULT_DOCUMENT_UPDATE;
 
@@ -14,24 +30,148 @@ import static uk.ac.ebi.subs.validator.messaging.StatusFlipperQueues.VALIDATION_
  * When processing a published event it will update the {@code ValidationResult} document's status
  * according to the availability of the validation results. If all the entity has been validated,
  * then the status will change to {@code Complete}, otherwise it will stay {@code Pending} as initially.
+ *
+ * Every validation author of an entity reports separately, so the updates of the same document are coalesced:
+ * the document is evaluated once, at its latest version, after the coalescing window of its first update.
+ * A window of 0 evaluates every update straight away.
+ *
+ * The messages of coalesced updates are acknowledged before their evaluation, so a failed evaluation is scheduled
+ * again after {@code validator.flipper.coalescing.retry-delay-ms}, until it succeeds. The updates not evaluated
+ * yet on shutdown are evaluated then, or published again if that fails, so the broker still holds them.
  */
 @Service
-public class StatusFlipperListener {
+public class StatusFlipperListener implements PublicMetrics {
     public static final Logger logger = LoggerFactory.getLogger(StatusFlipperListener.class);
 
+    static final String METRIC_PREFIX = "flipper.updates.";
+
     private StatusFlipperValidationResultService statusFlipperValidationResultService;
 
-    @Autowired
-    public StatusFlipperListener(StatusFlipperValidationResultService statusFlipperValidationResultService ) {
+    private RabbitMessagingTemplate rabbitMessagingTemplate;
+
+    private long coalescingWindowMillis;
+
+    private long retryDelayMillis;
+
+    private final Map<String, Integer> latestVersionByUuid = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService evaluationScheduler;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong evaluated = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public StatusFlipperListener(StatusFlipperValidationResultService statusFlipperValidationResultService,
+                                 RabbitMessagingTemplate rabbitMessagingTemplate,
+                                 @Value("${validator.flipper.coalescing.window-ms:250}") long coalescingWindowMillis,
+                                 @Value("${validator.flipper.coalescing.retry-delay-ms:5000}") long retryDelayMillis,
+                                 @Value("${validator.flipper.coalescing.threads:2}") int threads) {
         this.statusFlipperValidationResultService = statusFlipperValidationResultService;
+        this.rabbitMessagingTemplate = rabbitMessagingTemplate;
+        this.coalescingWindowMillis = coalescingWindowMillis;
+        this.retryDelayMillis = retryDelayMillis;
+        this.evaluationScheduler = Executors.newScheduledThreadPool(threads);
     }
 
     @RabbitListener(queues = VALIDATION_RESULT_DOCUMENT_UPDATE)
     public void processUpdate(AggregatorToFlipperEnvelope envelope) {
         logger.debug("Processing validation result document update with id {}.", envelope.getValidationResultUuid());
+        received.incrementAndGet();
+
+        String uuid = envelope.getValidationResultUuid();
+        int version = envelope.getValidationResultVersion();
+
+        if (coalescingWindowMillis <= 0) {
+            evaluate(uuid, version);
+            return;
+        }
+
+        if (register(uuid, version)) {
+            collapsed.incrementAndGet();
+        } else {
+            evaluationScheduler.schedule(() -> evaluatePending(uuid), coalescingWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return true if an update of the document is already waiting for its evaluation
+     */
+    private boolean register(String uuid, int version) {
+        boolean[] waiting = {true};
+        latestVersionByUuid.compute(uuid, (key, latestVersion) -> {
+            if (latestVersion == null) {
+                waiting[0] = false;
+                return version;
+            }
+            return Math.max(latestVersion, version);
+        });
+        return waiting[0];
+    }
+
+    private void evaluatePending(String uuid) {
+        Integer version = latestVersionByUuid.remove(uuid);
+
+        if (version == null) {
+            return;
+        }
+        try {
+            evaluate(uuid, version);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            logger.error("Could not update the status of validation result document with id {}, retrying in {} ms.",
+                    uuid, retryDelayMillis, e);
+
+            if (!register(uuid, version)) {
+                evaluationScheduler.schedule(() -> evaluatePending(uuid), retryDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void evaluate(String uuid, int version) {
+        evaluated.incrementAndGet();
 
-        if (!statusFlipperValidationResultService.updateValidationResult(envelope)) {
+        if (!statusFlipperValidationResultService.updateValidationResult(new AggregatorToFlipperEnvelope(uuid, version))) {
             logger.debug("Ignoring obsolete validation documents.");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Evaluates the updates still waiting for their coalescing window or for a retry, and publishes again the ones
+     * whose evaluation fails, so they are not lost on shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        evaluationScheduler.shutdownNow();
+        try {
+            evaluationScheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (String uuid : new ArrayList<>(latestVersionByUuid.keySet())) {
+            Integer version = latestVersionByUuid.remove(uuid);
+            if (version == null) {
+                continue;
+            }
+            try {
+                evaluate(uuid, version);
+            } catch (RuntimeException e) {
+                logger.error("Could not update the status of validation result document with id {}, publishing the update again.", uuid, e);
+                rabbitMessagingTemplate.convertAndSend(Exchanges.SUBMISSIONS, AggregatorRoutingKeys.EVENT_VALIDATION_RESULT_DOCUMENT_UPDATED,
+                        new AggregatorToFlipperEnvelope(uuid, version));
+            }
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+                new Metric<>(METRIC_PREFIX + "received", received.get()),
+                new Metric<>(METRIC_PREFIX + "evaluated", evaluated.get()),
+                new Metric<>(METRIC_PREFIX + "collapsed", collapsed.get()),
+                new Metric<>(METRIC_PREFIX + "failed", failed.get()),
+                new Metric<>(METRIC_PREFIX + "waiting", latestVersionByUuid.size())
+        );
+    }
+}
@@ -1,51 +1,86 @@
 package uk.ac.ebi.subs.validator.flipper;
 
+import com.mongodb.BasicDBObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.subs.validator.data.AggregatorToFlipperEnvelope;
-import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.ValidationResult;
 import uk.ac.ebi.subs.validator.data.structures.GlobalValidationStatus;
-import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
-import uk.ac.ebi.subs.validator.repository.ValidationResultRepository;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+
+import static uk.ac.ebi.subs.validator.util.BlankValidationResultMaps.PENDING_AUTHORS_FIELD;
 
 /**
  * This is a service to modify the {@code ValidationResult} status according to the entities validation result.
+ *
+ * The validation result is complete when none of its validation authors is pending, which is checked by the update
+ * itself. Documents written before the pending authors were recorded are checked by their expected results.
  */
 @Service
 public class StatusFlipperValidationResultService {
 
     public static final Logger logger = LoggerFactory.getLogger(StatusFlipperValidationResultService.class);
 
-    private ValidationResultRepository repository;
+    private MongoTemplate mongoTemplate;
 
-    public StatusFlipperValidationResultService(ValidationResultRepository repository) {
-        this.repository = repository;
+    public StatusFlipperValidationResultService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
     }
 
     public boolean updateValidationResult(AggregatorToFlipperEnvelope envelope) {
-        Optional<ValidationResult> optionalValidationResult = Optional.ofNullable(repository.findOne(envelope.getValidationResultUuid()));
+        String uuid = envelope.getValidationResultUuid();
+        int version = envelope.getValidationResultVersion();
+
+        if (completeIfNoAuthorPending(uuid, version)) {
+            return true;
+        }
 
-        return optionalValidationResult.map( validationResult -> {
-            if (validationResult.getVersion() == envelope.getValidationResultVersion()) {
-                flipStatusIfRequired(validationResult);
-                return true;
-            }
+        Query sameVersion = sameVersion(uuid, version);
+        sameVersion.fields().include(PENDING_AUTHORS_FIELD);
+        BasicDBObject current = mongoTemplate.findOne(sameVersion, BasicDBObject.class, mongoTemplate.getCollectionName(ValidationResult.class));
+
+        if (current == null) {
             return false;
-        }).orElse(false);
+        }
+
+        if (current.containsField(PENDING_AUTHORS_FIELD)) {
+            logger.debug("Validation for document with id {} is still in process.", uuid);
+        } else {
+            flipStatusIfRequired(mongoTemplate.findOne(sameVersion(uuid, version), ValidationResult.class));
+        }
+        return true;
+    }
+
+    /**
+     * Sets the status of the validation result to Complete, if it is still at the given version and none of its
+     * validation authors is pending.
+     *
+     * @return true if the validation result has been completed
+     */
+    public boolean completeIfNoAuthorPending(String validationResultUuid, int version) {
+        Query noAuthorPending = sameVersion(validationResultUuid, version);
+        noAuthorPending.addCriteria(Criteria.where(PENDING_AUTHORS_FIELD).size(0));
+
+        boolean completed = complete(noAuthorPending);
+        if (completed) {
+            logger.info("Validation result document with id {} is completed.", validationResultUuid);
+        }
+        return completed;
     }
 
     private void flipStatusIfRequired(ValidationResult validationResult) {
-        Map<ValidationAuthor, List<SingleValidationResult>> validationResults = validationResult.getExpectedResults();
+        if (validationResult == null) {
+            return;
+        }
 
-        if (validationResults.values().stream().noneMatch(List::isEmpty)) {
-            validationResult.setValidationStatus(GlobalValidationStatus.Complete);
-            repository.save(validationResult);
+        if (validationResult.getExpectedResults().values().stream().noneMatch(List::isEmpty)) {
+            complete(sameVersion(validationResult.getUuid(), validationResult.getVersion()));
 
             logger.info("Validation result document with id {} is completed.", validationResult.getUuid());
         } else {
@@ -53,4 +88,12 @@ public class StatusFlipperValidationResultService {
         }
     }
 
+    private boolean complete(Query query) {
+        return mongoTemplate.updateFirst(query, Update.update("validationStatus", GlobalValidationStatus.Complete), ValidationResult.class).getN() > 0;
+    }
+
+    private static Query sameVersion(String validationResultUuid, int version) {
+        return new Query(Criteria.where("_id").is(validationResultUuid).and("version").is(version));
+    }
+
 }
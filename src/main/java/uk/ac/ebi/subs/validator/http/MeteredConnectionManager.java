@@ -0,0 +1,85 @@
+package uk.ac.ebi.subs.validator.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pools the HTTP connections to each target host and reports the state of the pools, including how long the
+ * requests have waited for a connection.
+ */
+public class MeteredConnectionManager extends PoolingHttpClientConnectionManager implements PublicMetrics {
+
+    static final String METRIC_PREFIX = "http.pool.";
+
+    private final AtomicLong leaseRequests = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maximumWaitNanos = new AtomicLong();
+
+    public MeteredConnectionManager(long keepAliveMillis) {
+        super(keepAliveMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest connectionRequest = super.requestConnection(route, state);
+
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return connectionRequest.get(timeout, timeUnit);
+                } catch (ConnectionPoolTimeoutException e) {
+                    leaseTimeouts.incrementAndGet();
+                    throw e;
+                } finally {
+                    recordWait(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return connectionRequest.cancel();
+            }
+        };
+    }
+
+    private void recordWait(long waitNanos) {
+        leaseRequests.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maximumWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        PoolStats totalStats = getTotalStats();
+        long requests = leaseRequests.get();
+
+        return Arrays.asList(
+                new Metric<>(METRIC_PREFIX + "leased", totalStats.getLeased()),
+                new Metric<>(METRIC_PREFIX + "pending", totalStats.getPending()),
+                new Metric<>(METRIC_PREFIX + "available", totalStats.getAvailable()),
+                new Metric<>(METRIC_PREFIX + "max", totalStats.getMax()),
+                new Metric<>(METRIC_PREFIX + "routes", getRoutes().size()),
+                new Metric<>(METRIC_PREFIX + "lease.requests", requests),
+                new Metric<>(METRIC_PREFIX + "lease.timeouts", leaseTimeouts.get()),
+                new Metric<>(METRIC_PREFIX + "wait.mean-ms",
+                        requests == 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get()) / 1000.0 / requests),
+                new Metric<>(METRIC_PREFIX + "wait.max-ms", TimeUnit.NANOSECONDS.toMillis(maximumWaitNanos.get()))
+        );
+    }
+}
@@ -0,0 +1,93 @@
+package uk.ac.ebi.subs.validator.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Refuses response bodies longer than the given number of bytes, by their declared length up front or else while
+ * they are read, so an unexpectedly large response cannot exhaust the memory of the service.
+ */
+public class ResponseSizeLimitInterceptor implements HttpResponseInterceptor {
+
+    private final long maximumResponseBytes;
+
+    public ResponseSizeLimitInterceptor(long maximumResponseBytes) {
+        this.maximumResponseBytes = maximumResponseBytes;
+    }
+
+    @Override
+    public void process(HttpResponse response, HttpContext context) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return;
+        }
+
+        if (entity.getContentLength() > maximumResponseBytes) {
+            throw new ResponseTooLargeException(entity.getContentLength(), maximumResponseBytes);
+        }
+
+        response.setEntity(new HttpEntityWrapper(entity) {
+            @Override
+            public InputStream getContent() throws IOException {
+                return new LimitedInputStream(super.getContent(), maximumResponseBytes);
+            }
+        });
+    }
+
+    public static class ResponseTooLargeException extends IOException {
+
+        ResponseTooLargeException(long responseBytes, long maximumResponseBytes) {
+            super(String.format("Response of %d bytes exceeds the limit of %d bytes", responseBytes, maximumResponseBytes));
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long maximumBytes;
+        private long bytesRead;
+
+        LimitedInputStream(InputStream in, long maximumBytes) {
+            super(in);
+            this.maximumBytes = maximumBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            bytesRead += n;
+            if (bytesRead > maximumBytes) {
+                throw new ResponseTooLargeException(bytesRead, maximumBytes);
+            }
+        }
+    }
+}
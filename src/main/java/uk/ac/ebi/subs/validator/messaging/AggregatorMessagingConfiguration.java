@@ -1,9 +1,15 @@
 package uk.ac.ebi.subs.validator.messaging;
 
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -23,6 +29,8 @@ import static uk.ac.ebi.subs.validator.messaging.ValidatorsCommonRoutingKeys.EVE
 @ComponentScan(basePackageClasses = ExchangeConfig.class)
 public class AggregatorMessagingConfiguration {
 
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "aggregatorBatchListenerContainerFactory";
+
     /**
      * Instantiate a {@link Queue} for publish validation results.
      *
@@ -61,4 +69,34 @@ public class AggregatorMessagingConfiguration {
         return BindingBuilder.bind(validationResultQueue).to(submissionExchange).with(EVENT_VALIDATION_ERROR);
     }
 
+    /**
+     * Create the listener container factory of the batching validation result consumer. Messages are acknowledged
+     * manually, once the batch they belong to has been stored, so the prefetch has to hold a whole batch.
+     * The container has a single consumer: the idle event it publishes after receiving nothing for the batch timeout
+     * is container-wide and published on one consumer thread only, so it can only store the partial batch of the
+     * consumer it is published on.
+     *
+     * @param configurer applies the Spring Boot RabbitMQ listener settings
+     * @param connectionFactory {@link ConnectionFactory} to the broker
+     * @param batchSize the maximum number of validation results stored together
+     * @param batchTimeoutMillis the longest time a validation result waits for its batch to fill up
+     * @return a {@link SimpleRabbitListenerContainerFactory} with manual acknowledgement
+     */
+    @Bean(name = BATCH_LISTENER_CONTAINER_FACTORY)
+    @ConditionalOnProperty(name = "validator.aggregator.batch.enabled", havingValue = "true")
+    SimpleRabbitListenerContainerFactory aggregatorBatchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            @Value("${validator.aggregator.batch.size:100}") int batchSize,
+            @Value("${validator.aggregator.batch.timeout-ms:200}") long batchTimeoutMillis) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setPrefetchCount(batchSize);
+        factory.setReceiveTimeout(batchTimeoutMillis);
+        factory.setIdleEventInterval(batchTimeoutMillis);
+        return factory;
+    }
+
 }
@@ -4,4 +4,6 @@ public class AggregatorRoutingKeys {
 
     public static final String EVENT_VALIDATION_RESULT_DOCUMENT_UPDATED = "validationresult.updated";
 
+    public static final String EVENT_VALIDATION_RESULT_AUTHOR_UPDATED = "validationresult.author.updated";
+
 }
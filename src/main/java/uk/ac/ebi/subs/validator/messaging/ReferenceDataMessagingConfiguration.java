@@ -0,0 +1,47 @@
+package uk.ac.ebi.subs.validator.messaging;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import uk.ac.ebi.subs.messaging.ExchangeConfig;
+
+import static uk.ac.ebi.subs.validator.messaging.ReferenceDataRoutingKeys.EVENT_REFERENCE_DATA_UPDATED;
+
+/**
+ * Messaging configuration for the broadcast of reference data (data type and checklist) updates.
+ */
+@Configuration
+@ComponentScan(basePackageClasses = ExchangeConfig.class)
+public class ReferenceDataMessagingConfiguration {
+
+    /**
+     * Instantiate an exclusive, auto-deleted {@link Queue} for this instance, so every instance receives
+     * the reference data updates.
+     *
+     * @return an instance of a {@link Queue} for reference data update events.
+     */
+    @Bean
+    Queue referenceDataUpdateQueue() {
+        return new AnonymousQueue();
+    }
+
+    /**
+     * Create a {@link Binding} between the submission exchange and the reference data update queue
+     * using the routing key of reference data updated.
+     *
+     * @param referenceDataUpdateQueue {@link Queue} for reference data update events
+     * @param submissionExchange {@link TopicExchange} for validation
+     * @return a {@link Binding} between the submission exchange and the reference data update queue
+     * using the routing key of reference data updated.
+     */
+    @Bean
+    Binding referenceDataUpdatedBinding(Queue referenceDataUpdateQueue, TopicExchange submissionExchange) {
+        return BindingBuilder.bind(referenceDataUpdateQueue).to(submissionExchange)
+                .with(EVENT_REFERENCE_DATA_UPDATED);
+    }
+}
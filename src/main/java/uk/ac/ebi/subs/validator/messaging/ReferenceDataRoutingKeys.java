@@ -0,0 +1,6 @@
+package uk.ac.ebi.subs.validator.messaging;
+
+public class ReferenceDataRoutingKeys {
+
+    public static final String EVENT_REFERENCE_DATA_UPDATED = "referencedata.updated";
+}
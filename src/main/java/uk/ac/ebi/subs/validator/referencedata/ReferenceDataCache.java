@@ -0,0 +1,87 @@
+package uk.ac.ebi.subs.validator.referencedata;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.repository.model.Checklist;
+import uk.ac.ebi.subs.repository.model.DataType;
+import uk.ac.ebi.subs.repository.repos.ChecklistRepository;
+import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of the {@link DataType} and {@link Checklist} documents, which are read for every validation
+ * but hardly ever change.
+ *
+ * Entries expire after the configured time to live, and the whole cache is dropped when a reference data update
+ * is broadcast. Unknown IDs are not cached, so a document created after a miss is found on the next lookup.
+ */
+@Component
+@Slf4j
+public class ReferenceDataCache implements PublicMetrics {
+
+    static final String DATA_TYPE_METRIC_PREFIX = "cache.reference-data.data-type.";
+    static final String CHECKLIST_METRIC_PREFIX = "cache.reference-data.checklist.";
+
+    private final LoadingCache<String, DataType> dataTypes;
+    private final LoadingCache<String, Checklist> checklists;
+
+    public ReferenceDataCache(DataTypeRepository dataTypeRepository, ChecklistRepository checklistRepository,
+                              @Value("${validator.reference-data.cache.ttl-ms:300000}") long timeToLiveMillis,
+                              @Value("${validator.reference-data.cache.max-entries:1000}") long maxEntries) {
+        this.dataTypes = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build(dataTypeRepository::findOne);
+        this.checklists = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build(checklistRepository::findOne);
+    }
+
+    /**
+     * @return the data type with the given ID, or null if there is none
+     */
+    public DataType findDataType(String dataTypeId) {
+        return dataTypeId == null ? null : dataTypes.get(dataTypeId);
+    }
+
+    /**
+     * @return the checklist with the given ID, or null if there is none
+     */
+    public Checklist findChecklist(String checklistId) {
+        return checklistId == null ? null : checklists.get(checklistId);
+    }
+
+    public void invalidateAll() {
+        log.debug("Dropping {} data types and {} checklists", dataTypes.estimatedSize(), checklists.estimatedSize());
+        dataTypes.invalidateAll();
+        checklists.invalidateAll();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        addMetrics(metrics, DATA_TYPE_METRIC_PREFIX, dataTypes);
+        addMetrics(metrics, CHECKLIST_METRIC_PREFIX, checklists);
+        return metrics;
+    }
+
+    private static void addMetrics(List<Metric<?>> metrics, String prefix, LoadingCache<String, ?> cache) {
+        CacheStats stats = cache.stats();
+        metrics.add(new Metric<>(prefix + "hits", stats.hitCount()));
+        metrics.add(new Metric<>(prefix + "misses", stats.missCount()));
+        metrics.add(new Metric<>(prefix + "size", cache.estimatedSize()));
+    }
+}
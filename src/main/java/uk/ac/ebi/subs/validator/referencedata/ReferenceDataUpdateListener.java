@@ -0,0 +1,33 @@
+package uk.ac.ebi.subs.validator.referencedata;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.subs.validator.schema.ValidationSchemaCache;
+
+/**
+ * Drops the cached reference data of this instance when an update of the data types or checklists is broadcast.
+ * Every instance listens on a queue of its own, so each one receives the update.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReferenceDataUpdateListener {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataUpdateListener.class);
+
+    @NonNull
+    private ReferenceDataCache referenceDataCache;
+    @NonNull
+    private ValidationSchemaCache validationSchemaCache;
+
+    @RabbitListener(queues = "#{referenceDataUpdateQueue.name}")
+    public void handleReferenceDataUpdate(Message message) {
+        logger.info("Reference data has been updated, invalidating the cached data types, checklists and validation schemas.");
+
+        referenceDataCache.invalidateAll();
+        validationSchemaCache.invalidateAll();
+    }
+}
@@ -0,0 +1,264 @@
+package uk.ac.ebi.subs.validator.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.validator.schema.model.JsonSchemaValidationError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends the documents validated against the same schema at the same time to the remote JSON schema validator
+ * in one call.
+ *
+ * The first document of a schema opens a batch and, when other validations are in progress, waits for more documents
+ * of the same schema, until the batch is full or the maximum wait has passed. The batch is validated as one array
+ * against a schema whose items are the original schema, and the errors are handed back to the waiting callers by the
+ * index in their data paths. When the remote validator reports an error that cannot be traced back to one of the
+ * documents, the documents of the batch are validated again one at a time.
+ * Schemas are matched by instance, as they come from {@link ValidationSchemaCache}. Schemas referring to their
+ * own parts outside their definitions cannot be nested this way and are validated one document at a time.
+ */
+@Slf4j
+public class BatchingJsonSchemaValidationService extends JsonSchemaValidationService {
+
+    private static final Pattern ITEM_DATA_PATH = Pattern.compile("^\\[(\\d+)\\](.*)$");
+
+    private static final List<String> ROOT_KEYWORDS = Arrays.asList("$schema", "$async", "definitions");
+
+    private final int maximumBatchSize;
+    private final long maximumWaitMillis;
+
+    private final Map<SchemaKey, Batch> openBatches = new HashMap<>();
+
+    private final AtomicInteger validationsInProgress = new AtomicInteger();
+
+    public BatchingJsonSchemaValidationService(String jsonSchemaValidatorUrl, RestTemplate restTemplate,
+                                               int maximumBatchSize, long maximumWaitMillis) {
+        super(jsonSchemaValidatorUrl, restTemplate);
+        this.maximumBatchSize = maximumBatchSize;
+        this.maximumWaitMillis = maximumWaitMillis;
+    }
+
+    @Override
+    public List<JsonSchemaValidationError> validate(JsonNode schema, JsonNode object) {
+        if (!canBeNested(schema)) {
+            return validateRemotely(schema, object);
+        }
+
+        validationsInProgress.incrementAndGet();
+        try {
+            return validateInBatch(schema, object);
+        } finally {
+            validationsInProgress.decrementAndGet();
+        }
+    }
+
+    private List<JsonSchemaValidationError> validateInBatch(JsonNode schema, JsonNode object) {
+        SchemaKey schemaKey = new SchemaKey(schema);
+        Batch batch;
+        CompletableFuture<List<JsonSchemaValidationError>> result;
+        boolean opened = false;
+
+        synchronized (openBatches) {
+            batch = openBatches.get(schemaKey);
+            if (batch == null) {
+                batch = new Batch(schema);
+                openBatches.put(schemaKey, batch);
+                opened = true;
+            }
+            result = batch.add(object);
+
+            if (batch.size() >= maximumBatchSize) {
+                openBatches.remove(schemaKey);
+                batch.full.countDown();
+            }
+        }
+
+        if (opened) {
+            awaitMoreDocuments(batch);
+            synchronized (openBatches) {
+                openBatches.remove(schemaKey, batch);
+            }
+            send(batch);
+        }
+
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    List<JsonSchemaValidationError> validateRemotely(JsonNode schema, JsonNode object) {
+        return super.validate(schema, object);
+    }
+
+    /**
+     * Only waits if other validations are in progress, as no more documents can arrive otherwise.
+     */
+    private void awaitMoreDocuments(Batch batch) {
+        if (validationsInProgress.get() <= 1) {
+            return;
+        }
+        try {
+            batch.full.await(maximumWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(Batch batch) {
+        try {
+            if (batch.size() == 1) {
+                batch.results.get(0).complete(validateRemotely(batch.schema, batch.documents.get(0)));
+                return;
+            }
+
+            log.debug("Validating {} documents in one call", batch.size());
+            List<JsonSchemaValidationError> errors = validateRemotely(arraySchema(batch.schema), arrayOf(batch.documents));
+
+            List<List<JsonSchemaValidationError>> errorsByDocument;
+            try {
+                errorsByDocument = splitByDocument(errors, batch.size());
+            } catch (IllegalStateException e) {
+                log.warn("Validating {} documents one at a time: {}", batch.size(), e.getMessage());
+                sendOneByOne(batch);
+                return;
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.results.get(i).complete(errorsByDocument.get(i));
+            }
+        } catch (RuntimeException e) {
+            batch.results.forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private void sendOneByOne(Batch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                batch.results.get(i).complete(validateRemotely(batch.schema, batch.documents.get(i)));
+            } catch (RuntimeException e) {
+                batch.results.get(i).completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * @return the schema of an array whose items are valid against the given schema
+     */
+    static JsonNode arraySchema(JsonNode schema) {
+        ObjectNode arraySchema = JsonNodeFactory.instance.objectNode();
+        for (String keyword : ROOT_KEYWORDS) {
+            if (schema.has(keyword)) {
+                arraySchema.set(keyword, schema.get(keyword));
+            }
+        }
+        arraySchema.put("type", "array");
+        arraySchema.set("items", schema);
+        return arraySchema;
+    }
+
+    static List<List<JsonSchemaValidationError>> splitByDocument(List<JsonSchemaValidationError> errors, int documentCount) {
+        List<List<JsonSchemaValidationError>> errorsByDocument = new ArrayList<>(documentCount);
+        for (int i = 0; i < documentCount; i++) {
+            errorsByDocument.add(new ArrayList<>());
+        }
+
+        for (JsonSchemaValidationError error : errors) {
+            Matcher matcher = ITEM_DATA_PATH.matcher(error.getDataPath() == null ? "" : error.getDataPath());
+
+            if (matcher.matches() && Integer.parseInt(matcher.group(1)) < documentCount) {
+                errorsByDocument.get(Integer.parseInt(matcher.group(1)))
+                        .add(new JsonSchemaValidationError(error.getErrors(), matcher.group(2)));
+            } else {
+                throw new IllegalStateException(String.format("Unexpected data path in batched validation: %s", error.getDataPath()));
+            }
+        }
+        return errorsByDocument;
+    }
+
+    /**
+     * Only references to the definitions keep pointing at the same schemas, once the schema is nested.
+     */
+    static boolean canBeNested(JsonNode schema) {
+        if (!schema.isObject() || schema.has("$id") || schema.has("id")) {
+            return false;
+        }
+        for (JsonNode ref : schema.findValues("$ref")) {
+            if (ref.isTextual() && ref.textValue().startsWith("#") && !ref.textValue().startsWith("#/definitions/")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ArrayNode arrayOf(List<JsonNode> documents) {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode();
+        array.addAll(documents);
+        return array;
+    }
+
+    private static class Batch {
+
+        private final JsonNode schema;
+        private final List<JsonNode> documents = new ArrayList<>();
+        private final List<CompletableFuture<List<JsonSchemaValidationError>>> results = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+
+        Batch(JsonNode schema) {
+            this.schema = schema;
+        }
+
+        CompletableFuture<List<JsonSchemaValidationError>> add(JsonNode document) {
+            CompletableFuture<List<JsonSchemaValidationError>> result = new CompletableFuture<>();
+            documents.add(document);
+            results.add(result);
+            return result;
+        }
+
+        int size() {
+            return documents.size();
+        }
+    }
+
+    /**
+     * Matches schemas by instance.
+     */
+    private static class SchemaKey {
+
+        private final JsonNode schema;
+
+        SchemaKey(JsonNode schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SchemaKey && ((SchemaKey) o).schema == schema;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(schema);
+        }
+    }
+}
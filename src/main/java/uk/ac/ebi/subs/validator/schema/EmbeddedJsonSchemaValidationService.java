@@ -0,0 +1,164 @@
+package uk.ac.ebi.subs.validator.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.validator.schema.model.JsonSchemaValidationError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates documents against JSON schemas in the JVM, instead of calling the remote JSON schema validator.
+ *
+ * The errors are reported in the same shape and, for the common keywords, with the same wording as the remote
+ * validator: one {@link JsonSchemaValidationError} per data path, such as {@code .alias} or
+ * {@code .attributes.age[0].value}. Schemas using the custom keywords of the remote validator, which look terms up
+ * in external services, are still sent to the remote validator.
+ *
+ * Compiled schemas are kept as long as the schema instance they were compiled from is in use, which is as long as
+ * {@link ValidationSchemaCache} holds it. Whether a schema uses the custom keywords is decided when it is compiled,
+ * and kept with the compiled schema.
+ */
+public class EmbeddedJsonSchemaValidationService extends JsonSchemaValidationService {
+
+    static final List<String> REMOTE_KEYWORDS = Arrays.asList("graph_restriction", "isChildTermOf", "isValidTerm", "isValidTaxonomy");
+
+    private final JsonSchemaFactory jsonSchemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+
+    private final Cache<JsonNode, CompiledSchema> compiledSchemas = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    public EmbeddedJsonSchemaValidationService(String jsonSchemaValidatorUrl, RestTemplate restTemplate) {
+        super(jsonSchemaValidatorUrl, restTemplate);
+    }
+
+    @Override
+    public List<JsonSchemaValidationError> validate(JsonNode schema, JsonNode object) {
+        CompiledSchema compiledSchema = compiledSchemas.get(schema, this::compileSchema);
+
+        if (compiledSchema.usesRemoteKeywords) {
+            return super.validate(schema, object);
+        }
+
+        return validate(compiledSchema.jsonSchema, object);
+    }
+
+    /**
+     * @return the compiled schema, compiled once for the same schema instance
+     */
+    public JsonSchema compile(JsonNode schema) {
+        return compiledSchemas.get(schema, this::compileSchema).jsonSchema;
+    }
+
+    private CompiledSchema compileSchema(JsonNode schema) {
+        return new CompiledSchema(jsonSchemaFactory.getSchema(schema), usesRemoteKeywords(schema));
+    }
+
+    List<JsonSchemaValidationError> validate(JsonSchema jsonSchema, JsonNode object) {
+        Set<ValidationMessage> validationMessages = jsonSchema.validate(object);
+
+        Map<String, List<String>> errorsByDataPath = new LinkedHashMap<>();
+        for (ValidationMessage validationMessage : validationMessages) {
+            errorsByDataPath.computeIfAbsent(dataPath(validationMessage), dataPath -> new ArrayList<>())
+                    .add(errorMessage(validationMessage));
+        }
+
+        List<JsonSchemaValidationError> errors = new ArrayList<>();
+        errorsByDataPath.forEach((dataPath, messages) -> errors.add(new JsonSchemaValidationError(messages, dataPath)));
+        return errors;
+    }
+
+    static boolean usesRemoteKeywords(JsonNode schema) {
+        return REMOTE_KEYWORDS.stream().anyMatch(keyword -> schema.findValue(keyword) != null);
+    }
+
+    /**
+     * Missing and unexpected properties are reported at the path of the property, not the object holding it.
+     */
+    private static String dataPath(ValidationMessage validationMessage) {
+        String dataPath = validationMessage.getPath().startsWith("$")
+                ? validationMessage.getPath().substring(1)
+                : validationMessage.getPath();
+
+        switch (validationMessage.getType()) {
+            case "required":
+            case "additionalProperties":
+                return dataPath + "." + argument(validationMessage, 0);
+            default:
+                return dataPath;
+        }
+    }
+
+    private static String errorMessage(ValidationMessage validationMessage) {
+        switch (validationMessage.getType()) {
+            case "required":
+                return "should have required property '" + argument(validationMessage, 0) + "'";
+            case "additionalProperties":
+                return "should NOT have additional properties";
+            case "type":
+                return "should be " + argument(validationMessage, 1);
+            case "enum":
+                return "should be equal to one of the allowed values";
+            case "const":
+                return "should be equal to constant";
+            case "pattern":
+                return "should match pattern \"" + argument(validationMessage, 0) + "\"";
+            case "format":
+                return "should match format \"" + argument(validationMessage, 0) + "\"";
+            case "minLength":
+                return "should NOT be shorter than " + argument(validationMessage, 0) + " characters";
+            case "maxLength":
+                return "should NOT be longer than " + argument(validationMessage, 0) + " characters";
+            case "minimum":
+                return "should be >= " + argument(validationMessage, 0);
+            case "maximum":
+                return "should be <= " + argument(validationMessage, 0);
+            case "minItems":
+                return "should NOT have fewer than " + argument(validationMessage, 0) + " items";
+            case "maxItems":
+                return "should NOT have more than " + argument(validationMessage, 0) + " items";
+            case "uniqueItems":
+                return "should NOT have duplicate items";
+            case "anyOf":
+                return "should match some schema in anyOf";
+            case "oneOf":
+                return "should match exactly one schema in oneOf";
+            default:
+                return messageWithoutPath(validationMessage);
+        }
+    }
+
+    private static String argument(ValidationMessage validationMessage, int index) {
+        String[] arguments = validationMessage.getArguments();
+        return arguments != null && arguments.length > index ? arguments[index] : "";
+    }
+
+    private static String messageWithoutPath(ValidationMessage validationMessage) {
+        String message = validationMessage.getMessage();
+        String pathPrefix = validationMessage.getPath() + ": ";
+
+        return message.startsWith(pathPrefix) ? message.substring(pathPrefix.length()) : message;
+    }
+
+    private static class CompiledSchema {
+
+        private final JsonSchema jsonSchema;
+        private final boolean usesRemoteKeywords;
+
+        CompiledSchema(JsonSchema jsonSchema, boolean usesRemoteKeywords) {
+            this.jsonSchema = jsonSchema;
+            this.usesRemoteKeywords = usesRemoteKeywords;
+        }
+    }
+}
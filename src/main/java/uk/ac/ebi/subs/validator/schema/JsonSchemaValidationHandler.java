@@ -1,23 +1,19 @@
 package uk.ac.ebi.subs.validator.schema;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.subs.repository.model.Checklist;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.model.StoredSubmittable;
-import uk.ac.ebi.subs.repository.repos.ChecklistRepository;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
 import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
 import uk.ac.ebi.subs.validator.error.EntityNotFoundException;
-import uk.ac.ebi.subs.validator.schema.custom.SchemaObjectMapperProvider;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
+import uk.ac.ebi.subs.validator.schema.custom.SchemaTreeNormalizer;
 import uk.ac.ebi.subs.validator.schema.model.JsonSchemaValidationError;
 import uk.ac.ebi.subs.validator.schema.model.SchemaValidationMessageEnvelope;
 
@@ -26,7 +22,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
-import static uk.ac.ebi.subs.repository.util.SchemaConverterFromMongo.fixStoredJson;
 import static uk.ac.ebi.subs.validator.util.ValidationHelper.generatePassingSingleValidationResult;
 import static uk.ac.ebi.subs.validator.util.ValidationHelper.generateSingleValidationResultsEnvelope;
 
@@ -37,17 +32,13 @@ public class JsonSchemaValidationHandler {
 
 
     @NonNull
-    private DataTypeRepository dataTypeRepository;
+    private ReferenceDataCache referenceDataCache;
     @NonNull
-    private ChecklistRepository checklistRepository;
+    private ValidationSchemaCache validationSchemaCache;
     @NonNull
-    private JsonSchemaValidationService validationService;
+    private SchemaValidationResultCache schemaValidationResultCache;
     @NonNull
-    private ObjectMapper objectMapper;
-    @NonNull
-    private List<Class<? extends StoredSubmittable>> submittablesClassList;
-
-    private ObjectMapper customObjectMapper = SchemaObjectMapperProvider.createCustomObjectMapper();
+    private SchemaTreeNormalizer schemaTreeNormalizer;
 
     public SingleValidationResultsEnvelope handleSubmittableValidation(SchemaValidationMessageEnvelope envelope) {
 
@@ -56,13 +47,13 @@ public class JsonSchemaValidationHandler {
 
         final String dataTypeId = envelope.getDataTypeId();
         if (dataTypeId != null) {
-            dataType = Optional.ofNullable(dataTypeRepository.findOne(dataTypeId))
+            dataType = Optional.ofNullable(referenceDataCache.findDataType(dataTypeId))
                         .orElseThrow(() -> new EntityNotFoundException(
                             String.format("Data type entity with ID: %s is not found in the database.", dataTypeId)));
         }
         final String checklistId = envelope.getChecklistId();
         if (checklistId != null) {
-            checklist = Optional.ofNullable(checklistRepository.findOne(checklistId))
+            checklist = Optional.ofNullable(referenceDataCache.findChecklist(checklistId))
                         .orElseThrow(() -> new EntityNotFoundException(
                             String.format("Checklist entity with ID: %s is not found in the database.", checklistId)));
         }
@@ -74,17 +65,17 @@ public class JsonSchemaValidationHandler {
         JsonNode documentToValidate = envelope.getEntityToValidate();
 
         if (dataType != null && dataType.getValidationSchema() != null) {
-            JsonNode schema = fixStoredJson(dataType.getValidationSchema());
+            ValidationSchema schema = validationSchemaCache.findSchema(dataType);
 
 
-            List<JsonSchemaValidationError> errors1 = validationService.validate(schema, documentToValidate);
+            List<JsonSchemaValidationError> errors1 = schemaValidationResultCache.validate(schema, documentToValidate);
             errors.addAll(errors1);
         }
 
         if (checklist != null && checklist.getValidationSchema() != null) {
-            JsonNode schema = fixStoredJson(checklist.getValidationSchema());
+            ValidationSchema schema = validationSchemaCache.findSchema(checklist);
 
-            List<JsonSchemaValidationError> errors1 = validationService.validate(schema, documentToValidate);
+            List<JsonSchemaValidationError> errors1 = schemaValidationResultCache.validate(schema, documentToValidate);
             errors.addAll(errors1);
         }
 
@@ -100,22 +91,8 @@ public class JsonSchemaValidationHandler {
     */
     private void resolveMapperDifferences(SchemaValidationMessageEnvelope envelope, DataType dataType) {
         if (dataType != null && dataType.getSubmittableClassName() != null) {
-            String submittableClassName = dataType.getSubmittableClassName();
-
-            Optional<Class<? extends StoredSubmittable>> optionalClass = submittablesClassList.stream()
-                    .filter(clazz -> clazz.getName().equals(submittableClassName))
-                    .findAny();
-
-            if (optionalClass.isPresent()) {
-
-                StoredSubmittable submittable;
-                try {
-                    submittable = objectMapper.treeToValue(envelope.getEntityToValidate(), optionalClass.get());
-                } catch (JsonProcessingException e) {
-                    throw new RuntimeException(e);
-                }
-                envelope.setEntityToValidate(customObjectMapper.valueToTree(submittable));
-            }
+            envelope.setEntityToValidate(
+                    schemaTreeNormalizer.normalize(envelope.getEntityToValidate(), dataType.getSubmittableClassName()));
         }
     }
 
@@ -0,0 +1,83 @@
+package uk.ac.ebi.subs.validator.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import uk.ac.ebi.subs.validator.schema.model.JsonSchemaValidationError;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the errors found when validating a document against a schema, keyed by the fingerprint of the schema and
+ * a hash of the document, so revalidating unchanged documents against unchanged schemas is not repeated.
+ *
+ * Only the errors are kept; the results built from them carry the version and UUID of the validation result at hand.
+ *
+ * The errors are only remembered for {@link ValidationSchema#isSelfContained() self-contained} schemas, as the
+ * outcome against a schema looking terms up in external services, or referring to remote schemas, can change while
+ * the schema and the document stay the same. Entries expire after {@code validator.schema.result-cache.ttl-ms} as well.
+ *
+ * The validation runs outside the cache, so a slow validation does not hold up other documents; the same document
+ * validated on two threads at once may be validated twice.
+ */
+@Component
+public class SchemaValidationResultCache implements PublicMetrics {
+
+    static final String METRIC_PREFIX = "cache.schema-validation-result.";
+
+    private final JsonSchemaValidationService validationService;
+
+    private final Cache<String, List<JsonSchemaValidationError>> errorsBySchemaAndDocument;
+
+    public SchemaValidationResultCache(JsonSchemaValidationService validationService,
+                                       @Value("${validator.schema.result-cache.max-entries:10000}") long maxEntries,
+                                       @Value("${validator.schema.result-cache.ttl-ms:3600000}") long timeToLiveMillis) {
+        this.validationService = validationService;
+        this.errorsBySchemaAndDocument = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the errors of the document against the schema, validating it only if it has not been validated
+     * against an equal schema before
+     */
+    public List<JsonSchemaValidationError> validate(ValidationSchema schema, JsonNode document) {
+        if (!schema.isSelfContained()) {
+            return validationService.validate(schema.getSchema(), document);
+        }
+
+        String key = schema.getFingerprint() + ":" + DigestUtils.md5DigestAsHex(document.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<JsonSchemaValidationError> errors = errorsBySchemaAndDocument.getIfPresent(key);
+        if (errors == null) {
+            errors = Collections.unmodifiableList(validationService.validate(schema.getSchema(), document));
+            errorsBySchemaAndDocument.put(key, errors);
+        }
+        return errors;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = errorsBySchemaAndDocument.stats();
+
+        return Arrays.asList(
+                new Metric<>(METRIC_PREFIX + "hits", stats.hitCount()),
+                new Metric<>(METRIC_PREFIX + "misses", stats.missCount()),
+                new Metric<>(METRIC_PREFIX + "size", errorsBySchemaAndDocument.estimatedSize())
+        );
+    }
+}
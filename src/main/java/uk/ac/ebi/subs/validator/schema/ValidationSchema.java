@@ -0,0 +1,24 @@
+package uk.ac.ebi.subs.validator.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+
+/**
+ * A validation schema ready for validation, with a fingerprint of its content.
+ */
+@Data
+public class ValidationSchema {
+
+    private final JsonNode schema;
+
+    /**
+     * Hex MD5 digest of the schema, equal for schemas of equal content.
+     */
+    private final String fingerprint;
+
+    /**
+     * Whether validating against the schema depends on nothing but the schema and the document: the schema uses none
+     * of the keywords looking terms up in external services and refers to no remote schema.
+     */
+    private final boolean selfContained;
+}
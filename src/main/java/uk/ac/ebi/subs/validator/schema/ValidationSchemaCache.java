@@ -0,0 +1,164 @@
+package uk.ac.ebi.subs.validator.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import uk.ac.ebi.subs.repository.model.Checklist;
+import uk.ac.ebi.subs.repository.model.DataType;
+import uk.ac.ebi.subs.repository.repos.ChecklistRepository;
+import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static uk.ac.ebi.subs.repository.util.SchemaConverterFromMongo.fixStoredJson;
+
+/**
+ * Cache of the validation schemas of the {@link DataType} and {@link Checklist} documents, fixed from their stored
+ * form (see {@code SchemaConverterFromMongo}) and, for the embedded engine, compiled.
+ *
+ * Entries are keyed by the ID of the owning document and hold the stored schema they were made from, so a changed
+ * schema is noticed and fixed again on its next use. The schemas of all the data types and checklists are
+ * loaded at startup.
+ */
+@Component
+@Slf4j
+public class ValidationSchemaCache implements PublicMetrics {
+
+    static final String METRIC_PREFIX = "cache.validation-schema.";
+
+    private final DataTypeRepository dataTypeRepository;
+    private final ChecklistRepository checklistRepository;
+    private final JsonSchemaValidationService jsonSchemaValidationService;
+
+    private final Cache<String, CachedSchema> schemas;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ValidationSchemaCache(DataTypeRepository dataTypeRepository, ChecklistRepository checklistRepository,
+                                 JsonSchemaValidationService jsonSchemaValidationService,
+                                 @Value("${validator.schema.cache.max-entries:500}") long maxEntries) {
+        this.dataTypeRepository = dataTypeRepository;
+        this.checklistRepository = checklistRepository;
+        this.jsonSchemaValidationService = jsonSchemaValidationService;
+        this.schemas = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * @return the fixed validation schema of the data type
+     */
+    public ValidationSchema findSchema(DataType dataType) {
+        return findSchema("DataType:" + dataType.getId(), dataType.getValidationSchema());
+    }
+
+    /**
+     * @return the fixed validation schema of the checklist
+     */
+    public ValidationSchema findSchema(Checklist checklist) {
+        return findSchema("Checklist:" + checklist.getId(), checklist.getValidationSchema());
+    }
+
+    private ValidationSchema findSchema(String key, JsonNode storedSchema) {
+        CachedSchema cachedSchema = schemas.getIfPresent(key);
+
+        if (cachedSchema != null && cachedSchema.isMadeFrom(storedSchema)) {
+            hits.incrementAndGet();
+            return cachedSchema.schema;
+        }
+
+        misses.incrementAndGet();
+        JsonNode fixedSchema = fixStoredJson(storedSchema);
+        if (jsonSchemaValidationService instanceof EmbeddedJsonSchemaValidationService) {
+            ((EmbeddedJsonSchemaValidationService) jsonSchemaValidationService).compile(fixedSchema);
+        }
+        ValidationSchema schema = new ValidationSchema(fixedSchema,
+                DigestUtils.md5DigestAsHex(fixedSchema.toString().getBytes(StandardCharsets.UTF_8)),
+                isSelfContained(fixedSchema));
+
+        schemas.put(key, new CachedSchema(storedSchema, schema));
+        return schema;
+    }
+
+    /**
+     * Local refs start with {@code #}; any other {@code $ref} points at a schema loaded from elsewhere.
+     */
+    static boolean isSelfContained(JsonNode schema) {
+        if (EmbeddedJsonSchemaValidationService.usesRemoteKeywords(schema)) {
+            return false;
+        }
+        return schema.findValues("$ref").stream()
+                .allMatch(ref -> ref.isTextual() && ref.asText().startsWith("#"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        long loaded = 0;
+
+        for (DataType dataType : dataTypeRepository.findAll()) {
+            if (dataType.getValidationSchema() != null) {
+                findSchema(dataType);
+                loaded++;
+            }
+        }
+        for (Checklist checklist : checklistRepository.findAll()) {
+            if (checklist.getValidationSchema() != null) {
+                findSchema(checklist);
+                loaded++;
+            }
+        }
+
+        log.info("Loaded {} validation schemas", loaded);
+    }
+
+    public void invalidateAll() {
+        schemas.invalidateAll();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+                new Metric<>(METRIC_PREFIX + "hits", hits.get()),
+                new Metric<>(METRIC_PREFIX + "misses", misses.get()),
+                new Metric<>(METRIC_PREFIX + "size", schemas.estimatedSize())
+        );
+    }
+
+    private static class CachedSchema {
+
+        private volatile JsonNode storedSchema;
+        private final ValidationSchema schema;
+
+        CachedSchema(JsonNode storedSchema, ValidationSchema schema) {
+            this.storedSchema = storedSchema;
+            this.schema = schema;
+        }
+
+        /**
+         * Reloaded reference data holds a new, usually equal, instance of the stored schema. Once found equal, that
+         * instance is kept, so the next lookups only compare the references.
+         */
+        boolean isMadeFrom(JsonNode storedSchema) {
+            if (this.storedSchema == storedSchema) {
+                return true;
+            }
+            if (this.storedSchema.equals(storedSchema)) {
+                this.storedSchema = storedSchema;
+                return true;
+            }
+            return false;
+        }
+    }
+}
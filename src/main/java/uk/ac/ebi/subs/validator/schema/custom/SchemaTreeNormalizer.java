@@ -0,0 +1,646 @@
+package uk.ac.ebi.subs.validator.schema.custom;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIdentityReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIgnoreType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.subs.repository.model.StoredSubmittable;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Rewrites a submittable, as written by the general USI object mapper, into the form written by
+ * {@link SchemaObjectMapperProvider#createCustomObjectMapper()}, which the schema validator expects: local dates as
+ * YYYY-MM-DD strings instead of arrays, and no null or empty properties.
+ *
+ * The JSON tree is rewritten in one pass, guided by the properties of the submittable class, which are looked up
+ * once per class. A value is only rewritten directly when it is already in the form its type is read from and written
+ * in, such as a number of an integer property or a [year, month, day] array of a local date; any other value, such as
+ * a string of a number property or a value of another date type, goes through the round trip of its type instead.
+ * Classes that cannot be shown to be written property by property, because of annotations changing how a property is
+ * written or read, creators, or defaults differing between instances, go through that round trip as a whole, and so
+ * does the whole document when the round trip of one of its values fails.
+ */
+@Component
+@Slf4j
+public class SchemaTreeNormalizer {
+
+    /**
+     * Annotations on a class or property changing how a property is written or read.
+     */
+    private static final List<Class<? extends Annotation>> PROPERTY_ANNOTATIONS = Arrays.asList(
+            JsonFormat.class, JsonSerialize.class, JsonDeserialize.class, JsonInclude.class, JsonUnwrapped.class,
+            JsonRawValue.class, JsonTypeInfo.class, JsonView.class, JsonManagedReference.class, JsonBackReference.class,
+            JsonIdentityInfo.class, JsonIdentityReference.class);
+
+    /**
+     * Annotations on a member of a class making it written or read other than property by property.
+     */
+    private static final List<Class<? extends Annotation>> MEMBER_ANNOTATIONS = Arrays.asList(
+            JsonValue.class, JsonAnyGetter.class, JsonAnySetter.class, JsonCreator.class);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper customObjectMapper = SchemaObjectMapperProvider.createCustomObjectMapper();
+
+    private final Map<String, Class<? extends StoredSubmittable>> submittableClassesByName = new HashMap<>();
+    private final Map<String, NodeNormalizer> normalizersByClassName = new HashMap<>();
+
+    public SchemaTreeNormalizer(ObjectMapper objectMapper, List<Class<? extends StoredSubmittable>> submittablesClassList) {
+        this.objectMapper = objectMapper;
+
+        Map<JavaType, NodeNormalizer> normalizersByType = new HashMap<>();
+        for (Class<? extends StoredSubmittable> submittableClass : submittablesClassList) {
+            submittableClassesByName.put(submittableClass.getName(), submittableClass);
+            normalizersByClassName.put(submittableClass.getName(),
+                    normalizer(customObjectMapper.constructType(submittableClass), normalizersByType));
+        }
+    }
+
+    /**
+     * @return the document in the form the schema validator expects, or the document itself if the class is not a
+     * submittable class
+     */
+    public JsonNode normalize(JsonNode document, String submittableClassName) {
+        Class<? extends StoredSubmittable> submittableClass = submittableClassesByName.get(submittableClassName);
+        if (submittableClass == null) {
+            return document;
+        }
+
+        try {
+            return normalizersByClassName.get(submittableClassName).normalize(document);
+        } catch (NotNormalizableException e) {
+            log.debug("Normalizing a {} through the class: {}", submittableClassName, e.getMessage());
+        }
+
+        try {
+            return customObjectMapper.valueToTree(objectMapper.treeToValue(document, submittableClass));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private NodeNormalizer normalizer(JavaType type, Map<JavaType, NodeNormalizer> normalizersByType) {
+        NodeNormalizer normalizer = normalizersByType.get(type);
+        if (normalizer != null) {
+            return normalizer;
+        }
+
+        Class<?> rawClass = type.getRawClass();
+        RoundTripNormalizer roundTrip = new RoundTripNormalizer(type);
+
+        if (rawClass == String.class) {
+            normalizer = new TextNormalizer(roundTrip);
+        } else if (rawClass == boolean.class || rawClass == Boolean.class) {
+            normalizer = new ScalarNormalizer(JsonNode::isBoolean, UnaryOperator.identity(), roundTrip);
+        } else if (rawClass == int.class || rawClass == Integer.class) {
+            normalizer = new ScalarNormalizer(JsonNode::isInt, UnaryOperator.identity(), roundTrip);
+        } else if (rawClass == long.class || rawClass == Long.class) {
+            normalizer = new ScalarNormalizer(node -> node.isInt() || node.isLong(), node -> LongNode.valueOf(node.longValue()), roundTrip);
+        } else if (rawClass == double.class || rawClass == Double.class) {
+            normalizer = new ScalarNormalizer(node -> node.isDouble() || node.isInt() || node.isLong(),
+                    node -> node.isDouble() ? node : DoubleNode.valueOf(node.doubleValue()), roundTrip);
+        } else if (rawClass.isEnum()) {
+            normalizer = new EnumNormalizer(writtenConstants(rawClass), roundTrip);
+        } else if (rawClass == LocalDate.class && readsDateArrays()) {
+            normalizer = new LocalDateNormalizer(customObjectMapper, roundTrip);
+        } else if (isList(type)) {
+            normalizer = new ArrayNormalizer(normalizer(type.getContentType(), normalizersByType), roundTrip);
+        } else if (isStringKeyedMap(type)) {
+            normalizer = new MapNormalizer(normalizer(type.getContentType(), normalizersByType), roundTrip);
+        } else if (isBean(rawClass)) {
+            String reason = notNormalizableBeanReason(type);
+            if (reason == null) {
+                BeanNormalizer beanNormalizer = new BeanNormalizer(defaults(rawClass),
+                        objectMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES), roundTrip);
+                normalizersByType.put(type, beanNormalizer);
+
+                for (BeanPropertyDefinition property : customObjectMapper.getSerializationConfig().introspect(type).findProperties()) {
+                    if (property.couldSerialize()) {
+                        beanNormalizer.properties.put(property.getName(), normalizer(property.getPrimaryType(), normalizersByType));
+                    }
+                }
+                return beanNormalizer;
+            }
+            log.debug("Normalizing {} through the class: {}", rawClass.getName(), reason);
+            normalizer = roundTrip;
+        } else {
+            normalizer = roundTrip;
+        }
+
+        normalizersByType.put(type, normalizer);
+        return normalizer;
+    }
+
+    private static boolean isList(JavaType type) {
+        Class<?> rawClass = type.getRawClass();
+        return type.isCollectionLikeType() && (rawClass == List.class || rawClass == Collection.class || rawClass == ArrayList.class)
+                || type.isArrayType() && !type.getContentType().isPrimitive();
+    }
+
+    private static boolean isStringKeyedMap(JavaType type) {
+        Class<?> rawClass = type.getRawClass();
+        return type.isMapLikeType() && type.getKeyType().getRawClass() == String.class
+                && (rawClass == Map.class || rawClass == HashMap.class || rawClass == LinkedHashMap.class);
+    }
+
+    private static boolean isBean(Class<?> rawClass) {
+        return !rawClass.isPrimitive() && !rawClass.isArray() && !rawClass.isInterface()
+                && !Modifier.isAbstract(rawClass.getModifiers()) && !rawClass.getName().startsWith("java.")
+                && !JsonNode.class.isAssignableFrom(rawClass);
+    }
+
+    /**
+     * @return why the properties of the class cannot be rewritten one by one, or null if they can
+     */
+    private String notNormalizableBeanReason(JavaType type) {
+        if (objectMapper.isEnabled(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)) {
+            return "properties are read case insensitively";
+        }
+
+        BeanDescription serialization = customObjectMapper.getSerializationConfig().introspect(type);
+        BeanDescription deserialization = objectMapper.getDeserializationConfig().introspect(type);
+
+        for (AnnotatedClass classInfo : Arrays.asList(serialization.getClassInfo(), deserialization.getClassInfo())) {
+            if (hasAny(classInfo, PROPERTY_ANNOTATIONS) || classInfo.getAnnotation(JsonIgnoreType.class) != null) {
+                return "annotated class";
+            }
+            JsonIgnoreProperties ignoredProperties = classInfo.getAnnotation(JsonIgnoreProperties.class);
+            if (ignoredProperties != null && ignoredProperties.value().length > 0) {
+                return "ignored properties";
+            }
+            List<Annotated> members = new ArrayList<>();
+            classInfo.memberMethods().forEach(members::add);
+            classInfo.fields().forEach(members::add);
+            members.addAll(classInfo.getConstructors());
+            members.addAll(classInfo.getFactoryMethods());
+            for (Annotated member : members) {
+                if (hasAny(member, MEMBER_ANNOTATIONS)) {
+                    return "value, any property or creator annotation on " + member.getName();
+                }
+            }
+        }
+
+        Map<String, BeanPropertyDefinition> readProperties = new HashMap<>();
+        for (BeanPropertyDefinition property : deserialization.findProperties()) {
+            if (property.couldDeserialize()) {
+                readProperties.put(property.getName(), property);
+            }
+        }
+        int writtenProperties = 0;
+        for (BeanPropertyDefinition property : serialization.findProperties()) {
+            if (!property.couldSerialize()) {
+                continue;
+            }
+            writtenProperties++;
+            BeanPropertyDefinition readProperty = readProperties.get(property.getName());
+            if (readProperty == null || !readProperty.getPrimaryType().equals(property.getPrimaryType())) {
+                return "property " + property.getName() + " is not read as it is written";
+            }
+            if (readProperty.getConstructorParameter() != null) {
+                return "property " + property.getName() + " is read through a creator";
+            }
+            if (isAnnotated(property) || isAnnotated(readProperty)
+                    || property.getPrimaryType().getRawClass().getAnnotation(JsonIgnoreType.class) != null) {
+                return "annotated property " + property.getName();
+            }
+        }
+        if (writtenProperties != readProperties.size()) {
+            return "properties are read that are not written";
+        }
+
+        ObjectNode defaults = defaults(type.getRawClass());
+        if (defaults == null || !defaults.equals(defaults(type.getRawClass()))) {
+            return "no default instance, or defaults differing between instances";
+        }
+        return null;
+    }
+
+    private static boolean isAnnotated(BeanPropertyDefinition property) {
+        for (Annotated member : Arrays.asList(property.getField(), property.getGetter(), property.getSetter(),
+                property.getConstructorParameter())) {
+            if (member != null && hasAny(member, PROPERTY_ANNOTATIONS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAny(Annotated annotated, List<Class<? extends Annotation>> annotations) {
+        for (Class<? extends Annotation> annotation : annotations) {
+            if (annotated.getAnnotation(annotation) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the properties of a new instance of the class, as written by the schema object mapper, or null if the
+     * class cannot be instantiated with its no-argument constructor
+     */
+    private ObjectNode defaults(Class<?> beanClass) {
+        try {
+            JsonNode defaults = customObjectMapper.valueToTree(beanClass.getDeclaredConstructor().newInstance());
+            return defaults.isObject() ? (ObjectNode) defaults : null;
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the enum constants as written by the schema object mapper, by their form written, and read back, by the
+     * general object mapper
+     */
+    private Map<String, JsonNode> writtenConstants(Class<?> enumClass) {
+        Map<String, JsonNode> writtenConstants = new HashMap<>();
+        for (Object constant : enumClass.getEnumConstants()) {
+            try {
+                JsonNode read = objectMapper.valueToTree(constant);
+                if (read.isTextual() && constant.equals(objectMapper.treeToValue(read, enumClass))) {
+                    writtenConstants.put(read.textValue(), customObjectMapper.valueToTree(constant));
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.debug("Normalizing {} {} through the class: {}", enumClass.getName(), constant, e.getMessage());
+            }
+        }
+        return writtenConstants;
+    }
+
+    /**
+     * @return true if the general object mapper reads local dates from [year, month, day] arrays
+     */
+    private boolean readsDateArrays() {
+        ArrayNode date = JsonNodeFactory.instance.arrayNode().add(2018).add(1).add(31);
+        try {
+            return LocalDate.of(2018, 1, 31).equals(objectMapper.treeToValue(date, LocalDate.class));
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static class NotNormalizableException extends RuntimeException {
+
+        NotNormalizableException(String message, Throwable cause) {
+            super(message, cause, false, false);
+        }
+    }
+
+    private interface NodeNormalizer {
+
+        /**
+         * @return the node as the schema object mapper writes the value read from it
+         */
+        JsonNode normalize(JsonNode node);
+
+        /**
+         * @return the node as the schema object mapper writes the value read from it into a property, or null if the
+         * property is left out
+         */
+        default JsonNode normalizeProperty(JsonNode node) {
+            return node.isNull() ? null : normalize(node);
+        }
+    }
+
+    /**
+     * Reads the value of the node with the general object mapper, and writes it with the schema object mapper.
+     */
+    private class RoundTripNormalizer implements NodeNormalizer {
+
+        private final JavaType type;
+
+        RoundTripNormalizer(JavaType type) {
+            this.type = type;
+        }
+
+        @Override
+        public JsonNode normalize(JsonNode node) {
+            return write(read(node));
+        }
+
+        @Override
+        public JsonNode normalizeProperty(JsonNode node) {
+            Object value = read(node);
+            if (value == null) {
+                return null;
+            }
+            try {
+                SerializerProvider provider = customObjectMapper.getSerializerProviderInstance();
+                if (provider.findValueSerializer(value.getClass(), null).isEmpty(provider, value)) {
+                    return null;
+                }
+            } catch (IOException e) {
+                throw new NotNormalizableException("cannot write a " + type, e);
+            }
+            return write(value);
+        }
+
+        private Object read(JsonNode node) {
+            try {
+                return objectMapper.readerFor(type).readValue(node);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new NotNormalizableException("cannot read a " + type, e);
+            }
+        }
+
+        private JsonNode write(Object value) {
+            if (value == null) {
+                return NullNode.getInstance();
+            }
+            try {
+                TokenBuffer buffer = new TokenBuffer(customObjectMapper, false);
+                if (type.isPrimitive() || value.getClass() == type.getRawClass()) {
+                    customObjectMapper.writerFor(type).writeValue(buffer, value);
+                } else {
+                    customObjectMapper.writer().writeValue(buffer, value);
+                }
+                return customObjectMapper.readTree(buffer.asParser());
+            } catch (IOException | IllegalArgumentException e) {
+                throw new NotNormalizableException("cannot write a " + type, e);
+            }
+        }
+    }
+
+    /**
+     * Takes the nodes of the form the value is read from and written in, converted to the type of node written,
+     * and the others through the round trip.
+     */
+    private static class ScalarNormalizer implements NodeNormalizer {
+
+        private final Predicate<JsonNode> written;
+        private final UnaryOperator<JsonNode> conversion;
+        private final NodeNormalizer roundTrip;
+
+        ScalarNormalizer(Predicate<JsonNode> written, UnaryOperator<JsonNode> conversion, NodeNormalizer roundTrip) {
+            this.written = written;
+            this.conversion = conversion;
+            this.roundTrip = roundTrip;
+        }
+
+        @Override
+        public JsonNode normalize(JsonNode node) {
+            return written.test(node) ? conversion.apply(node) : roundTrip.normalize(node);
+        }
+
+        @Override
+        public JsonNode normalizeProperty(JsonNode node) {
+            return written.test(node) ? conversion.apply(node) : roundTrip.normalizeProperty(node);
+        }
+    }
+
+    private static class TextNormalizer implements NodeNormalizer {
+
+        private final NodeNormalizer roundTrip;
+
+        TextNormalizer(NodeNormalizer roundTrip) {
+            this.roundTrip = roundTrip;
+        }
+
+        @Override
+        public JsonNode normalize(JsonNode node) {
+            return node.isTextual() ? node : roundTrip.normalize(node);
+        }
+
+        @Override
+        public JsonNode normalizeProperty(JsonNode node) {
+            if (node.isTextual()) {
+                return node.textValue().isEmpty() ? null : node;
+            }
+            return roundTrip.normalizeProperty(node);
+        }
+    }
+
+    private static class EnumNormalizer implements NodeNormalizer {
+
+        private final Map<String, JsonNode> writtenConstants;
+        private final NodeNormalizer roundTrip;
+
+        EnumNormalizer(Map<String, JsonNode> writtenConstants, NodeNormalizer roundTrip) {
+            this.writtenConstants = writtenConstants;
+            this.roundTrip = roundTrip;
+        }
+
+        @Override
+        public JsonNode normalize(JsonNode node) {
+            JsonNode written = node.isTextual() ? writtenConstants.get(node.textValue()) : null;
+            return written != null ? written : roundTrip.normalize(node);
+        }
+
+        @Override
+        public JsonNode normalizeProperty(JsonNode node) {
+            JsonNode written = node.isTextual() ? writtenConstants.get(node.textValue()) : null;
+            return written != null ? written : roundTrip.normalizeProperty(node);
+        }
+    }
+
+    /**
+     * Local dates are written as [year, month, day] by the general object mapper.
+     */
+    private static class LocalDateNormalizer implements NodeNormalizer {
+
+        private final ObjectMapper customObjectMapper;
+        private final NodeNormalizer roundTrip;
+
+        LocalDateNormalizer(ObjectMapper customObjectMapper, NodeNormalizer roundTrip) {
+            this.customObjectMapper = customObjectMapper;
+            this.roundTrip = roundTrip;
+        }
+
+        @Override
+        public JsonNode normalize(JsonNode node) {
+            LocalDate date = date(node);
+            return date != null ? customObjectMapper.valueToTree(date) : roundTrip.normalize(node);
+        }
+
+        @Override
+        public JsonNode normalizeProperty(JsonNode node) {
+            LocalDate date = date(node);
+            return date != null ? customObjectMapper.valueToTree(date) : roundTrip.normalizeProperty(node);
+        }
+
+        private static LocalDate date(JsonNode node) {
+            if (node.isArray() && node.size() == 3 && node.get(0).isInt() && node.get(1).isInt() && node.get(2).isInt()) {
+                try {
+                    return LocalDate.of(node.get(0).intValue(), node.get(1).intValue(), node.get(2).intValue());
+                } catch (DateTimeException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class ArrayNormalizer implements NodeNormalizer {
+
+        private final NodeNormalizer elementNormalizer;
+        private final NodeNormalizer roundTrip;
+
+        ArrayNormalizer(NodeNormalizer elementNormalizer, NodeNormalizer roundTrip) {
+            this.elementNormalizer = elementNormalizer;
+            this.roundTrip = roundTrip;
+        }
+
+        @Override
+        public JsonNode normalize(JsonNode node) {
+            if (!node.isArray()) {
+                return roundTrip.normalize(node);
+            }
+
+            ArrayNode normalized = JsonNodeFactory.instance.arrayNode();
+            for (JsonNode element : node) {
+                normalized.add(element.isNull() ? element : elementNormalizer.normalize(element));
+            }
+            return normalized;
+        }
+
+        @Override
+        public JsonNode normalizeProperty(JsonNode node) {
+            if (!node.isArray()) {
+                return roundTrip.normalizeProperty(node);
+            }
+            return node.size() == 0 ? null : normalize(node);
+        }
+    }
+
+    /**
+     * Maps holding nulls go through the round trip, as the schema object mapper may leave out their entries.
+     */
+    private static class MapNormalizer implements NodeNormalizer {
+
+        private final NodeNormalizer valueNormalizer;
+        private final NodeNormalizer roundTrip;
+
+        MapNormalizer(NodeNormalizer valueNormalizer, NodeNormalizer roundTrip) {
+            this.valueNormalizer = valueNormalizer;
+            this.roundTrip = roundTrip;
+        }
+
+        @Override
+        public JsonNode normalize(JsonNode node) {
+            if (!isMapWithoutNulls(node)) {
+                return roundTrip.normalize(node);
+            }
+
+            ObjectNode normalized = JsonNodeFactory.instance.objectNode();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                normalized.set(field.getKey(), valueNormalizer.normalize(field.getValue()));
+            }
+            return normalized;
+        }
+
+        @Override
+        public JsonNode normalizeProperty(JsonNode node) {
+            if (!isMapWithoutNulls(node)) {
+                return roundTrip.normalizeProperty(node);
+            }
+            return node.size() == 0 ? null : normalize(node);
+        }
+
+        private static boolean isMapWithoutNulls(JsonNode node) {
+            if (!node.isObject()) {
+                return false;
+            }
+            for (JsonNode value : node) {
+                if (value.isNull()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class BeanNormalizer implements NodeNormalizer {
+
+        private final ObjectNode defaults;
+        private final boolean failOnUnknownProperties;
+        private final NodeNormalizer roundTrip;
+        private final Map<String, NodeNormalizer> properties = new LinkedHashMap<>();
+
+        BeanNormalizer(ObjectNode defaults, boolean failOnUnknownProperties, NodeNormalizer roundTrip) {
+            this.defaults = defaults;
+            this.failOnUnknownProperties = failOnUnknownProperties;
+            this.roundTrip = roundTrip;
+        }
+
+        @Override
+        public JsonNode normalize(JsonNode node) {
+            if (!node.isObject() || failOnUnknownProperties && hasUnknownProperties(node)) {
+                return roundTrip.normalize(node);
+            }
+
+            ObjectNode normalized = JsonNodeFactory.instance.objectNode();
+            for (Map.Entry<String, NodeNormalizer> property : properties.entrySet()) {
+                JsonNode value = node.get(property.getKey());
+
+                if (value == null) {
+                    JsonNode defaultValue = defaults.get(property.getKey());
+                    if (defaultValue != null) {
+                        normalized.set(property.getKey(), defaultValue.deepCopy());
+                    }
+                } else {
+                    JsonNode normalizedValue = property.getValue().normalizeProperty(value);
+                    if (normalizedValue != null) {
+                        normalized.set(property.getKey(), normalizedValue);
+                    }
+                }
+            }
+            return normalized;
+        }
+
+        private boolean hasUnknownProperties(JsonNode node) {
+            for (Iterator<String> names = node.fieldNames(); names.hasNext(); ) {
+                if (!properties.containsKey(names.next())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
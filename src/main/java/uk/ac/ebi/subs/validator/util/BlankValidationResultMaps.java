@@ -16,6 +16,18 @@ import java.util.Map;
  */
 public class BlankValidationResultMaps {
 
+    /**
+     * The field of the validation result document holding the names of the validation authors that have not
+     * reported yet, so completion can be detected without loading the expected results.
+     */
+    public static final String PENDING_AUTHORS_FIELD = "pendingAuthors";
+
+    /**
+     * The field of the validation result document holding the hash of the results stored for each validation author,
+     * so identical results reported again are not rewritten.
+     */
+    public static final String RESULT_HASHES_FIELD = "resultHashes";
+
     private static final List<ValidationAuthor> FILE_REF_VALIDATION_SERVICES_REQUIRED =
             Arrays.asList(ValidationAuthor.FileReference, ValidationAuthor.FileContent);
 
@@ -32,4 +44,19 @@ public class BlankValidationResultMaps {
 
         return blankValidationResultMap;
     }
+
+    /**
+     * @return the names of the authors without results in the given expected results
+     */
+    public static List<String> pendingAuthors(Map<ValidationAuthor, List<SingleValidationResult>> expectedResults) {
+        List<String> pendingAuthors = new ArrayList<>();
+
+        for (Map.Entry<ValidationAuthor, List<SingleValidationResult>> entry : expectedResults.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                pendingAuthors.add(entry.getKey().name());
+            }
+        }
+
+        return pendingAuthors;
+    }
 }
@@ -0,0 +1,137 @@
+package uk.ac.ebi.subs.validator.aggregator;
+
+import com.rabbitmq.client.Channel;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
+import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class AggregatorBatchListenerTest {
+
+    private AggregatorBatchListener aggregatorBatchListener;
+
+    private AggregatorMessageSender aggregatorMessageSender;
+    private AggregatorValidationResultService aggregatorValidationResultService;
+    private Channel channel;
+
+    private SingleValidationResultsEnvelope biosamples;
+    private SingleValidationResultsEnvelope taxonomy;
+
+    @Before
+    public void setUp() {
+        aggregatorMessageSender = Mockito.mock(AggregatorMessageSender.class);
+        aggregatorValidationResultService = Mockito.mock(AggregatorValidationResultService.class);
+        channel = Mockito.mock(Channel.class);
+
+        aggregatorBatchListener = new AggregatorBatchListener(aggregatorMessageSender, aggregatorValidationResultService, false, 2, 200, 2);
+
+        biosamples = new SingleValidationResultsEnvelope(Collections.emptyList(), 1, "vr1", ValidationAuthor.Biosamples);
+        taxonomy = new SingleValidationResultsEnvelope(Collections.emptyList(), 1, "vr1", ValidationAuthor.Taxonomy);
+    }
+
+    @Test
+    public void fullBatchIsStoredTogetherAndAcknowledged() throws IOException {
+        Mockito.when(aggregatorValidationResultService.updateValidationResults(Arrays.asList(biosamples, taxonomy)))
+                .thenReturn(Arrays.asList(biosamples, taxonomy));
+
+        aggregatorBatchListener.handleValidationResult(biosamples, channel, 1);
+        verify(aggregatorValidationResultService, never()).updateValidationResults(any());
+
+        aggregatorBatchListener.handleValidationResult(taxonomy, channel, 2);
+
+        verify(aggregatorValidationResultService).updateValidationResults(Arrays.asList(biosamples, taxonomy));
+        verify(aggregatorMessageSender, times(1)).sendValidationResultDocumentUpdate("vr1", 1);
+        verify(aggregatorMessageSender).sendValidationResultAuthorUpdate(biosamples);
+        verify(aggregatorMessageSender).sendValidationResultAuthorUpdate(taxonomy);
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+    }
+
+    @Test
+    public void partialBatchIsStoredWhenTheConsumerIsIdle() throws IOException {
+        Mockito.when(aggregatorValidationResultService.updateValidationResults(Collections.singletonList(biosamples)))
+                .thenReturn(Collections.singletonList(biosamples));
+
+        aggregatorBatchListener.handleValidationResult(biosamples, channel, 1);
+        verify(channel, never()).basicAck(Mockito.anyLong(), Mockito.anyBoolean());
+
+        aggregatorBatchListener.flush();
+
+        verify(channel).basicAck(1, false);
+        verify(aggregatorMessageSender).sendValidationResultDocumentUpdate("vr1", 1);
+    }
+
+    @Test
+    public void partialBatchIsStoredWhenAResultArrivesAfterTheTimeout() throws IOException, InterruptedException {
+        aggregatorBatchListener = new AggregatorBatchListener(aggregatorMessageSender, aggregatorValidationResultService, false, 3, 100, 2);
+        Mockito.when(aggregatorValidationResultService.updateValidationResults(Arrays.asList(biosamples, taxonomy)))
+                .thenReturn(Arrays.asList(biosamples, taxonomy));
+
+        aggregatorBatchListener.handleValidationResult(biosamples, channel, 1);
+        Thread.sleep(150);
+        aggregatorBatchListener.handleValidationResult(taxonomy, channel, 2);
+
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+    }
+
+    @Test
+    public void failedBatchIsReturnedToTheQueue() throws IOException {
+        Mockito.when(aggregatorValidationResultService.updateValidationResults(any()))
+                .thenThrow(new IllegalStateException("write failed"));
+
+        aggregatorBatchListener.handleValidationResult(biosamples, channel, 1);
+        aggregatorBatchListener.handleValidationResult(taxonomy, channel, 2);
+
+        verify(channel).basicNack(1, false, true);
+        verify(channel).basicNack(2, false, true);
+        verify(channel, never()).basicAck(Mockito.anyLong(), Mockito.anyBoolean());
+        verify(aggregatorMessageSender, never()).sendValidationResultDocumentUpdate(anyString(), anyInt());
+    }
+
+    @Test
+    public void eventPublishingIsRetriedAfterTheBatchIsStored() throws IOException {
+        Mockito.when(aggregatorValidationResultService.updateValidationResults(Arrays.asList(biosamples, taxonomy)))
+                .thenReturn(Arrays.asList(biosamples, taxonomy));
+        doThrow(new IllegalStateException("publish failed")).doNothing()
+                .when(aggregatorMessageSender).sendValidationResultAuthorUpdate(taxonomy);
+
+        aggregatorBatchListener.handleValidationResult(biosamples, channel, 1);
+        aggregatorBatchListener.handleValidationResult(taxonomy, channel, 2);
+
+        verify(aggregatorValidationResultService, times(1)).updateValidationResults(any());
+        verify(aggregatorMessageSender, times(2)).sendValidationResultAuthorUpdate(taxonomy);
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+        verify(channel, never()).basicNack(Mockito.anyLong(), Mockito.anyBoolean(), Mockito.anyBoolean());
+    }
+
+    @Test
+    public void onlyResultsWhoseEventsCannotBePublishedAreDeadLettered() throws IOException {
+        Mockito.when(aggregatorValidationResultService.updateValidationResults(Arrays.asList(biosamples, taxonomy)))
+                .thenReturn(Arrays.asList(biosamples, taxonomy));
+        doThrow(new IllegalStateException("publish failed"))
+                .when(aggregatorMessageSender).sendValidationResultAuthorUpdate(taxonomy);
+
+        aggregatorBatchListener.handleValidationResult(biosamples, channel, 1);
+        aggregatorBatchListener.handleValidationResult(taxonomy, channel, 2);
+
+        verify(aggregatorValidationResultService, times(1)).updateValidationResults(any());
+        verify(channel).basicAck(1, false);
+        verify(channel).basicNack(2, false, false);
+        verify(channel, never()).basicNack(Mockito.anyLong(), Mockito.anyBoolean(), Mockito.eq(true));
+    }
+}
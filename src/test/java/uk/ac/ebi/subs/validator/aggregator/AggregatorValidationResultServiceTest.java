@@ -1,41 +1,56 @@
 package uk.ac.ebi.subs.validator.aggregator;
 
+import com.mongodb.BasicDBObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 import org.springframework.test.context.junit4.SpringRunner;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
 import uk.ac.ebi.subs.validator.data.ValidationResult;
+import uk.ac.ebi.subs.validator.data.structures.GlobalValidationStatus;
 import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
+import uk.ac.ebi.subs.validator.flipper.StatusFlipperValidationResultService;
 import uk.ac.ebi.subs.validator.repository.ValidationResultRepository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static uk.ac.ebi.subs.validator.util.BlankValidationResultMaps.PENDING_AUTHORS_FIELD;
 
 @RunWith(SpringRunner.class)
 @EnableMongoRepositories(basePackageClasses = ValidationResultRepository.class)
 @EnableAutoConfiguration
-@SpringBootTest(classes = AggregatorValidationResultService.class)
+@SpringBootTest(classes = {AggregatorValidationResultService.class, StatusFlipperValidationResultService.class})
 public class AggregatorValidationResultServiceTest {
 
     @Autowired
     private ValidationResultRepository repository;
     @Autowired
     private AggregatorValidationResultService service;
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
     private static final String UUID_1 = UUID.randomUUID().toString();
     private static final String UUID_2 = UUID.randomUUID().toString();
@@ -93,6 +108,113 @@ public class AggregatorValidationResultServiceTest {
         assertFalse(service.updateValidationResult(envelope));
     }
 
+    /**
+     * Skip the write when the author reports the same results again for the same version, but still report the
+     * results as stored.
+     */
+    @Test
+    public void skipIdenticalValidationResults() {
+        SingleValidationResultsEnvelope singleValidationResultsEnvelope = new SingleValidationResultsEnvelope(
+                Collections.singletonList(generateSingleValidationResult(entityUUID_1)),
+                1,
+                UUID_1,
+                ValidationAuthor.Biosamples
+        );
+        long unchangedResultsBefore = unchangedResults();
+
+        assertTrue(service.updateValidationResult(singleValidationResultsEnvelope));
+        assertTrue(service.updateValidationResult(singleValidationResultsEnvelope));
+        assertThat(service.updateValidationResults(Collections.singletonList(singleValidationResultsEnvelope)).size(), is(1));
+
+        assertThat(unchangedResults() - unchangedResultsBefore, is(2L));
+
+        SingleValidationResult changed = generateSingleValidationResult(entityUUID_1);
+        changed.setValidationStatus(SingleValidationResultStatus.Error);
+        singleValidationResultsEnvelope.setSingleValidationResults(Collections.singletonList(changed));
+        assertTrue(service.updateValidationResult(singleValidationResultsEnvelope));
+    }
+
+    /**
+     * Complete the validation result document in the same step when the last expected author reports.
+     */
+    @Test
+    public void updateAndCompleteValidationResultWhenEveryAuthorHasReported() {
+        assertTrue(service.updateAndCompleteValidationResult(new SingleValidationResultsEnvelope(
+                Collections.singletonList(generateSingleValidationResult(entityUUID_1)),
+                1,
+                UUID_1,
+                ValidationAuthor.Biosamples
+        )));
+        assertThat(repository.findOne(UUID_1).getValidationStatus(), is(not(GlobalValidationStatus.Complete)));
+
+        assertTrue(service.updateAndCompleteValidationResult(new SingleValidationResultsEnvelope(
+                Collections.singletonList(generateSingleValidationResult(entityUUID_1)),
+                1,
+                UUID_1,
+                ValidationAuthor.Taxonomy
+        )));
+        assertThat(repository.findOne(UUID_1).getValidationStatus(), is(GlobalValidationStatus.Complete));
+    }
+
+    /**
+     * The reporting author is no longer pending, and the validation result is completed without checking its
+     * expected results once no author is pending.
+     */
+    @Test
+    public void reportingAuthorIsNoLongerPending() {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(UUID_1)),
+                Update.update(PENDING_AUTHORS_FIELD, Arrays.asList(ValidationAuthor.Taxonomy.name(), ValidationAuthor.Biosamples.name())),
+                ValidationResult.class);
+
+        assertTrue(service.updateValidationResult(new SingleValidationResultsEnvelope(
+                Collections.singletonList(generateSingleValidationResult(entityUUID_1)),
+                1,
+                UUID_1,
+                ValidationAuthor.Biosamples
+        )));
+
+        BasicDBObject stored = mongoTemplate.findById(UUID_1, BasicDBObject.class, mongoTemplate.getCollectionName(ValidationResult.class));
+        assertThat((List<?>) stored.get(PENDING_AUTHORS_FIELD), is(Collections.singletonList(ValidationAuthor.Taxonomy.name())));
+
+        assertTrue(service.updateAndCompleteValidationResult(new SingleValidationResultsEnvelope(
+                Collections.singletonList(generateSingleValidationResult(entityUUID_1)),
+                1,
+                UUID_1,
+                ValidationAuthor.Taxonomy
+        )));
+        assertThat(repository.findOne(UUID_1).getValidationStatus(), is(GlobalValidationStatus.Complete));
+    }
+
+    /**
+     * Store a batch of validation results with one bulk write, leaving out the obsolete and missing ones.
+     */
+    @Test
+    public void updateValidationResultsInBulk() {
+        SingleValidationResultsEnvelope biosamples = new SingleValidationResultsEnvelope(
+                Collections.singletonList(generateSingleValidationResult(entityUUID_1)), 1, UUID_1, ValidationAuthor.Biosamples);
+        SingleValidationResultsEnvelope taxonomy = new SingleValidationResultsEnvelope(
+                Collections.singletonList(generateSingleValidationResult(entityUUID_1)), 1, UUID_1, ValidationAuthor.Taxonomy);
+        SingleValidationResultsEnvelope obsolete = new SingleValidationResultsEnvelope(
+                Collections.singletonList(generateSingleValidationResult(entityUUID_2)), 1, UUID_2, ValidationAuthor.Biosamples);
+        SingleValidationResultsEnvelope missing = new SingleValidationResultsEnvelope(
+                Collections.singletonList(generateSingleValidationResult(entityUUID_2)), 1, "missing", ValidationAuthor.Biosamples);
+
+        List<SingleValidationResultsEnvelope> stored = service.updateValidationResults(Arrays.asList(biosamples, taxonomy, obsolete, missing));
+
+        assertThat(stored, is(Arrays.asList(biosamples, taxonomy)));
+
+        ValidationResult validationResult = repository.findOne(UUID_1);
+        assertFalse(validationResult.getExpectedResults().get(ValidationAuthor.Biosamples).isEmpty());
+        assertFalse(validationResult.getExpectedResults().get(ValidationAuthor.Taxonomy).isEmpty());
+        assertTrue(repository.findOne(UUID_2).getExpectedResults().get(ValidationAuthor.Biosamples).isEmpty());
+    }
+
+    private long unchangedResults() {
+        Metric<?> metric = service.metrics().iterator().next();
+        assertThat(metric.getName(), is(AggregatorValidationResultService.UNCHANGED_RESULTS_METRIC));
+        return metric.getValue().longValue();
+    }
+
     private List<ValidationResult> generateValidationResults() {
         List<ValidationResult> validationResults = new ArrayList<>();
 
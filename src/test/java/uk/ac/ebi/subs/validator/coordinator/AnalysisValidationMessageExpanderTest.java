@@ -31,7 +31,7 @@ import static org.junit.Assert.assertThat;
 @RunWith(SpringJUnit4ClassRunner.class)
 @EnableMongoRepositories(basePackages = {"uk.ac.ebi.subs.repository.repos", "uk.ac.ebi.subs.validator.repository"})
 @EnableAutoConfiguration
-@SpringBootTest(classes = AnalysisValidationMessageEnvelopeExpander.class)
+@SpringBootTest(classes = {AnalysisValidationMessageEnvelopeExpander.class, BatchedReferenceResolver.class})
 public class AnalysisValidationMessageExpanderTest {
 
     @Autowired
@@ -0,0 +1,147 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import uk.ac.ebi.subs.data.component.SampleRef;
+import uk.ac.ebi.subs.data.component.SampleRelationship;
+import uk.ac.ebi.subs.data.component.SampleUse;
+import uk.ac.ebi.subs.repository.model.Assay;
+import uk.ac.ebi.subs.repository.model.Sample;
+import uk.ac.ebi.subs.repository.model.StoredSubmittable;
+import uk.ac.ebi.subs.repository.model.Study;
+import uk.ac.ebi.subs.repository.repos.submittables.AssayRepository;
+import uk.ac.ebi.subs.repository.repos.submittables.SampleRepository;
+import uk.ac.ebi.subs.repository.repos.submittables.StudyRepository;
+import uk.ac.ebi.subs.repository.repos.submittables.SubmittableRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ArchivedSamplePrefetcherTest {
+
+    private static final String SUBMISSION_ID = "submission";
+
+    private ArchivedSamplePrefetcher archivedSamplePrefetcher;
+
+    private SampleRepository sampleRepository;
+    private AssayRepository assayRepository;
+    private StudyRepository studyRepository;
+    private BatchedReferenceResolver batchedReferenceResolver;
+    private ArchivedSampleResolver archivedSampleResolver;
+
+    @Before
+    public void setUp() {
+        sampleRepository = Mockito.mock(SampleRepository.class);
+        assayRepository = Mockito.mock(AssayRepository.class);
+        studyRepository = Mockito.mock(StudyRepository.class);
+        batchedReferenceResolver = Mockito.mock(BatchedReferenceResolver.class);
+        archivedSampleResolver = Mockito.mock(ArchivedSampleResolver.class);
+
+        Map<Class<? extends StoredSubmittable>, SubmittableRepository<? extends StoredSubmittable>> submittableRepositoryMap = new LinkedHashMap<>();
+        submittableRepositoryMap.put(Study.class, studyRepository);
+        submittableRepositoryMap.put(Sample.class, sampleRepository);
+        submittableRepositoryMap.put(Assay.class, assayRepository);
+
+        archivedSamplePrefetcher = new ArchivedSamplePrefetcher(submittableRepositoryMap,
+                batchedReferenceResolver, archivedSampleResolver, 1000, 100);
+    }
+
+    @Test
+    public void onlySamplesMissingFromTheRepositoryAreLookedUpInTheArchive() {
+        Sample storedSample = sample("SAMEA1");
+        Sample sample = sample("SAMEA2");
+        sample.setSampleRelationships(Arrays.asList(relationship("SAMEA1"), relationship("SAMEA3")));
+
+        SampleUse sampleUse = new SampleUse();
+        sampleUse.setSampleRef(sampleRef("SAMEA4"));
+        Assay assay = new Assay();
+        assay.setSampleUses(Collections.singletonList(sampleUse));
+
+        Mockito.when(sampleRepository.streamBySubmissionId(SUBMISSION_ID)).thenAnswer(invocation -> Stream.of(sample));
+        Mockito.when(assayRepository.streamBySubmissionId(SUBMISSION_ID)).thenAnswer(invocation -> Stream.of(assay));
+
+        BatchedReferenceResolver.ResolvedReferences<Sample> storedSamples = new BatchedReferenceResolver.ResolvedReferences<>();
+        storedSamples.put(relationship("SAMEA1"), storedSample);
+        Mockito.when(batchedReferenceResolver.resolve(eq(SUBMISSION_ID), eq(Sample.class), anyCollectionOf(SampleRef.class)))
+                .thenReturn(storedSamples);
+
+        assertThat(archivedSamplePrefetcher.prefetch(SUBMISSION_ID), is(2));
+
+        verify(archivedSampleResolver).resolve(eq(Arrays.asList("SAMEA3", "SAMEA4")), anyLong());
+    }
+
+    @Test
+    public void moreSamplesThanTheResolverQueueHoldsAreLookedUpInChunks() {
+        SubmittableFinderService submittableFinderService = Mockito.mock(SubmittableFinderService.class);
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession(anyString()))
+                .thenAnswer(invocation -> sample(invocation.getArgumentAt(0, String.class)));
+        ArchivedSampleResolver resolver = new ArchivedSampleResolver(submittableFinderService, 2, 10, 5000);
+        Map<Class<? extends StoredSubmittable>, SubmittableRepository<? extends StoredSubmittable>> submittableRepositoryMap = new LinkedHashMap<>();
+        submittableRepositoryMap.put(Sample.class, sampleRepository);
+        archivedSamplePrefetcher = new ArchivedSamplePrefetcher(submittableRepositoryMap,
+                batchedReferenceResolver, resolver, 5000, 5);
+
+        List<SampleRelationship> relationships = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            relationships.add(relationship("SAMEA" + i));
+        }
+        Sample sample = sample("SAMEA100");
+        sample.setSampleRelationships(relationships);
+        Mockito.when(sampleRepository.streamBySubmissionId(SUBMISSION_ID)).thenAnswer(invocation -> Stream.of(sample));
+        Mockito.when(batchedReferenceResolver.resolve(eq(SUBMISSION_ID), eq(Sample.class), anyCollectionOf(SampleRef.class)))
+                .thenReturn(new BatchedReferenceResolver.ResolvedReferences<>());
+
+        try {
+            assertThat(archivedSamplePrefetcher.prefetch(SUBMISSION_ID), is(50));
+        } finally {
+            resolver.shutdown();
+        }
+
+        verify(submittableFinderService, times(50)).findArchivedSampleByAccession(anyString());
+    }
+
+    @Test
+    public void repositoriesOfItemsWithoutSampleReferencesAreNotRead() {
+        Mockito.when(sampleRepository.streamBySubmissionId(SUBMISSION_ID)).thenAnswer(invocation -> Stream.empty());
+        Mockito.when(assayRepository.streamBySubmissionId(SUBMISSION_ID)).thenAnswer(invocation -> Stream.empty());
+
+        assertThat(archivedSamplePrefetcher.prefetch(SUBMISSION_ID), is(0));
+
+        verify(studyRepository, never()).streamBySubmissionId(anyString());
+        verify(archivedSampleResolver, never()).resolve(anyCollectionOf(String.class), anyLong());
+    }
+
+    private static Sample sample(String accession) {
+        Sample sample = new Sample();
+        sample.setAccession(accession);
+        return sample;
+    }
+
+    private static SampleRelationship relationship(String accession) {
+        SampleRelationship sampleRelationship = new SampleRelationship();
+        sampleRelationship.setAccession(accession);
+        return sampleRelationship;
+    }
+
+    private static SampleRef sampleRef(String accession) {
+        SampleRef sampleRef = new SampleRef();
+        sampleRef.setAccession(accession);
+        return sampleRef;
+    }
+}
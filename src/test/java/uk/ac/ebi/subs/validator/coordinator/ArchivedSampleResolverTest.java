@@ -0,0 +1,163 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.repository.model.Sample;
+import uk.ac.ebi.subs.repository.repos.submittables.SampleRepository;
+import uk.ac.ebi.subs.validator.error.ArchivedSampleLookupException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ArchivedSampleResolverTest {
+
+    private ArchivedSampleResolver archivedSampleResolver;
+
+    private SubmittableFinderService submittableFinderService;
+
+    @Before
+    public void setUp() {
+        submittableFinderService = Mockito.mock(SubmittableFinderService.class);
+        archivedSampleResolver = new ArchivedSampleResolver(submittableFinderService, 4, 10, 500);
+    }
+
+    @After
+    public void tearDown() {
+        archivedSampleResolver.shutdown();
+    }
+
+    @Test
+    public void samplesAreLookedUpAtTheSameTime() {
+        CountDownLatch allStarted = new CountDownLatch(3);
+
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession(anyString())).thenAnswer(invocation -> {
+            allStarted.countDown();
+            if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("The lookups have not run at the same time");
+            }
+            return sample(invocation.getArgumentAt(0, String.class));
+        });
+
+        Map<String, Sample> samples = archivedSampleResolver.resolve(Arrays.asList("SAMEA1", "SAMEA2", "SAMEA3", "SAMEA1"));
+
+        assertThat(samples.size(), is(3));
+        assertThat(samples.get("SAMEA2").getAccession(), is("SAMEA2"));
+        verify(submittableFinderService, times(1)).findArchivedSampleByAccession("SAMEA1");
+    }
+
+    @Test
+    public void lookupsMissingTheDeadlineFailTheCall() {
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession("SAMEA1")).thenReturn(sample("SAMEA1"));
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession("SAMEA2")).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return sample("SAMEA2");
+        });
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession("SAMEA3")).thenReturn(null);
+
+        long start = System.currentTimeMillis();
+        try {
+            archivedSampleResolver.resolve(Arrays.asList("SAMEA1", "SAMEA2", "SAMEA3"));
+            fail("The lookup missing the deadline should fail the call");
+        } catch (ArchivedSampleLookupException e) {
+            assertThat(e.getAccessions(), is(Collections.singletonList("SAMEA2")));
+        }
+        assertThat(System.currentTimeMillis() - start < 5000, is(true));
+    }
+
+    @Test
+    public void failedLookupsFailTheCall() {
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession("SAMEA1")).thenReturn(sample("SAMEA1"));
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession("SAMEA2")).thenThrow(new IllegalStateException());
+
+        try {
+            archivedSampleResolver.resolve(Arrays.asList("SAMEA1", "SAMEA2"));
+            fail("The failed lookup should fail the call");
+        } catch (ArchivedSampleLookupException e) {
+            assertThat(e.getAccessions(), is(Collections.singletonList("SAMEA2")));
+        }
+    }
+
+    @Test
+    public void bioSamplesFailuresFailTheCall() {
+        RestTemplate restTemplate = Mockito.mock(RestTemplate.class);
+        Mockito.when(restTemplate.getForEntity("http://fake.uri/samples/SAMEA1", String.class))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        Mockito.when(restTemplate.getForEntity("http://fake.uri/samples/SAMEA2", String.class))
+                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        BioSamplesLookupService bioSamplesLookupService = new BioSamplesLookupService(restTemplate, "http://fake.uri/",
+                100, 60000, 60000, 60000, 60000, Optional.empty());
+        archivedSampleResolver.shutdown();
+        archivedSampleResolver = new ArchivedSampleResolver(new SubmittableFinderService(
+                Mockito.mock(SampleRepository.class), bioSamplesLookupService, new ObjectMapper()), 4, 10, 500);
+
+        try {
+            archivedSampleResolver.resolve(Arrays.asList("SAMEA1", "SAMEA2"));
+            fail("The lookup BioSamples has failed should fail the call");
+        } catch (ArchivedSampleLookupException e) {
+            assertThat(e.getAccessions(), is(Collections.singletonList("SAMEA2")));
+        }
+
+        try {
+            archivedSampleResolver.resolve(Collections.singletonList("SAMEA2"));
+            fail("The lookup BioSamples has failed should fail the call");
+        } catch (ArchivedSampleLookupException e) {
+            assertThat(e.getAccessions(), is(Collections.singletonList("SAMEA2")));
+        }
+        assertThat(archivedSampleResolver.resolve(Collections.singletonList("SAMEA1")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void lookupsNotFittingInTheQueueAreNotRunByTheCaller() {
+        archivedSampleResolver.shutdown();
+        archivedSampleResolver = new ArchivedSampleResolver(submittableFinderService, 1, 1, 500);
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return sample(invocation.getArgumentAt(0, String.class));
+        });
+
+        long start = System.currentTimeMillis();
+        try {
+            archivedSampleResolver.resolve(Arrays.asList("SAMEA1", "SAMEA2", "SAMEA3"));
+            fail("The lookup not fitting in the queue should fail the call");
+        } catch (ArchivedSampleLookupException e) {
+            assertThat(e.getAccessions().size(), is(3));
+        }
+        assertThat(System.currentTimeMillis() - start < 5000, is(true));
+    }
+
+    @Test
+    public void accessionsWithoutASampleAreLeftOut() {
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession("SAMEA1")).thenReturn(sample("SAMEA1"));
+        Mockito.when(submittableFinderService.findArchivedSampleByAccession("SAMEA2")).thenReturn(null);
+
+        Map<String, Sample> samples = archivedSampleResolver.resolve(Arrays.asList("SAMEA1", "SAMEA2"));
+
+        assertThat(samples.get("SAMEA1").getAccession(), is("SAMEA1"));
+        assertThat(samples.containsKey("SAMEA2"), is(false));
+    }
+
+    private static Sample sample(String accession) {
+        Sample sample = new Sample();
+        sample.setAccession(accession);
+        return sample;
+    }
+}
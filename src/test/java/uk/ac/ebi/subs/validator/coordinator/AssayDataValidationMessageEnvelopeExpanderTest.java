@@ -39,7 +39,7 @@ import static org.junit.Assert.assertThat;
 @RunWith(SpringJUnit4ClassRunner.class)
 @EnableMongoRepositories(basePackages = {"uk.ac.ebi.subs.repository.repos", "uk.ac.ebi.subs.validator.repository"})
 @EnableAutoConfiguration
-@SpringBootTest(classes = AssayDataValidationMessageEnvelopeExpander.class)
+@SpringBootTest(classes = {AssayDataValidationMessageEnvelopeExpander.class, BatchedReferenceResolver.class})
 public class AssayDataValidationMessageEnvelopeExpanderTest {
 
     @Autowired
@@ -36,7 +36,7 @@ import static org.junit.Assert.assertThat;
 @RunWith(SpringJUnit4ClassRunner.class)
 @EnableMongoRepositories(basePackages = {"uk.ac.ebi.subs.repository.repos", "uk.ac.ebi.subs.validator.repository"})
 @EnableAutoConfiguration
-@SpringBootTest(classes = AssayValidationMessageEnvelopeExpander.class)
+@SpringBootTest(classes = {AssayValidationMessageEnvelopeExpander.class, BatchedReferenceResolver.class})
 public class AssayValidationMessageEnvelopeExpanderTest {
 
     @Autowired
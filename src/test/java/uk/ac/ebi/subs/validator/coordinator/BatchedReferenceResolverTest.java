@@ -0,0 +1,130 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import uk.ac.ebi.subs.data.component.SampleRef;
+import uk.ac.ebi.subs.data.component.Team;
+import uk.ac.ebi.subs.repository.model.Sample;
+import uk.ac.ebi.subs.repository.model.Submission;
+import uk.ac.ebi.subs.repository.repos.SubmissionRepository;
+import uk.ac.ebi.subs.repository.repos.status.SubmissionStatusRepository;
+import uk.ac.ebi.subs.repository.repos.submittables.SampleRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@EnableMongoRepositories(basePackages = {"uk.ac.ebi.subs.repository.repos", "uk.ac.ebi.subs.validator.repository"})
+@EnableAutoConfiguration
+@SpringBootTest(classes = BatchedReferenceResolver.class)
+public class BatchedReferenceResolverTest {
+
+    @Autowired
+    SampleRepository sampleRepository;
+
+    @Autowired
+    SubmissionStatusRepository submissionStatusRepository;
+
+    @Autowired
+    SubmissionRepository submissionRepository;
+
+    @Autowired
+    BatchedReferenceResolver batchedReferenceResolver;
+
+    Team team;
+    Submission submission;
+    List<Sample> savedSampleList;
+
+    @Before
+    public void setup() {
+        team = MessageEnvelopeTestHelper.createTeam();
+        submission = MessageEnvelopeTestHelper.saveNewSubmission(submissionStatusRepository, submissionRepository, team);
+        savedSampleList = MessageEnvelopeTestHelper.createAndSaveSamples(sampleRepository, submission, team, 3);
+    }
+
+    @After
+    public void finish() {
+        sampleRepository.delete(savedSampleList);
+        submissionRepository.delete(submission);
+        submissionStatusRepository.delete(submission.getSubmissionStatus());
+    }
+
+    @Test
+    public void resolvesReferencesByAccessionAndByTeamAndAlias() {
+        List<SampleRef> sampleRefs = new ArrayList<>();
+
+        SampleRef byAccession = new SampleRef();
+        byAccession.setAccession(savedSampleList.get(0).getAccession());
+        sampleRefs.add(byAccession);
+
+        SampleRef byAlias = new SampleRef();
+        byAlias.setAlias(savedSampleList.get(1).getAlias());
+        byAlias.setTeam(team.getName());
+        sampleRefs.add(byAlias);
+
+        BatchedReferenceResolver.ResolvedReferences<Sample> resolvedSamples =
+                batchedReferenceResolver.resolve(Sample.class, sampleRefs);
+
+        assertThat(resolvedSamples.find(byAccession).getId(), is(savedSampleList.get(0).getId()));
+        assertThat(resolvedSamples.find(byAlias).getId(), is(savedSampleList.get(1).getId()));
+    }
+
+    @Test
+    public void unknownReferencesResolveToNull() {
+        List<SampleRef> sampleRefs = new ArrayList<>();
+
+        SampleRef byAccession = new SampleRef();
+        byAccession.setAccession(UUID.randomUUID().toString());
+        sampleRefs.add(byAccession);
+
+        SampleRef byAlias = new SampleRef();
+        byAlias.setAlias(savedSampleList.get(2).getAlias());
+        byAlias.setTeam(UUID.randomUUID().toString());
+        sampleRefs.add(byAlias);
+
+        BatchedReferenceResolver.ResolvedReferences<Sample> resolvedSamples =
+                batchedReferenceResolver.resolve(Sample.class, sampleRefs);
+
+        assertNull(resolvedSamples.find(byAccession));
+        assertNull(resolvedSamples.find(byAlias));
+    }
+
+    @Test
+    public void openIndexServesReferencesUntilInvalidated() {
+        Sample sample = savedSampleList.get(0);
+
+        SampleRef byAccession = new SampleRef();
+        byAccession.setAccession(sample.getAccession());
+        List<SampleRef> sampleRefs = Collections.singletonList(byAccession);
+
+        batchedReferenceResolver.openIndex(submission.getId());
+        try {
+            assertThat(batchedReferenceResolver.resolve(submission.getId(), Sample.class, sampleRefs)
+                    .find(byAccession).getId(), is(sample.getId()));
+
+            sampleRepository.delete(sample);
+
+            assertThat(batchedReferenceResolver.resolve(submission.getId(), Sample.class, sampleRefs)
+                    .find(byAccession).getId(), is(sample.getId()));
+
+            batchedReferenceResolver.invalidateIndex(submission.getId());
+
+            assertNull(batchedReferenceResolver.resolve(submission.getId(), Sample.class, sampleRefs).find(byAccession));
+        } finally {
+            batchedReferenceResolver.closeIndex(submission.getId());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.validator.error.ArchivedSampleLookupException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BioSamplesLookupServiceTest {
+
+    private static final String SAMPLE_URL = "http://fake.uri/samples/SAMEA1";
+
+    private BioSamplesLookupService bioSamplesLookupService;
+
+    private RestTemplate restTemplate;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        restTemplate = Mockito.mock(RestTemplate.class);
+        bioSamplesLookupService = new BioSamplesLookupService(restTemplate, "http://fake.uri/", 100, 60000, 60000, 100, 1000,
+                Optional.empty());
+    }
+
+    @Test
+    public void foundSampleIsFetchedOnce() {
+        Mockito.when(restTemplate.getForEntity(SAMPLE_URL, String.class))
+                .thenReturn(new ResponseEntity<>("{\"accession\": \"SAMEA1\"}", HttpStatus.OK));
+
+        assertThat(bioSamplesLookupService.findSampleDocument("SAMEA1"), is(Optional.of("{\"accession\": \"SAMEA1\"}")));
+        assertThat(bioSamplesLookupService.findSampleDocument("SAMEA1"), is(Optional.of("{\"accession\": \"SAMEA1\"}")));
+
+        verify(restTemplate, times(1)).getForEntity(SAMPLE_URL, String.class);
+        assertThat(metrics().get("cache.biosamples.hits"), is(1L));
+        assertThat(metrics().get("cache.biosamples.misses"), is(1L));
+    }
+
+    @Test
+    public void unknownSampleIsRememberedAsNotFound() {
+        Mockito.when(restTemplate.getForEntity(SAMPLE_URL, String.class))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        assertThat(bioSamplesLookupService.findSampleDocument("SAMEA1"), is(Optional.empty()));
+        assertThat(bioSamplesLookupService.findSampleDocument("SAMEA1"), is(Optional.empty()));
+
+        verify(restTemplate, times(1)).getForEntity(SAMPLE_URL, String.class);
+        assertThat(metrics().get("cache.biosamples.not-found"), is(1L));
+    }
+
+    @Test
+    public void serverErrorIsNotReportedAsNotFound() {
+        Mockito.when(restTemplate.getForEntity(SAMPLE_URL, String.class))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertLookupFails("SAMEA1");
+        assertLookupFails("SAMEA1");
+
+        verify(restTemplate, times(1)).getForEntity(SAMPLE_URL, String.class);
+        assertThat(metrics().get("cache.biosamples.not-found"), is(0L));
+        assertThat(metrics().get("cache.biosamples.failures"), is(1L));
+    }
+
+    @Test
+    public void failedLookupIsRetriedAfterTheBackoff() throws InterruptedException {
+        Mockito.when(restTemplate.getForEntity(SAMPLE_URL, String.class))
+                .thenThrow(new ResourceAccessException("Connection refused"))
+                .thenReturn(new ResponseEntity<>("{\"accession\": \"SAMEA1\"}", HttpStatus.OK));
+
+        assertLookupFails("SAMEA1");
+        assertLookupFails("SAMEA1");
+        verify(restTemplate, times(1)).getForEntity(SAMPLE_URL, String.class);
+        assertThat(metrics().get("cache.biosamples.backed-off"), is(1L));
+
+        Thread.sleep(150);
+
+        assertThat(bioSamplesLookupService.findSampleDocument("SAMEA1"), is(Optional.of("{\"accession\": \"SAMEA1\"}")));
+        verify(restTemplate, times(2)).getForEntity(SAMPLE_URL, String.class);
+        assertThat(metrics().get("cache.biosamples.failures"), is(1L));
+    }
+
+    @Test
+    public void storedSampleIsOnlyUsedWhileItIsFresh() throws IOException, InterruptedException {
+        PersistentSampleStore persistentSampleStore = new PersistentSampleStore(temporaryFolder.newFile().toString(), 4096);
+        persistentSampleStore.put("SAMEA1", "{\"accession\": \"SAMEA1\"}");
+        bioSamplesLookupService = new BioSamplesLookupService(restTemplate, "http://fake.uri/", 100, 100, 60000, 100, 1000,
+                Optional.of(persistentSampleStore));
+        Mockito.when(restTemplate.getForEntity(SAMPLE_URL, String.class))
+                .thenReturn(new ResponseEntity<>("{\"accession\": \"SAMEA1\", \"title\": \"updated\"}", HttpStatus.OK));
+
+        assertThat(bioSamplesLookupService.findSampleDocument("SAMEA1"), is(Optional.of("{\"accession\": \"SAMEA1\"}")));
+        verify(restTemplate, times(0)).getForEntity(SAMPLE_URL, String.class);
+
+        Thread.sleep(150);
+        bioSamplesLookupService.invalidateAll();
+
+        assertThat(bioSamplesLookupService.findSampleDocument("SAMEA1"),
+                is(Optional.of("{\"accession\": \"SAMEA1\", \"title\": \"updated\"}")));
+        verify(restTemplate, times(1)).getForEntity(SAMPLE_URL, String.class);
+    }
+
+    private void assertLookupFails(String accession) {
+        try {
+            bioSamplesLookupService.findSampleDocument(accession);
+            fail("Expected the lookup of " + accession + " to fail");
+        } catch (ArchivedSampleLookupException e) {
+            assertThat(e.getAccessions().contains(accession), is(true));
+        }
+    }
+
+    private Map<String, Number> metrics() {
+        return bioSamplesLookupService.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+    }
+}
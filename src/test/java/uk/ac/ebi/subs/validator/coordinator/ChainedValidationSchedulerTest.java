@@ -0,0 +1,138 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.subs.data.component.AbstractSubsRef;
+import uk.ac.ebi.subs.data.component.Team;
+import uk.ac.ebi.subs.data.submittable.Study;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+
+@RunWith(SpringRunner.class)
+public class ChainedValidationSchedulerTest {
+
+    private ChainedValidationService chainedValidationService;
+    private ChainedValidationScheduler scheduler;
+
+    private String submissionId = "submission";
+
+    @Before
+    public void setUp() {
+        chainedValidationService = Mockito.mock(ChainedValidationService.class);
+
+        Mockito.when(chainedValidationService.submittableToRef(any())).thenCallRealMethod();
+        Mockito.when(chainedValidationService.triggerChainedValidation(anyCollectionOf(AbstractSubsRef.class), eq(submissionId)))
+                .thenReturn(3);
+    }
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void triggersAreDispatchedStraightAwayWithoutWindow() {
+        scheduler = new ChainedValidationScheduler(chainedValidationService, 0, 100, 1000, 3, 2);
+
+        scheduler.scheduleChainedValidation(study("foo"), submissionId);
+        scheduler.scheduleChainedValidation(study("bar"), submissionId);
+
+        Mockito.verify(chainedValidationService, Mockito.times(2))
+                .triggerChainedValidation(anyCollectionOf(AbstractSubsRef.class), eq(submissionId));
+        assertThat(metric(ChainedValidationScheduler.TRIGGERS_COUNTER), is(2L));
+        assertThat(metric(ChainedValidationScheduler.DISPATCHED_COUNTER), is(6L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void triggersWithinWindowAreCoalesced() {
+        scheduler = new ChainedValidationScheduler(chainedValidationService, 200, 100, 1000, 3, 2);
+
+        scheduler.scheduleChainedValidation(study("foo"), submissionId);
+        scheduler.scheduleChainedValidation(study("bar"), submissionId);
+        scheduler.scheduleChainedValidation(study("foo"), submissionId);
+
+        ArgumentCaptor<Collection> refs = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(chainedValidationService, Mockito.timeout(2000))
+                .triggerChainedValidation(refs.capture(), eq(submissionId));
+
+        assertThat(refs.getValue().size(), is(2));
+        assertThat(metric(ChainedValidationScheduler.TRIGGERS_COUNTER), is(3L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failedDispatchIsRetriedWithItsTriggers() {
+        Mockito.when(chainedValidationService.triggerChainedValidation(anyCollectionOf(AbstractSubsRef.class), eq(submissionId)))
+                .thenThrow(new IllegalStateException())
+                .thenReturn(2);
+        scheduler = new ChainedValidationScheduler(chainedValidationService, 100, 100, 1000, 3, 2);
+
+        scheduler.scheduleChainedValidation(study("foo"), submissionId);
+        scheduler.scheduleChainedValidation(study("bar"), submissionId);
+
+        ArgumentCaptor<Collection> refs = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(chainedValidationService, Mockito.timeout(2000).times(2))
+                .triggerChainedValidation(refs.capture(), eq(submissionId));
+
+        assertThat(refs.getAllValues().get(1).size(), is(2));
+        assertThat(metric(ChainedValidationScheduler.FAILED_COUNTER), is(1L));
+    }
+
+    @Test
+    public void triggersAreDroppedAfterTheLastFailedAttempt() throws InterruptedException {
+        Mockito.when(chainedValidationService.triggerChainedValidation(anyCollectionOf(AbstractSubsRef.class), eq(submissionId)))
+                .thenThrow(new IllegalStateException());
+        scheduler = new ChainedValidationScheduler(chainedValidationService, 50, 50, 100, 3, 2);
+
+        scheduler.scheduleChainedValidation(study("foo"), submissionId);
+        scheduler.scheduleChainedValidation(study("bar"), submissionId);
+
+        Mockito.verify(chainedValidationService, Mockito.timeout(2000).times(3))
+                .triggerChainedValidation(anyCollectionOf(AbstractSubsRef.class), eq(submissionId));
+        Thread.sleep(500);
+
+        Mockito.verify(chainedValidationService, Mockito.times(3))
+                .triggerChainedValidation(anyCollectionOf(AbstractSubsRef.class), eq(submissionId));
+        assertThat(metric(ChainedValidationScheduler.FAILED_COUNTER), is(3L));
+        assertThat(metric(ChainedValidationScheduler.DROPPED_COUNTER), is(2L));
+    }
+
+    @Test
+    public void triggersAreDroppedWhenTheSchedulerIsShutDown() {
+        scheduler = new ChainedValidationScheduler(chainedValidationService, 100, 100, 1000, 3, 2);
+        scheduler.shutdown();
+
+        scheduler.scheduleChainedValidation(study("foo"), submissionId);
+
+        assertThat(metric(ChainedValidationScheduler.DROPPED_COUNTER), is(1L));
+    }
+
+    private long metric(String name) {
+        Map<String, Number> metrics = scheduler.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+        return metrics.get(name).longValue();
+    }
+
+    private Study study(String alias) {
+        Study study = new Study();
+        study.setAlias(alias);
+        study.setTeam(Team.build("team"));
+        return study;
+    }
+}
@@ -40,6 +40,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RunWith(SpringRunner.class)
 public class ChainedValidationServiceTest {
@@ -51,6 +52,8 @@ public class ChainedValidationServiceTest {
     private SubmittableHandler submittableHandler;
     private StudyRepository studyRepository;
     private AssayRepository assayRepository;
+    private ReferencingItemFinder referencingItemFinder;
+    private ArchivedSamplePrefetcher archivedSamplePrefetcher;
 
 
     //test data
@@ -65,8 +68,11 @@ public class ChainedValidationServiceTest {
         submittableHandler = Mockito.mock(SubmittableHandler.class);
         studyRepository = Mockito.mock(StudyRepository.class);
         assayRepository = Mockito.mock(AssayRepository.class);
+        referencingItemFinder = Mockito.mock(ReferencingItemFinder.class);
+        archivedSamplePrefetcher = Mockito.mock(ArchivedSamplePrefetcher.class);
 
-        service = new ChainedValidationService(Arrays.asList(assayRepository, studyRepository), submittableHandler);
+        service = new ChainedValidationService(Arrays.asList(assayRepository, studyRepository), submittableHandler,
+                Mockito.mock(BatchedReferenceResolver.class), referencingItemFinder, archivedSamplePrefetcher);
 
         DataType dataType = new DataType();
         dataType.setId(dataTypeId);
@@ -88,19 +94,26 @@ public class ChainedValidationServiceTest {
         AbstractSubsRef ref = study.asRef();
 
         Mockito.when(
-                assayRepository.findBySubmissionIdAndReference(submissionId, ref)
+                referencingItemFinder.findItemsReferencing(submissionId, ref)
         ).thenReturn(Collections.singletonList(assay));
 
-        Mockito.when(
-                studyRepository.findBySubmissionIdAndReference(submissionId, ref)
-        ).thenReturn(Collections.emptyList());
-
         service.triggerChainedValidation(study, submissionId);
 
         Mockito.verify(submittableHandler).handleSubmittable(assay, submissionId, dataTypeId, null);
 
     }
 
+    @Test
+    public void submission_is_revalidated_when_the_prefetch_fails() {
+        Mockito.when(archivedSamplePrefetcher.prefetch(submissionId)).thenThrow(new IllegalStateException("prefetch failed"));
+        Mockito.when(assayRepository.streamBySubmissionId(submissionId)).thenAnswer(invocation -> Stream.of(assay));
+        Mockito.when(studyRepository.streamBySubmissionId(submissionId)).thenAnswer(invocation -> Stream.of(study));
+
+        service.triggerChainedValidation(submissionId);
+
+        Mockito.verify(submittableHandler).handleSubmittables(Mockito.any(), Mockito.eq(submissionId));
+    }
+
     @Test
     public void test_ref_generation() {
         List<Submittable> submittables = Arrays.asList(
@@ -1,5 +1,6 @@
 package uk.ac.ebi.subs.validator.coordinator;
 
+import com.mongodb.BasicDBObject;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -7,6 +8,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import uk.ac.ebi.subs.data.submittable.Sample;
@@ -14,12 +16,21 @@ import uk.ac.ebi.subs.repository.model.fileupload.File;
 import uk.ac.ebi.subs.validator.TestUtils;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.ValidationResult;
+import uk.ac.ebi.subs.validator.data.structures.GlobalValidationStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
 import uk.ac.ebi.subs.validator.repository.ValidationResultRepository;
+import uk.ac.ebi.subs.validator.util.BlankValidationResultMaps;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertThat;
@@ -36,6 +47,9 @@ public class CoordinatorValidationResultServiceTest {
     @Autowired
     CoordinatorValidationResultService service;
 
+    @Autowired
+    MongoTemplate mongoTemplate;
+
     private Sample sample;
 
     @Before
@@ -58,6 +72,59 @@ public class CoordinatorValidationResultServiceTest {
         Assert.assertEquals(5, validationResult.getVersion());
     }
 
+    @Test
+    public void concurrentFetchesShouldNotLoseVersions() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Callable<ValidationResult>> fetches = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            fetches.add(() -> service.fetchValidationResultDocument(sample, Collections.singletonList(ValidationAuthor.Core)).get());
+        }
+        executorService.invokeAll(fetches);
+        executorService.shutdown();
+
+        ValidationResult validationResult = repository.findByEntityUuid(sample.getId());
+
+        Assert.assertEquals(20, validationResult.getVersion());
+        Assert.assertEquals(GlobalValidationStatus.Pending, validationResult.getValidationStatus());
+        assertThat(validationResult.getExpectedResults().get(ValidationAuthor.Core), hasSize(0));
+    }
+
+    @Test
+    public void fetchShouldRecordEveryRequiredAuthorAsPending() {
+        ValidationResult validationResult = service.fetchValidationResultDocument(
+                sample, Arrays.asList(ValidationAuthor.Core, ValidationAuthor.Ena)).get();
+
+        BasicDBObject stored = mongoTemplate.findById(validationResult.getUuid(), BasicDBObject.class,
+                mongoTemplate.getCollectionName(ValidationResult.class));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList(ValidationAuthor.Core.name(), ValidationAuthor.Ena.name())),
+                new HashSet<>((List<?>) stored.get(BlankValidationResultMaps.PENDING_AUTHORS_FIELD)));
+    }
+
+    @Test
+    public void bulkFetchShouldResetEveryValidationResult() {
+        Sample otherSample = TestUtils.createSample();
+        repository.save(TestUtils.createValidationResult(otherSample.getId()));
+        service.fetchValidationResultDocument(otherSample, Collections.emptyList());
+
+        Map<String, List<ValidationAuthor>> authorsRequiredByEntityId = new HashMap<>();
+        authorsRequiredByEntityId.put(sample.getId(), Collections.singletonList(ValidationAuthor.Core));
+        authorsRequiredByEntityId.put(otherSample.getId(), Arrays.asList(ValidationAuthor.Core, ValidationAuthor.Ena));
+        authorsRequiredByEntityId.put("missing", Collections.singletonList(ValidationAuthor.Core));
+
+        Map<String, ValidationResult> validationResults = service.fetchValidationResultDocuments(authorsRequiredByEntityId);
+
+        Assert.assertEquals(2, validationResults.size());
+        Assert.assertEquals(1, validationResults.get(sample.getId()).getVersion());
+        Assert.assertEquals(2, validationResults.get(otherSample.getId()).getVersion());
+
+        ValidationResult stored = repository.findByEntityUuid(otherSample.getId());
+        Assert.assertEquals(2, stored.getVersion());
+        Assert.assertEquals(GlobalValidationStatus.Pending, stored.getValidationStatus());
+        Assert.assertEquals(2, stored.getExpectedResults().size());
+    }
+
     @Test
     public void validationResultShouldPreserveForFileContentValidation() {
         File file = TestUtils.createFile();
@@ -0,0 +1,96 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PersistentSampleStoreTest {
+
+    private static final int MAXIMUM_BYTES = 4096;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void storedSamplesSurviveARestart() throws IOException {
+        Path file = temporaryFolder.getRoot().toPath().resolve("samples.db");
+
+        PersistentSampleStore store = new PersistentSampleStore(file.toString(), MAXIMUM_BYTES);
+        store.put("SAMEA1", "{\"accession\": \"SAMEA1\"}");
+        store.put("SAMEA2", "{\"accession\": \"SAMEA2\"}");
+        store.put("SAMEA1", "{\"accession\": \"SAMEA1\", \"title\": \"updated\"}");
+        store.remove("SAMEA2");
+        store.close();
+
+        PersistentSampleStore reopenedStore = new PersistentSampleStore(file.toString(), MAXIMUM_BYTES);
+
+        assertThat(reopenedStore.size(), is(1));
+        assertThat(reopenedStore.get("SAMEA1").map(PersistentSampleStore.StoredSample::getDocument),
+                is(Optional.of("{\"accession\": \"SAMEA1\", \"title\": \"updated\"}")));
+        assertThat(reopenedStore.get("SAMEA2"), is(Optional.empty()));
+    }
+
+    @Test
+    public void sampleTooLargeToStoreRemovesItsEarlierRecord() throws IOException {
+        Path file = temporaryFolder.getRoot().toPath().resolve("samples.db");
+
+        String largeDocument = "{\"accession\": \"SAMEA1\", \"description\": \""
+                + new String(new char[MAXIMUM_BYTES]).replace('\0', 'x') + "\"}";
+
+        PersistentSampleStore store = new PersistentSampleStore(file.toString(), MAXIMUM_BYTES);
+        store.put("SAMEA1", "{\"accession\": \"SAMEA1\"}");
+        store.put("SAMEA1", largeDocument);
+        assertThat(store.get("SAMEA1"), is(Optional.empty()));
+        store.close();
+
+        PersistentSampleStore reopenedStore = new PersistentSampleStore(file.toString(), MAXIMUM_BYTES);
+
+        assertThat(reopenedStore.get("SAMEA1"), is(Optional.empty()));
+    }
+
+    @Test
+    public void fullStoreIsCompactedKeepingTheNewestSamples() throws IOException {
+        PersistentSampleStore store = new PersistentSampleStore(temporaryFolder.newFile().toString(), MAXIMUM_BYTES);
+        String document = "{\"accession\": \"SAMEA\", \"description\": \"" + new String(new char[200]).replace('\0', 'x') + "\"}";
+
+        for (int i = 0; i < 100; i++) {
+            store.put("SAMEA" + i, document);
+        }
+
+        assertThat(store.get("SAMEA99").isPresent(), is(true));
+        assertThat(store.get("SAMEA0").isPresent(), is(false));
+        assertThat(store.size() * (document.length() + 30) <= MAXIMUM_BYTES, is(true));
+    }
+
+    @Test
+    public void damagedLastRecordIsDropped() throws IOException {
+        Path file = temporaryFolder.getRoot().toPath().resolve("samples.db");
+
+        PersistentSampleStore store = new PersistentSampleStore(file.toString(), MAXIMUM_BYTES);
+        store.put("SAMEA1", "{\"accession\": \"SAMEA1\"}");
+        store.put("SAMEA2", "{\"accession\": \"SAMEA2\"}");
+        store.close();
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            long lastRecordEnd = 2 * (24 + "SAMEA1".length() + "{\"accession\": \"SAMEA1\"}".length());
+            randomAccessFile.seek(lastRecordEnd - 1);
+            randomAccessFile.write('!');
+        }
+
+        PersistentSampleStore reopenedStore = new PersistentSampleStore(file.toString(), MAXIMUM_BYTES);
+
+        assertThat(reopenedStore.size(), is(1));
+        assertThat(reopenedStore.get("SAMEA1").isPresent(), is(true));
+
+        reopenedStore.put("SAMEA3", "{\"accession\": \"SAMEA3\"}");
+        assertThat(reopenedStore.get("SAMEA3").isPresent(), is(true));
+    }
+}
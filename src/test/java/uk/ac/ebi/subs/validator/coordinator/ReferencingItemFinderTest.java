@@ -0,0 +1,96 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.subs.data.component.AbstractSubsRef;
+import uk.ac.ebi.subs.data.component.StudyRef;
+import uk.ac.ebi.subs.data.component.Team;
+import uk.ac.ebi.subs.repository.model.Assay;
+import uk.ac.ebi.subs.repository.model.EgaDataset;
+import uk.ac.ebi.subs.repository.model.StoredSubmittable;
+import uk.ac.ebi.subs.repository.model.Study;
+import uk.ac.ebi.subs.repository.repos.submittables.AssayRepository;
+import uk.ac.ebi.subs.repository.repos.submittables.EgaDatasetRepository;
+import uk.ac.ebi.subs.repository.repos.submittables.StudyRepository;
+import uk.ac.ebi.subs.repository.repos.submittables.SubmittableRepository;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+
+@RunWith(SpringRunner.class)
+public class ReferencingItemFinderTest {
+
+    private ReferencingItemFinder referencingItemFinder;
+
+    private StudyRepository studyRepository;
+    private AssayRepository assayRepository;
+    private EgaDatasetRepository egaDatasetRepository;
+
+    private String submissionId = "submission";
+    private Study study;
+    private Assay assay;
+    private StudyRef studyRef;
+
+    @Before
+    public void setUp() {
+        studyRepository = Mockito.mock(StudyRepository.class);
+        assayRepository = Mockito.mock(AssayRepository.class);
+        egaDatasetRepository = Mockito.mock(EgaDatasetRepository.class);
+
+        Map<Class<? extends StoredSubmittable>, SubmittableRepository<? extends StoredSubmittable>> submittableRepositoryMap = new LinkedHashMap<>();
+        submittableRepositoryMap.put(Study.class, studyRepository);
+        submittableRepositoryMap.put(Assay.class, assayRepository);
+        submittableRepositoryMap.put(EgaDataset.class, egaDatasetRepository);
+
+        referencingItemFinder = new ReferencingItemFinder(submittableRepositoryMap);
+
+        study = new Study();
+        study.setId("study-id");
+        study.setAlias("study");
+        study.setTeam(Team.build("team"));
+
+        assay = new Assay();
+        assay.setId("assay-id");
+        assay.setAlias("assay");
+        assay.setTeam(Team.build("team"));
+        studyRef = (StudyRef) study.asRef();
+        assay.setStudyRef(studyRef);
+
+        Mockito.when(assayRepository.findBySubmissionIdAndReference(submissionId, studyRef))
+                .thenReturn(Collections.singletonList(assay));
+    }
+
+    @Test
+    public void only_types_able_to_hold_the_ref_are_compatible() {
+        List<Class<? extends StoredSubmittable>> referencingTypes = referencingItemFinder.referencingTypes(StudyRef.class);
+
+        assertTrue(referencingTypes.contains(Assay.class));
+        assertFalse(referencingTypes.contains(Study.class));
+    }
+
+    @Test
+    public void types_missing_from_the_compatibility_table_are_compatible_with_any_ref() {
+        assertTrue(referencingItemFinder.referencingTypes(StudyRef.class).contains(EgaDataset.class));
+    }
+
+    @Test
+    public void finds_items_referencing_the_ref() {
+        List<StoredSubmittable> items = referencingItemFinder.findItemsReferencing(submissionId, studyRef);
+
+        assertThat(items, is(Collections.singletonList(assay)));
+        Mockito.verify(studyRepository, Mockito.never()).findBySubmissionIdAndReference(anyString(), any(AbstractSubsRef.class));
+        Mockito.verify(egaDatasetRepository).findBySubmissionIdAndReference(submissionId, studyRef);
+    }
+}
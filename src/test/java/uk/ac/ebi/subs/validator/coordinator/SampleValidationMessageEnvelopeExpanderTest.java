@@ -38,7 +38,7 @@ import static org.mockito.Matchers.anyString;
 @RunWith(SpringJUnit4ClassRunner.class)
 @EnableMongoRepositories(basePackages = {"uk.ac.ebi.subs.repository.repos", "uk.ac.ebi.subs.validator.repository"})
 @EnableAutoConfiguration
-@SpringBootTest(classes = SampleValidationMessageEnvelopeExpander.class)
+@SpringBootTest(classes = {SampleValidationMessageEnvelopeExpander.class, BatchedReferenceResolver.class, ArchivedSampleResolver.class})
 @MockBeans({
         @MockBean(CoordinatorListener.class)
 })
@@ -190,4 +190,30 @@ public class SampleValidationMessageEnvelopeExpanderTest {
         final List<uk.ac.ebi.subs.data.submittable.Sample> sampleList = sampleValidationMessageEnvelope.getSampleList().stream().map(Submittable::getBaseSubmittable).collect(Collectors.toList());
         assertThat(sampleList, is(empty()));
     }
+
+    @Test
+    public void testExpandEnvelopeKeepsTheOrderOfTheRelationshipsForArchivedSamples() throws Exception {
+        final SampleValidationMessageEnvelope sampleValidationMessageEnvelope = createSampleValidationMessageEnvelope(submission.getId());
+        List<Sample> archivedSamples = MessageEnvelopeTestHelper.createSamples(submission, team, 3);
+
+        for (int i = 0; i < archivedSamples.size(); i++) {
+            Sample archivedSample = archivedSamples.get(i);
+            archivedSample.setAccession(UUID.randomUUID().toString());
+            long delay = (archivedSamples.size() - i) * 100L;
+            Mockito.when(submittableFinderService.findArchivedSampleByAccession(archivedSample.getAccession())).thenAnswer(invocation -> {
+                Thread.sleep(delay);
+                return archivedSample;
+            });
+
+            SampleRelationship sampleRelationship = new SampleRelationship();
+            sampleRelationship.setAccession(archivedSample.getAccession());
+            sampleValidationMessageEnvelope.getEntityToValidate().getSampleRelationships().add(sampleRelationship);
+        }
+
+        sampleValidatorMessageEnvelopeExpander.expandEnvelope(sampleValidationMessageEnvelope);
+
+        assertThat(sampleValidationMessageEnvelope.getSampleList().stream()
+                        .map(sampleSubmittable -> sampleSubmittable.getBaseSubmittable().getAccession()).collect(Collectors.toList()),
+                is(archivedSamples.stream().map(Sample::getAccession).collect(Collectors.toList())));
+    }
 }
\ No newline at end of file
@@ -32,7 +32,7 @@ import static org.junit.Assert.*;
 @RunWith(SpringJUnit4ClassRunner.class)
 @EnableMongoRepositories(basePackages = {"uk.ac.ebi.subs.repository.repos", "uk.ac.ebi.subs.validator.repository"})
 @EnableAutoConfiguration
-@SpringBootTest(classes = StudyValidationMessageEnvelopeExpander.class)
+@SpringBootTest(classes = {StudyValidationMessageEnvelopeExpander.class, BatchedReferenceResolver.class})
 public class StudyValidationMessageEnvelopeExpanderTest {
 
     @Autowired
@@ -0,0 +1,112 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import uk.ac.ebi.subs.data.component.SampleRef;
+import uk.ac.ebi.subs.data.component.StudyRef;
+import uk.ac.ebi.subs.data.component.Team;
+import uk.ac.ebi.subs.repository.model.Sample;
+import uk.ac.ebi.subs.repository.model.Study;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SubmissionReferenceIndexTest {
+
+    private SubmissionReferenceIndex submissionReferenceIndex;
+
+    private MongoTemplate mongoTemplate;
+    private BatchedReferenceResolver batchedReferenceResolver;
+
+    private CountDownLatch sampleLoadStarted;
+    private CountDownLatch sampleLoadReleased;
+
+    private Study study;
+    private StudyRef studyRef;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        mongoTemplate = Mockito.mock(MongoTemplate.class);
+        batchedReferenceResolver = Mockito.mock(BatchedReferenceResolver.class);
+        submissionReferenceIndex = new SubmissionReferenceIndex("submission", 100, mongoTemplate);
+        executor = Executors.newFixedThreadPool(2);
+
+        sampleLoadStarted = new CountDownLatch(1);
+        sampleLoadReleased = new CountDownLatch(1);
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(Sample.class))).thenAnswer(invocation -> {
+            sampleLoadStarted.countDown();
+            sampleLoadReleased.await(5, TimeUnit.SECONDS);
+            return Collections.emptyList();
+        });
+
+        study = new Study();
+        study.setAlias("study");
+        study.setTeam(Team.build("team"));
+        studyRef = new StudyRef();
+        studyRef.setAlias("study");
+        studyRef.setTeam("team");
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(Study.class))).thenReturn(Collections.singletonList(study));
+
+        Mockito.when(batchedReferenceResolver.resolve(eq(Sample.class), anyCollectionOf(SampleRef.class)))
+                .thenReturn(new BatchedReferenceResolver.ResolvedReferences<>());
+    }
+
+    @After
+    public void tearDown() {
+        sampleLoadReleased.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void lookupsOfOtherTypesDoNotWaitForATypeBeingLoaded() throws Exception {
+        Future<?> sampleLookup = executor.submit(() -> resolveSample("SAMEA1"));
+        assertThat(sampleLoadStarted.await(5, TimeUnit.SECONDS), is(true));
+
+        BatchedReferenceResolver.ResolvedReferences<Study> studies =
+                submissionReferenceIndex.resolve(Study.class, Collections.singletonList(studyRef), batchedReferenceResolver);
+
+        assertThat(studies.find(studyRef), sameInstance(study));
+        assertThat(sampleLookup.isDone(), is(false));
+
+        sampleLoadReleased.countDown();
+        sampleLookup.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void concurrentLookupsOfATypeLoadItOnce() throws Exception {
+        Future<?> firstLookup = executor.submit(() -> resolveSample("SAMEA1"));
+        assertThat(sampleLoadStarted.await(5, TimeUnit.SECONDS), is(true));
+        Future<?> secondLookup = executor.submit(() -> resolveSample("SAMEA2"));
+
+        sampleLoadReleased.countDown();
+        firstLookup.get(5, TimeUnit.SECONDS);
+        secondLookup.get(5, TimeUnit.SECONDS);
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Sample.class));
+    }
+
+    private void resolveSample(String accession) {
+        SampleRef sampleRef = new SampleRef();
+        sampleRef.setAccession(accession);
+        submissionReferenceIndex.resolve(Sample.class, Collections.singletonList(sampleRef), batchedReferenceResolver);
+    }
+}
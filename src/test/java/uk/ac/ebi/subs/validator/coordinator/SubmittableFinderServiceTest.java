@@ -43,6 +43,9 @@ public class SubmittableFinderServiceTest {
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    private BioSamplesLookupService bioSamplesLookupService;
+
     @MockBean
     private RestTemplate restTemplate;
 
@@ -55,6 +58,7 @@ public class SubmittableFinderServiceTest {
 
     @Before
     public void setup() {
+        bioSamplesLookupService.invalidateAll();
         team = MessageEnvelopeTestHelper.createTeam();
         submission = MessageEnvelopeTestHelper.saveNewSubmission(submissionStatusRepository, submissionRepository, team);
         sample = MessageEnvelopeTestHelper.createSamples(submission, team, 1).get(0);
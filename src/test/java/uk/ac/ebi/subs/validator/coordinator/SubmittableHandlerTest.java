@@ -0,0 +1,90 @@
+package uk.ac.ebi.subs.validator.coordinator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import uk.ac.ebi.subs.data.submittable.Sample;
+import uk.ac.ebi.subs.messaging.Exchanges;
+import uk.ac.ebi.subs.repository.model.DataType;
+import uk.ac.ebi.subs.validator.TestUtils;
+import uk.ac.ebi.subs.validator.data.ValidationMessageEnvelope;
+import uk.ac.ebi.subs.validator.data.ValidationResult;
+import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SubmittableHandlerTest {
+
+    private SubmittableHandler submittableHandler;
+
+    private RabbitTemplate rabbitTemplate;
+    private MessageConverter messageConverter;
+    private ReferenceDataCache referenceDataCache;
+
+    private Sample sample;
+    private ValidationMessageEnvelope<?> envelope;
+    private Message message;
+
+    @Before
+    public void setUp() {
+        RabbitMessagingTemplate rabbitMessagingTemplate = Mockito.mock(RabbitMessagingTemplate.class);
+        rabbitTemplate = Mockito.mock(RabbitTemplate.class);
+        messageConverter = Mockito.mock(MessageConverter.class);
+        referenceDataCache = Mockito.mock(ReferenceDataCache.class);
+        CoordinatorValidationResultService coordinatorValidationResultService = Mockito.mock(CoordinatorValidationResultService.class);
+        ValidationEnvelopeFactory validationEnvelopeFactory = Mockito.mock(ValidationEnvelopeFactory.class);
+
+        sample = new Sample();
+        sample.setId("sample1");
+        envelope = Mockito.mock(ValidationMessageEnvelope.class);
+        message = new Message(new byte[0], new MessageProperties());
+
+        ValidationResult validationResult = new ValidationResult();
+        validationResult.setEntityUuid(sample.getId());
+
+        Mockito.when(rabbitMessagingTemplate.getRabbitTemplate()).thenReturn(rabbitTemplate);
+        Mockito.when(rabbitTemplate.getMessageConverter()).thenReturn(messageConverter);
+        Mockito.when(messageConverter.toMessage(same(envelope), any(MessageProperties.class))).thenReturn(message);
+        Mockito.when(coordinatorValidationResultService.fetchValidationResultDocument(same(sample), anySetOf(ValidationAuthor.class)))
+                .thenReturn(Optional.of(validationResult));
+        Mockito.<ValidationMessageEnvelope<?>>when(validationEnvelopeFactory.buildValidationMessageEnvelope(same(sample), same(validationResult), any(), any()))
+                .thenReturn(envelope);
+
+        submittableHandler = new SubmittableHandler(rabbitMessagingTemplate, referenceDataCache,
+                coordinatorValidationResultService, validationEnvelopeFactory);
+    }
+
+    @Test
+    public void envelopeIsSerializedOnceForAllAuthors() {
+        DataType dataType = TestUtils.createDataType("dt1",
+                Arrays.asList(ValidationAuthor.Core, ValidationAuthor.JsonSchema, ValidationAuthor.Taxonomy));
+        Mockito.when(referenceDataCache.findDataType(dataType.getId())).thenReturn(dataType);
+
+        assertThat(submittableHandler.handleSubmittable(sample, "sub1", dataType.getId(), null), is(true));
+
+        verify(messageConverter, times(1)).toMessage(same(envelope), any(MessageProperties.class));
+
+        ArgumentCaptor<String> routingKeys = ArgumentCaptor.forClass(String.class);
+        verify(rabbitTemplate, times(3)).send(eq(Exchanges.SUBMISSIONS), routingKeys.capture(), same(message));
+        assertThat(new HashSet<>(routingKeys.getAllValues()), is(new HashSet<>(Arrays.asList(
+                "core.sample.validation", "jsonschema.sample.validation", "taxonomy.sample.validation"))));
+    }
+}
@@ -0,0 +1,196 @@
+package uk.ac.ebi.subs.validator.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
+import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
+import uk.ac.ebi.subs.validator.error.PendingValidationResultsException;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class DeferredValidationServiceTest {
+
+    private DeferredValidationService deferredValidationService;
+
+    private SingleValidationResultsEnvelope results;
+    private SingleValidationResultsEnvelope failureResults;
+    private Consumer<SingleValidationResultsEnvelope> resultHandler;
+    private Function<String, SingleValidationResultsEnvelope> failureResultsBuilder;
+    private Runnable requeue;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        deferredValidationService = new DeferredValidationService(500, 50, 100, 1, 10);
+
+        results = Mockito.mock(SingleValidationResultsEnvelope.class);
+        failureResults = Mockito.mock(SingleValidationResultsEnvelope.class);
+        resultHandler = Mockito.mock(Consumer.class);
+        failureResultsBuilder = Mockito.mock(Function.class);
+        Mockito.when(failureResultsBuilder.apply(anyString())).thenReturn(failureResults);
+        requeue = Mockito.mock(Runnable.class);
+    }
+
+    @After
+    public void tearDown() {
+        deferredValidationService.shutdown();
+    }
+
+    @Test
+    public void validationWithoutPendingResultsIsHandledStraightAway() {
+        validate(() -> results);
+
+        verify(resultHandler).accept(results);
+    }
+
+    @Test
+    public void pendingValidationIsRetriedUntilTheResultsArrive() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        Supplier<SingleValidationResultsEnvelope> validation = () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw pending();
+            }
+            return results;
+        };
+
+        validate(validation);
+
+        verify(resultHandler, never()).accept(results);
+        verify(resultHandler, timeout(2000)).accept(results);
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    public void pendingValidationIsGivenUpWithFailureResultsAfterTheMaximumWait() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+
+        validate(() -> {
+            attempts.incrementAndGet();
+            throw pending();
+        });
+
+        verify(resultHandler, timeout(2000)).accept(failureResults);
+        int attemptsAfterDeadline = attempts.get();
+        Thread.sleep(300);
+
+        assertThat(attempts.get(), is(attemptsAfterDeadline));
+        verify(resultHandler, never()).accept(results);
+        verify(requeue, never()).run();
+    }
+
+    @Test
+    public void deferredValidationFailingOnRetryIsRequeued() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        validate(() -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw pending();
+            }
+            throw new IllegalStateException();
+        });
+
+        verify(requeue, timeout(2000)).run();
+        verify(resultHandler, never()).accept(Mockito.any());
+    }
+
+    @Test
+    public void callerWaitsForTheResultsOnceTheParkedValidationsAreAllTaken() {
+        deferredValidationService.shutdown();
+        deferredValidationService = new DeferredValidationService(60000, 50, 50, 1, 1);
+
+        validate(() -> {
+            throw pending();
+        });
+
+        AtomicInteger attempts = new AtomicInteger();
+        validate(() -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw pending();
+            }
+            return results;
+        });
+
+        verify(resultHandler).accept(results);
+        assertThat(attempts.get(), is(2));
+    }
+
+    @Test
+    public void parkedValidationsAreRequeuedOnShutdown() {
+        deferredValidationService.shutdown();
+        deferredValidationService = new DeferredValidationService(60000, 30000, 30000, 1, 10);
+
+        validate(() -> {
+            throw pending();
+        });
+        verify(requeue, never()).run();
+
+        deferredValidationService.shutdown();
+
+        verify(requeue).run();
+        verify(resultHandler, never()).accept(Mockito.any());
+    }
+
+    @Test
+    public void pendingValidationIsResumedWhenTheAuthorReports() {
+        deferredValidationService.shutdown();
+        deferredValidationService = new DeferredValidationService(60000, 30000, 30000, 1, 10);
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        validate(() -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw pending();
+            }
+            return results;
+        });
+
+        deferredValidationService.validationResultUpdated("vr1", ValidationAuthor.Taxonomy);
+        deferredValidationService.validationResultUpdated("vr2", ValidationAuthor.Ena);
+        verify(resultHandler, never()).accept(results);
+
+        deferredValidationService.validationResultUpdated("vr1", ValidationAuthor.Ena);
+        verify(resultHandler, timeout(2000)).accept(results);
+        assertThat(attempts.get(), is(2));
+    }
+
+    @Test
+    public void reportArrivingWhileTheValidationIsParkedIsNotMissed() {
+        deferredValidationService.shutdown();
+        deferredValidationService = new DeferredValidationService(60000, 30000, 30000, 1, 10);
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        validate(() -> {
+            if (attempts.incrementAndGet() < 2) {
+                deferredValidationService.validationResultUpdated("vr1", ValidationAuthor.Ena);
+                throw pending();
+            }
+            return results;
+        });
+
+        verify(resultHandler, timeout(2000)).accept(results);
+        assertThat(attempts.get(), is(2));
+    }
+
+    private void validate(Supplier<SingleValidationResultsEnvelope> validation) {
+        deferredValidationService.validate("test", validation, resultHandler, failureResultsBuilder, requeue);
+    }
+
+    private static PendingValidationResultsException pending() {
+        return new PendingValidationResultsException("vr1", Collections.singletonList(ValidationAuthor.Ena));
+    }
+}
@@ -11,7 +11,6 @@ import uk.ac.ebi.subs.data.component.AssayRef;
 import uk.ac.ebi.subs.data.submittable.Assay;
 import uk.ac.ebi.subs.data.submittable.AssayData;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.AssayDataValidationMessageEnvelope;
@@ -21,6 +20,7 @@ import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
 import uk.ac.ebi.subs.validator.filereference.FileReferenceValidator;
 import uk.ac.ebi.subs.validator.model.Submittable;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.Arrays;
 import java.util.List;
@@ -42,7 +42,7 @@ public class AssayDataHandlerTest {
     private FileReferenceValidator fileReferenceValidator;
 
     @MockBean
-    private DataTypeRepository dataTypeRepository;
+    private ReferenceDataCache referenceDataCache;
 
     private final String dataTypeId = "dataTypeId";
     private DataType dataType;
@@ -64,7 +64,7 @@ public class AssayDataHandlerTest {
     public void buildUp() {
 
         //setup the handler
-        assayDataHandler = new AssayDataHandler(referenceValidator, attributeValidator, dataTypeRepository);
+        assayDataHandler = new AssayDataHandler(referenceValidator, attributeValidator, referenceDataCache);
 
         //refs
         assayRef = new AssayRef();
@@ -167,7 +167,7 @@ public class AssayDataHandlerTest {
     }
 
     private void mockRepoCalls() {
-        when(dataTypeRepository.findOne(dataTypeId))
+        when(referenceDataCache.findDataType(dataTypeId))
                 .thenReturn(dataType);
     }
 }
@@ -13,7 +13,6 @@ import uk.ac.ebi.subs.data.submittable.Assay;
 import uk.ac.ebi.subs.data.submittable.Sample;
 import uk.ac.ebi.subs.data.submittable.Study;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.AssayValidationMessageEnvelope;
@@ -21,6 +20,7 @@ import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
 import uk.ac.ebi.subs.validator.model.Submittable;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.Collections;
 import java.util.List;
@@ -49,7 +49,7 @@ public class AssayHandlerTest {
     private static final ValidationAuthor VALIDATION_AUTHOR_CORE = ValidationAuthor.Core;
 
     @MockBean
-    private DataTypeRepository dataTypeRepository;
+    private ReferenceDataCache referenceDataCache;
 
     private final String dataTypeId = "dataTypeId";
     private DataType dataType;
@@ -67,7 +67,7 @@ public class AssayHandlerTest {
     public void buildUp() {
 
         //setup the handler
-        assayHandler = new AssayHandler(referenceValidator, attributeValidator,dataTypeRepository);
+        assayHandler = new AssayHandler(referenceValidator, attributeValidator,referenceDataCache);
 
         //refs
         studyRef = new StudyRef();
@@ -177,7 +177,7 @@ public class AssayHandlerTest {
     }
 
     private void mockRepoCalls() {
-        when(dataTypeRepository.findOne(dataTypeId))
+        when(referenceDataCache.findDataType(dataTypeId))
                 .thenReturn(dataType);
     }
 }
@@ -9,7 +9,6 @@ import org.springframework.test.context.junit4.SpringRunner;
 import uk.ac.ebi.subs.data.component.SampleRelationship;
 import uk.ac.ebi.subs.data.submittable.Sample;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.SampleValidationMessageEnvelope;
@@ -18,6 +17,7 @@ import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
 import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
 import uk.ac.ebi.subs.validator.model.Submittable;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -41,7 +41,7 @@ public class SampleHandlerTest {
     private AttributeValidator attributeValidator;
 
     @MockBean
-    private DataTypeRepository dataTypeRepository;
+    private ReferenceDataCache referenceDataCache;
 
     private final String sampleId = "sampleId";
     private final String validationResultId = "vrID";
@@ -61,7 +61,7 @@ public class SampleHandlerTest {
     @Before
     public void buildUp() {
         //setup the handler
-        sampleHandler = new SampleHandler(referenceValidator, attributeValidator, dataTypeRepository);
+        sampleHandler = new SampleHandler(referenceValidator, attributeValidator, referenceDataCache);
 
         //refs
         sampleRelationship = new SampleRelationship();
@@ -139,7 +139,7 @@ public class SampleHandlerTest {
     }
 
     private void mockRepoCalls() {
-        when(dataTypeRepository.findOne(dataTypeId))
+        when(referenceDataCache.findDataType(dataTypeId))
                 .thenReturn(dataType);
     }
 
@@ -10,7 +10,6 @@ import uk.ac.ebi.subs.data.component.ProjectRef;
 import uk.ac.ebi.subs.data.submittable.Project;
 import uk.ac.ebi.subs.data.submittable.Study;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
@@ -18,6 +17,7 @@ import uk.ac.ebi.subs.validator.data.StudyValidationMessageEnvelope;
 import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
 import uk.ac.ebi.subs.validator.model.Submittable;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -53,7 +53,7 @@ public class StudyHandlerTest {
     private Study study;
 
     @MockBean
-    private DataTypeRepository dataTypeRepository;
+    private ReferenceDataCache referenceDataCache;
 
     private final String dataTypeId = "dataTypeId";
     private DataType dataType;
@@ -62,7 +62,7 @@ public class StudyHandlerTest {
     @Before
     public void buildUp() {
         //setup the handler
-        studyHandler = new StudyHandler(attributeValidator, referenceValidator, dataTypeRepository);
+        studyHandler = new StudyHandler(attributeValidator, referenceValidator, referenceDataCache);
 
         //refs
         projectRef = new ProjectRef();
@@ -138,7 +138,7 @@ public class StudyHandlerTest {
     }
 
     private void mockRepoCalls() {
-        when(dataTypeRepository.findOne(dataTypeId))
+        when(referenceDataCache.findDataType(dataTypeId))
                 .thenReturn(dataType);
     }
 }
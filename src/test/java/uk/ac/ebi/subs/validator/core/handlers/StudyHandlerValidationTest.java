@@ -11,11 +11,11 @@ import org.springframework.test.context.junit4.SpringRunner;
 import uk.ac.ebi.subs.data.component.ProjectRef;
 import uk.ac.ebi.subs.data.submittable.Study;
 import uk.ac.ebi.subs.repository.model.DataType;
-import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.core.validators.AttributeValidator;
 import uk.ac.ebi.subs.validator.core.validators.ReferenceValidator;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
 import uk.ac.ebi.subs.validator.data.StudyValidationMessageEnvelope;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
 
 import java.util.List;
 
@@ -44,7 +44,7 @@ public class StudyHandlerValidationTest {
     private Study study;
 
     @MockBean
-    private DataTypeRepository dataTypeRepository;
+    private ReferenceDataCache referenceDataCache;
 
     private final String dataTypeId = "dataTypeId";
     private DataType dataType;
@@ -53,7 +53,7 @@ public class StudyHandlerValidationTest {
     @Before
     public void buildUp() {
         //setup the handler
-        studyHandler = new StudyHandler(attributeValidator, spyReferenceValidator, dataTypeRepository);
+        studyHandler = new StudyHandler(attributeValidator, spyReferenceValidator, referenceDataCache);
 
         //refs
         projectRef = new ProjectRef();
@@ -86,7 +86,7 @@ public class StudyHandlerValidationTest {
     }
 
     private void mockRepoCalls() {
-        when(dataTypeRepository.findOne(dataTypeId))
+        when(referenceDataCache.findDataType(dataTypeId))
                 .thenReturn(dataType);
     }
 
@@ -17,12 +17,14 @@ import uk.ac.ebi.subs.repository.repos.submittables.SampleGroupRepository;
 import uk.ac.ebi.subs.repository.repos.submittables.SampleRepository;
 import uk.ac.ebi.subs.repository.repos.submittables.StudyRepository;
 import uk.ac.ebi.subs.repository.repos.submittables.SubmittableRepository;
+import uk.ac.ebi.subs.validator.core.DeferredValidationService;
 import uk.ac.ebi.subs.validator.core.handlers.ValidationTestHelper;
 import uk.ac.ebi.subs.validator.data.SingleValidationResult;
+import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
 import uk.ac.ebi.subs.validator.data.ValidationResult;
 import uk.ac.ebi.subs.validator.data.structures.SingleValidationResultStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
-import uk.ac.ebi.subs.validator.repository.ValidationResultRepository;
+import uk.ac.ebi.subs.validator.error.PendingValidationResultsException;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -32,6 +34,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(SpringRunner.class)
 public class ReferenceRequirementsValidatorTest {
@@ -48,7 +53,6 @@ public class ReferenceRequirementsValidatorTest {
     DataType.RefRequirement refRequirement;
 
     StudyRepository studyRepository;
-    ValidationResultRepository validationResultRepository;
 
     String expectedDataTypeOfReferencedEntity = "barId";
 
@@ -85,14 +89,12 @@ public class ReferenceRequirementsValidatorTest {
 
         //provide mocks for repository methods
         this.studyRepository = Mockito.mock(StudyRepository.class);
-        this.validationResultRepository = Mockito.mock(ValidationResultRepository.class);
 
         Map<Class<? extends StoredSubmittable>, SubmittableRepository<? extends StoredSubmittable>> repositoryMap = new HashMap<>();
         repositoryMap.put(uk.ac.ebi.subs.repository.model.Study.class,studyRepository);
 
         //finally, an actual validator
-        this.validator = new ReferenceRequirementsValidator(repositoryMap,validationResultRepository);
-        this.validator.setMaximumTimeToWaitInMillis(3000); // make it give up quickly, or the tests will take too long
+        this.validator = new ReferenceRequirementsValidator(repositoryMap);
 
     }
 
@@ -141,9 +143,10 @@ public class ReferenceRequirementsValidatorTest {
 
     @Test
     /**
-     * referenced entity does not immediatly have validation results for the relevant author, but it should pass eventually
+     * referenced entity does not have validation results for the relevant author yet, the validator should report
+     * the pending authors instead of waiting for them
      */
-    public void validator_copes_with_pending_validation() {
+    public void pending_validation_is_reported() {
         String dataTypeId = expectedDataTypeOfReferencedEntity;
         Collection<ValidationAuthor> authors = Collections.singletonList(ValidationAuthor.Ena);
 
@@ -155,33 +158,19 @@ public class ReferenceRequirementsValidatorTest {
                 authors //pending
         );
 
-        uk.ac.ebi.subs.repository.model.Study storedStudyWithPassingResults = buildStoredStudy(
-                referencedEntity.getId(),
-                dataTypeId,
-                authors, //passing
-                Collections.emptyList(),
-                Collections.emptyList()
-        );
-
-
         Mockito.when(studyRepository.findOne(referencedEntity.getId()))
                 .thenReturn(storedStudyWithPendingResults)
         ;
 
-        Mockito.when(validationResultRepository.findOne(storedStudyWithPendingResults.getValidationResult().getUuid()))
-                .thenReturn(
-                        storedStudyWithPendingResults.getValidationResult(), //pending results on first call
-                        storedStudyWithPassingResults.getValidationResult()  //passing results on second call
-                );
-
-
-        List<SingleValidationResult> results = this.validator.validate(entityUnderValidation, dataTypeOfEntityUnderValidation, reference, referencedEntity);
-        Assert.assertTrue(results.isEmpty());
+        try {
+            this.validator.validate(entityUnderValidation, dataTypeOfEntityUnderValidation, reference, referencedEntity);
+            Assert.fail("Pending validation results should have been reported");
+        } catch (PendingValidationResultsException e) {
+            Assert.assertEquals(storedStudyWithPendingResults.getValidationResult().getUuid(), e.getValidationResultUuid());
+            Assert.assertEquals(new HashSet<>(authors), new HashSet<>(e.getPendingAuthors()));
+        }
 
         Mockito.verify(studyRepository).findOne(referencedEntity.getId());
-
-        Mockito.verify(validationResultRepository, Mockito.times(2))
-                .findOne(storedStudyWithPendingResults.getValidationResult().getUuid());
     }
 
     @Test
@@ -206,11 +195,12 @@ public class ReferenceRequirementsValidatorTest {
         Mockito.verify(studyRepository).findOne(referencedEntity.getId());
     }
 
-    @Test(expected = RuntimeException.class)
+    @Test
     /**
-     * referenced entity does not immediatly have validation results for the relevant author, but it should pass eventually
+     * referenced entity never gets validation results for the relevant author, the deferred validation should be
+     * given up with an error
      */
-    public void validator_errors_if_pending_for_too_long() {
+    public void validator_errors_if_pending_for_too_long() throws InterruptedException {
         String dataTypeId = expectedDataTypeOfReferencedEntity;
         Collection<ValidationAuthor> authors = Collections.singletonList(ValidationAuthor.Ena);
 
@@ -227,12 +217,29 @@ public class ReferenceRequirementsValidatorTest {
                         storedStudyWithPendingResults
                 );
 
-        Mockito.when(validationResultRepository.findOne(storedStudyWithPendingResults.getValidationResult().getUuid()))
-                .thenReturn(
-                        storedStudyWithPendingResults.getValidationResult()
-                );
-
-        this.validator.validate(entityUnderValidation, dataTypeOfEntityUnderValidation, reference, referencedEntity);
+        DeferredValidationService deferredValidationService = new DeferredValidationService(300, 50, 100, 1, 10);
+        BlockingQueue<SingleValidationResultsEnvelope> sentResults = new LinkedBlockingQueue<>();
+        Runnable requeue = Mockito.mock(Runnable.class);
+        try {
+            deferredValidationService.validate(
+                    "test",
+                    () -> new SingleValidationResultsEnvelope(
+                            this.validator.validate(entityUnderValidation, dataTypeOfEntityUnderValidation, reference, referencedEntity),
+                            1, "vr", ValidationAuthor.Core),
+                    sentResults::add,
+                    message -> new SingleValidationResultsEnvelope(
+                            Collections.singletonList(ValidatorHelper.singleValidationResult(
+                                    entityUnderValidation.getId(), ValidationAuthor.Core, SingleValidationResultStatus.Error)),
+                            1, "vr", ValidationAuthor.Core),
+                    requeue);
+
+            SingleValidationResultsEnvelope results = sentResults.poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull(results);
+            Assert.assertEquals(SingleValidationResultStatus.Error, results.getSingleValidationResults().get(0).getValidationStatus());
+            Mockito.verify(requeue, Mockito.never()).run();
+        } finally {
+            deferredValidationService.shutdown();
+        }
     }
 
     @Test
@@ -265,8 +272,7 @@ public class ReferenceRequirementsValidatorTest {
         repositoryMap.put(uk.ac.ebi.subs.repository.model.Sample.class, sampleRepository);
         repositoryMap.put(uk.ac.ebi.subs.repository.model.SampleGroup.class, Mockito.mock(SampleGroupRepository.class));
 
-        ReferenceRequirementsValidator validator = new ReferenceRequirementsValidator(repositoryMap, validationResultRepository);
-        validator.setMaximumTimeToWaitInMillis(3000);
+        ReferenceRequirementsValidator validator = new ReferenceRequirementsValidator(repositoryMap);
 
         List<SingleValidationResult> results = validator.validate(entityUnderValidation, dataTypeOfEntityUnderValidation, sampleRef, refEntity);
         Assert.assertTrue(results.isEmpty());
@@ -0,0 +1,121 @@
+package uk.ac.ebi.subs.validator.flipper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.amqp.rabbit.core.RabbitMessagingTemplate;
+import org.springframework.boot.actuate.metrics.Metric;
+import uk.ac.ebi.subs.messaging.Exchanges;
+import uk.ac.ebi.subs.validator.data.AggregatorToFlipperEnvelope;
+import uk.ac.ebi.subs.validator.messaging.AggregatorRoutingKeys;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class StatusFlipperListenerTest {
+
+    private StatusFlipperValidationResultService statusFlipperValidationResultService;
+    private RabbitMessagingTemplate rabbitMessagingTemplate;
+    private StatusFlipperListener statusFlipperListener;
+
+    @Before
+    public void setUp() {
+        statusFlipperValidationResultService = Mockito.mock(StatusFlipperValidationResultService.class);
+        rabbitMessagingTemplate = Mockito.mock(RabbitMessagingTemplate.class);
+        statusFlipperListener = new StatusFlipperListener(statusFlipperValidationResultService, rabbitMessagingTemplate, 200, 100, 1);
+    }
+
+    @After
+    public void tearDown() {
+        statusFlipperListener.shutdown();
+    }
+
+    @Test
+    public void updatesOfTheSameDocumentAreEvaluatedOnceAtTheLatestVersion() {
+        statusFlipperListener.processUpdate(new AggregatorToFlipperEnvelope("vr1", 2));
+        statusFlipperListener.processUpdate(new AggregatorToFlipperEnvelope("vr1", 3));
+        statusFlipperListener.processUpdate(new AggregatorToFlipperEnvelope("vr1", 2));
+        statusFlipperListener.processUpdate(new AggregatorToFlipperEnvelope("vr2", 1));
+
+        verify(statusFlipperValidationResultService, never()).updateValidationResult(any());
+
+        ArgumentCaptor<AggregatorToFlipperEnvelope> evaluated = ArgumentCaptor.forClass(AggregatorToFlipperEnvelope.class);
+        verify(statusFlipperValidationResultService, timeout(2000).times(2)).updateValidationResult(evaluated.capture());
+
+        Map<String, Integer> evaluatedVersions = evaluated.getAllValues().stream().collect(Collectors.toMap(
+                AggregatorToFlipperEnvelope::getValidationResultUuid, AggregatorToFlipperEnvelope::getValidationResultVersion));
+        assertThat(evaluatedVersions.get("vr1"), is(3));
+        assertThat(evaluatedVersions.get("vr2"), is(1));
+
+        Map<String, Number> metrics = statusFlipperListener.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+        assertThat(metrics.get(StatusFlipperListener.METRIC_PREFIX + "received").longValue(), is(4L));
+        assertThat(metrics.get(StatusFlipperListener.METRIC_PREFIX + "evaluated").longValue(), is(2L));
+        assertThat(metrics.get(StatusFlipperListener.METRIC_PREFIX + "collapsed").longValue(), is(2L));
+    }
+
+    @Test
+    public void updatesWaitingOnShutdownAreEvaluated() {
+        statusFlipperListener.processUpdate(new AggregatorToFlipperEnvelope("vr1", 2));
+
+        statusFlipperListener.shutdown();
+
+        verify(statusFlipperValidationResultService, times(1)).updateValidationResult(any());
+    }
+
+    @Test
+    public void failedEvaluationsAreRetried() {
+        Mockito.when(statusFlipperValidationResultService.updateValidationResult(any()))
+                .thenThrow(new IllegalStateException())
+                .thenReturn(true);
+
+        statusFlipperListener.processUpdate(new AggregatorToFlipperEnvelope("vr1", 2));
+
+        verify(statusFlipperValidationResultService, timeout(2000).times(2)).updateValidationResult(any());
+        assertThat(metric(StatusFlipperListener.METRIC_PREFIX + "failed"), is(1L));
+        assertThat(metric(StatusFlipperListener.METRIC_PREFIX + "waiting"), is(0L));
+    }
+
+    @Test
+    public void updatesFailingOnShutdownArePublishedAgain() {
+        Mockito.when(statusFlipperValidationResultService.updateValidationResult(any())).thenThrow(new IllegalStateException());
+
+        statusFlipperListener.processUpdate(new AggregatorToFlipperEnvelope("vr1", 2));
+
+        statusFlipperListener.shutdown();
+
+        ArgumentCaptor<AggregatorToFlipperEnvelope> published = ArgumentCaptor.forClass(AggregatorToFlipperEnvelope.class);
+        verify(rabbitMessagingTemplate).convertAndSend(eq(Exchanges.SUBMISSIONS),
+                eq(AggregatorRoutingKeys.EVENT_VALIDATION_RESULT_DOCUMENT_UPDATED), published.capture());
+        assertThat(published.getValue().getValidationResultUuid(), is("vr1"));
+        assertThat(published.getValue().getValidationResultVersion(), is(2));
+    }
+
+    @Test
+    public void updatesAreEvaluatedStraightAwayWithoutCoalescingWindow() {
+        statusFlipperListener.shutdown();
+        statusFlipperListener = new StatusFlipperListener(statusFlipperValidationResultService, rabbitMessagingTemplate, 0, 100, 1);
+
+        statusFlipperListener.processUpdate(new AggregatorToFlipperEnvelope("vr1", 2));
+
+        verify(statusFlipperValidationResultService, times(1)).updateValidationResult(any());
+    }
+
+    private long metric(String name) {
+        return statusFlipperListener.metrics().stream()
+                .filter(metric -> metric.getName().equals(name))
+                .findFirst()
+                .map(metric -> metric.getValue().longValue())
+                .orElseThrow(IllegalStateException::new);
+    }
+}
@@ -6,6 +6,10 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import uk.ac.ebi.subs.validator.data.AggregatorToFlipperEnvelope;
@@ -14,6 +18,7 @@ import uk.ac.ebi.subs.validator.data.ValidationResult;
 import uk.ac.ebi.subs.validator.data.structures.GlobalValidationStatus;
 import uk.ac.ebi.subs.validator.data.structures.ValidationAuthor;
 import uk.ac.ebi.subs.validator.repository.ValidationResultRepository;
+import uk.ac.ebi.subs.validator.util.BlankValidationResultMaps;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -40,6 +45,9 @@ public class StatusFlipperValidationResultServiceTest {
     @Autowired
     StatusFlipperValidationResultService service;
 
+    @Autowired
+    MongoTemplate mongoTemplate;
+
     private ValidationResult existingValidationResult;
     private AggregatorToFlipperEnvelope envelope;
 
@@ -98,6 +106,29 @@ public class StatusFlipperValidationResultServiceTest {
 
     }
 
+    @Test
+    public void noPendingAuthorShouldChangeValidationStatusToComplete() {
+        setPendingAuthors(Collections.emptyList());
+
+        assertThat(service.updateValidationResult(envelope), is(true));
+
+        assertThat(repository.findOne(existingValidationResult.getUuid()).getValidationStatus(), is(GlobalValidationStatus.Complete));
+    }
+
+    @Test
+    public void pendingAuthorShouldLeaveValidationStatusPending() {
+        setPendingAuthors(Collections.singletonList(ValidationAuthor.Ena.name()));
+
+        assertThat(service.updateValidationResult(envelope), is(true));
+
+        assertThat(repository.findOne(existingValidationResult.getUuid()).getValidationStatus(), is(GlobalValidationStatus.Pending));
+    }
+
+    private void setPendingAuthors(List<String> pendingAuthors) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(existingValidationResult.getUuid())),
+                Update.update(BlankValidationResultMaps.PENDING_AUTHORS_FIELD, pendingAuthors), ValidationResult.class);
+    }
+
     private ValidationResult createValidationResult(Map<ValidationAuthor, List<SingleValidationResult>> expectedResults, int version, String resultUuid) {
         ValidationResult validationResult = new ValidationResult();
         validationResult.setUuid(resultUuid);
@@ -0,0 +1,68 @@
+package uk.ac.ebi.subs.validator.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class MeteredConnectionManagerTest {
+
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("localhost", 8080));
+
+    private MeteredConnectionManager connectionManager;
+
+    @Before
+    public void setUp() {
+        connectionManager = new MeteredConnectionManager(30000);
+        connectionManager.setDefaultMaxPerRoute(1);
+    }
+
+    @After
+    public void tearDown() {
+        connectionManager.shutdown();
+    }
+
+    @Test
+    public void leasedConnectionsAreReported() throws Exception {
+        HttpClientConnection connection = connectionManager.requestConnection(ROUTE, null).get(1, TimeUnit.SECONDS);
+
+        Map<String, Number> metrics = metrics();
+        assertThat(metrics.get("http.pool.leased"), is(1));
+        assertThat(metrics.get("http.pool.routes"), is(1));
+        assertThat(metrics.get("http.pool.lease.requests"), is(1L));
+
+        connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        assertThat(metrics().get("http.pool.leased"), is(0));
+    }
+
+    @Test
+    public void timedOutLeasesAreReported() throws Exception {
+        connectionManager.requestConnection(ROUTE, null).get(1, TimeUnit.SECONDS);
+
+        try {
+            connectionManager.requestConnection(ROUTE, null).get(50, TimeUnit.MILLISECONDS);
+        } catch (ConnectionPoolTimeoutException expected) {
+            // the only connection of the route is still leased
+        }
+
+        Map<String, Number> metrics = metrics();
+        assertThat(metrics.get("http.pool.lease.requests"), is(2L));
+        assertThat(metrics.get("http.pool.lease.timeouts"), is(1L));
+        assertThat(metrics.get("http.pool.wait.max-ms").longValue() >= 50, is(true));
+    }
+
+    private Map<String, Number> metrics() {
+        return connectionManager.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+    }
+}
@@ -0,0 +1,56 @@
+package uk.ac.ebi.subs.validator.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ResponseSizeLimitInterceptorTest {
+
+    private final ResponseSizeLimitInterceptor interceptor = new ResponseSizeLimitInterceptor(10);
+
+    @Test
+    public void responseWithinTheLimitIsRead() throws IOException {
+        HttpResponse response = response();
+        response.setEntity(new StringEntity("[]"));
+
+        interceptor.process(response, new BasicHttpContext());
+
+        assertThat(EntityUtils.toString(response.getEntity()), is("[]"));
+    }
+
+    @Test(expected = ResponseSizeLimitInterceptor.ResponseTooLargeException.class)
+    public void responseDeclaredLongerThanTheLimitIsRefused() throws IOException {
+        HttpResponse response = response();
+        response.setEntity(new StringEntity("{\"errors\": []}"));
+
+        interceptor.process(response, new BasicHttpContext());
+    }
+
+    @Test(expected = ResponseSizeLimitInterceptor.ResponseTooLargeException.class)
+    public void responseOfUnknownLengthIsCutAtTheLimit() throws IOException {
+        HttpResponse response = response();
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new ByteArrayInputStream("{\"errors\": []}".getBytes()));
+        response.setEntity(entity);
+
+        interceptor.process(response, new BasicHttpContext());
+
+        EntityUtils.toString(response.getEntity());
+    }
+
+    private static HttpResponse response() {
+        return new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+    }
+}
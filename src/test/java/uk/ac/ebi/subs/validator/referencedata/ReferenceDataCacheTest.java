@@ -0,0 +1,84 @@
+package uk.ac.ebi.subs.validator.referencedata;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.metrics.Metric;
+import uk.ac.ebi.subs.repository.model.Checklist;
+import uk.ac.ebi.subs.repository.model.DataType;
+import uk.ac.ebi.subs.repository.repos.ChecklistRepository;
+import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ReferenceDataCacheTest {
+
+    private DataTypeRepository dataTypeRepository;
+    private ChecklistRepository checklistRepository;
+    private ReferenceDataCache referenceDataCache;
+
+    private DataType dataType;
+    private Checklist checklist;
+
+    @Before
+    public void setUp() {
+        dataTypeRepository = Mockito.mock(DataTypeRepository.class);
+        checklistRepository = Mockito.mock(ChecklistRepository.class);
+        referenceDataCache = new ReferenceDataCache(dataTypeRepository, checklistRepository, 60000, 100);
+
+        dataType = new DataType();
+        dataType.setId("dt1");
+        checklist = new Checklist();
+        checklist.setId("cl1");
+
+        Mockito.when(dataTypeRepository.findOne(dataType.getId())).thenReturn(dataType);
+        Mockito.when(checklistRepository.findOne(checklist.getId())).thenReturn(checklist);
+    }
+
+    @Test
+    public void repeatedLookupsReadTheRepositoryOnce() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(referenceDataCache.findDataType(dataType.getId()), is(dataType));
+            assertThat(referenceDataCache.findChecklist(checklist.getId()), is(checklist));
+        }
+
+        verify(dataTypeRepository, times(1)).findOne(dataType.getId());
+        verify(checklistRepository, times(1)).findOne(checklist.getId());
+
+        Map<String, Number> metrics = metrics();
+        assertThat(metrics.get(ReferenceDataCache.DATA_TYPE_METRIC_PREFIX + "hits").longValue(), is(2L));
+        assertThat(metrics.get(ReferenceDataCache.DATA_TYPE_METRIC_PREFIX + "misses").longValue(), is(1L));
+        assertThat(metrics.get(ReferenceDataCache.CHECKLIST_METRIC_PREFIX + "hits").longValue(), is(2L));
+    }
+
+    @Test
+    public void unknownIdsAreNotCached() {
+        assertNull(referenceDataCache.findDataType("unknown"));
+
+        DataType created = new DataType();
+        created.setId("unknown");
+        Mockito.when(dataTypeRepository.findOne("unknown")).thenReturn(created);
+
+        assertThat(referenceDataCache.findDataType("unknown"), is(created));
+    }
+
+    @Test
+    public void invalidationReloadsFromTheRepository() {
+        referenceDataCache.findDataType(dataType.getId());
+        referenceDataCache.invalidateAll();
+        referenceDataCache.findDataType(dataType.getId());
+
+        verify(dataTypeRepository, times(2)).findOne(dataType.getId());
+    }
+
+    private Map<String, Number> metrics() {
+        return referenceDataCache.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+    }
+}
@@ -0,0 +1,255 @@
+package uk.ac.ebi.subs.validator.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.validator.schema.model.JsonSchemaValidationError;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class BatchingJsonSchemaValidationServiceTest {
+
+    private static final int DOCUMENTS = 20;
+
+    private BatchingJsonSchemaValidationService batchingJsonSchemaValidationService;
+
+    private ObjectMapper mapper;
+
+    private AtomicInteger remoteCalls;
+
+    private EmbeddedJsonSchemaValidationService remoteValidator;
+
+    private HttpServer stubValidator;
+    private AtomicInteger stubRequests;
+    private AtomicBoolean stubReportsArrayErrors;
+
+    @Before
+    public void setUp() {
+        mapper = new ObjectMapper();
+        remoteCalls = new AtomicInteger();
+
+        remoteValidator = new EmbeddedJsonSchemaValidationService("http://fake.uri", new RestTemplate());
+
+        batchingJsonSchemaValidationService = new BatchingJsonSchemaValidationService("http://fake.uri", new RestTemplate(), DOCUMENTS, 200) {
+            @Override
+            List<JsonSchemaValidationError> validateRemotely(JsonNode schema, JsonNode object) {
+                remoteCalls.incrementAndGet();
+                sleep(50);
+                return remoteValidator.validate(schema, object);
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        if (stubValidator != null) {
+            stubValidator.stop(0);
+        }
+    }
+
+    @Test
+    public void concurrentValidationsAgainstTheSameSchemaAreSentTogether() throws Exception {
+        JsonNode schema = mapper.readTree("{\"required\": [ \"alias\" ]}");
+
+        ExecutorService executor = Executors.newFixedThreadPool(DOCUMENTS);
+        List<Future<List<JsonSchemaValidationError>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < DOCUMENTS; i++) {
+                JsonNode document = mapper.readTree(i % 2 == 0 ? "{\"alias\": \"a" + i + "\"}" : "{}");
+                results.add(executor.submit(() -> batchingJsonSchemaValidationService.validate(schema, document)));
+            }
+
+            for (int i = 0; i < DOCUMENTS; i++) {
+                List<JsonSchemaValidationError> errorList = results.get(i).get();
+                if (i % 2 == 0) {
+                    assertThat(errorList, empty());
+                } else {
+                    assertThat(errorList, hasSize(1));
+                    assertThat(errorList.get(0).getDataPath(), is(".alias"));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(remoteCalls.get(), lessThan(DOCUMENTS));
+    }
+
+    @Test
+    public void batchedErrorsAreSplitFromTheResponseOfTheRemoteValidator() throws Exception {
+        BatchingJsonSchemaValidationService service = new BatchingJsonSchemaValidationService(startStubValidator(), new RestTemplate(), DOCUMENTS, 200);
+
+        List<List<JsonSchemaValidationError>> errorLists = validateConcurrently(service, 10);
+
+        for (int i = 0; i < errorLists.size(); i++) {
+            assertAliasErrors(errorLists.get(i), i);
+        }
+        assertThat(stubRequests.get(), lessThan(10));
+    }
+
+    @Test
+    public void documentsAreValidatedOneAtATimeWhenTheBatchErrorsCannotBeSplit() throws Exception {
+        BatchingJsonSchemaValidationService service = new BatchingJsonSchemaValidationService(startStubValidator(), new RestTemplate(), DOCUMENTS, 200);
+        stubReportsArrayErrors.set(true);
+
+        List<List<JsonSchemaValidationError>> errorLists = validateConcurrently(service, 10);
+
+        for (int i = 0; i < errorLists.size(); i++) {
+            assertAliasErrors(errorLists.get(i), i);
+        }
+        assertThat(stubRequests.get(), greaterThan(10));
+    }
+
+    @Test
+    public void singleValidationDoesNotWaitForMoreDocuments() throws IOException {
+        BatchingJsonSchemaValidationService service = new BatchingJsonSchemaValidationService(startStubValidator(), new RestTemplate(), DOCUMENTS, 60000);
+
+        long start = System.currentTimeMillis();
+        List<JsonSchemaValidationError> errorList = service.validate(mapper.readTree("{\"required\": [ \"alias\" ]}"), mapper.readTree("{}"));
+
+        assertThat(errorList, hasSize(1));
+        assertThat(System.currentTimeMillis() - start, lessThan(10000L));
+    }
+
+    @Test
+    public void singleValidationIsSentAsItIs() throws IOException {
+        List<JsonSchemaValidationError> errorList = batchingJsonSchemaValidationService.validate(
+                mapper.readTree("{\"required\": [ \"alias\" ]}"), mapper.readTree("{}"));
+
+        assertThat(errorList, hasSize(1));
+        assertThat(errorList.get(0).getDataPath(), is(".alias"));
+        assertThat(remoteCalls.get(), is(1));
+    }
+
+    @Test
+    public void errorsAreSplitByTheIndexInTheirDataPath() {
+        List<List<JsonSchemaValidationError>> errorsByDocument = BatchingJsonSchemaValidationService.splitByDocument(Arrays.asList(
+                new JsonSchemaValidationError(Collections.singletonList("should have required property 'alias'"), "[1].alias"),
+                new JsonSchemaValidationError(Collections.singletonList("should be string"), "[2].attributes.age[0].value")), 3);
+
+        assertThat(errorsByDocument.get(0), empty());
+        assertThat(errorsByDocument.get(1).get(0).getDataPath(), is(".alias"));
+        assertThat(errorsByDocument.get(2).get(0).getDataPath(), is(".attributes.age[0].value"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void errorsOutsideTheDocumentsAreRejected() {
+        BatchingJsonSchemaValidationService.splitByDocument(Collections.singletonList(
+                new JsonSchemaValidationError(Collections.singletonList("should be array"), "")), 2);
+    }
+
+    @Test
+    public void schemasReferringToTheirOwnPartsAreNotNested() throws IOException {
+        assertThat(BatchingJsonSchemaValidationService.canBeNested(
+                mapper.readTree("{\"properties\": {\"a\": {\"$ref\": \"#/definitions/a\"}}}")), is(true));
+        assertThat(BatchingJsonSchemaValidationService.canBeNested(
+                mapper.readTree("{\"properties\": {\"a\": {\"$ref\": \"#/properties/b\"}}}")), is(false));
+        assertThat(BatchingJsonSchemaValidationService.canBeNested(
+                mapper.readTree("{\"$id\": \"http://schema.dev.data.humancellatlas.org/sample\"}")), is(false));
+    }
+
+    private List<List<JsonSchemaValidationError>> validateConcurrently(BatchingJsonSchemaValidationService service, int documents) throws Exception {
+        JsonNode schema = mapper.readTree("{\"required\": [ \"alias\" ]}");
+
+        ExecutorService executor = Executors.newFixedThreadPool(documents);
+        try {
+            List<Future<List<JsonSchemaValidationError>>> results = new ArrayList<>();
+            for (int i = 0; i < documents; i++) {
+                JsonNode document = mapper.readTree(i % 2 == 0 ? "{\"alias\": \"a" + i + "\"}" : "{}");
+                results.add(executor.submit(() -> service.validate(schema, document)));
+            }
+
+            List<List<JsonSchemaValidationError>> errorLists = new ArrayList<>();
+            for (Future<List<JsonSchemaValidationError>> result : results) {
+                errorLists.add(result.get());
+            }
+            return errorLists;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertAliasErrors(List<JsonSchemaValidationError> errorList, int document) {
+        if (document % 2 == 0) {
+            assertThat(errorList, empty());
+        } else {
+            assertThat(errorList, hasSize(1));
+            assertThat(errorList.get(0).getDataPath(), is(".alias"));
+            assertThat(errorList.get(0).getErrors(), is(Collections.singletonList("should have required property 'alias'")));
+        }
+    }
+
+    /**
+     * Answers like the remote validator: a JSON array of the errors of the posted object, one entry per data path.
+     * Validating an array, it can also report an error of the array itself, which belongs to none of its items.
+     */
+    private String startStubValidator() throws IOException {
+        stubRequests = new AtomicInteger();
+        stubReportsArrayErrors = new AtomicBoolean();
+
+        stubValidator = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubValidator.createContext("/validate", this::answerValidationRequest);
+        stubValidator.start();
+
+        return "http://localhost:" + stubValidator.getAddress().getPort() + "/validate";
+    }
+
+    private void answerValidationRequest(HttpExchange exchange) throws IOException {
+        stubRequests.incrementAndGet();
+        sleep(50);
+
+        JsonNode request = mapper.readTree(exchange.getRequestBody());
+        JsonNode schema = request.get("schema");
+        JsonNode object = request.get("object");
+
+        ArrayNode response = mapper.createArrayNode();
+        if (stubReportsArrayErrors.get() && object.isArray()) {
+            response.addObject().put("dataPath", "").putArray("errors").add("should NOT have more than 1 items");
+        }
+        for (JsonSchemaValidationError error : remoteValidator.validate(remoteValidator.compile(schema), object)) {
+            ObjectNode entry = response.addObject();
+            entry.put("dataPath", error.getDataPath());
+            error.getErrors().forEach(entry.putArray("errors")::add);
+        }
+
+        byte[] body = mapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package uk.ac.ebi.subs.validator.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.subs.data.submittable.Sample;
+import uk.ac.ebi.subs.validator.schema.model.JsonSchemaValidationError;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static uk.ac.ebi.subs.validator.TestUtils.createStaticSample;
+import static uk.ac.ebi.subs.validator.schema.custom.SchemaObjectMapperProvider.createCustomObjectMapper;
+
+public class EmbeddedJsonSchemaValidationServiceTest {
+
+    private EmbeddedJsonSchemaValidationService embeddedJsonSchemaValidationService;
+
+    private ObjectMapper mapper;
+
+    private JsonNode sampleSchema;
+
+    @Before
+    public void setUp() throws IOException {
+        embeddedJsonSchemaValidationService = new EmbeddedJsonSchemaValidationService("http://fake.uri", new RestTemplate());
+        mapper = createCustomObjectMapper();
+        sampleSchema = new ObjectMapper().readTree(getClass().getClassLoader().getResource("sample.schema.json"));
+    }
+
+    @Test
+    public void errorList_ShouldBe_Empty() throws IOException {
+        List<JsonSchemaValidationError> errorList = embeddedJsonSchemaValidationService.validate(mapper.readTree("{}"), mapper.readTree("{}"));
+        assertThat(errorList, empty());
+    }
+
+    @Test
+    public void errorList_ShouldHave_OneErrorOnMissingAlias() throws IOException {
+        List<JsonSchemaValidationError> errorList = embeddedJsonSchemaValidationService.validate(mapper.readTree("{\"required\": [ \"alias\" ]}"), mapper.valueToTree(new Sample()));
+
+        assertThat(errorList, hasSize(1));
+        assertThat(errorList.get(0).getDataPath(), is(".alias"));
+        assertThat(errorList.get(0).getErrors(), hasSize(1));
+        assertThat(errorList.get(0).getErrors().get(0), is("should have required property 'alias'"));
+    }
+
+    @Test
+    public void errorList_ShouldReportTheWrongTypeAtItsPath() throws IOException {
+        List<JsonSchemaValidationError> errorList = embeddedJsonSchemaValidationService.validate(
+                mapper.readTree("{\"properties\": {\"title\": {\"type\": \"string\"}}}"), mapper.readTree("{\"title\": 1}"));
+
+        assertThat(errorList, hasSize(1));
+        assertThat(errorList.get(0).getDataPath(), is(".title"));
+        assertThat(errorList.get(0).getErrors().get(0), is("should be string"));
+    }
+
+    @Test
+    public void emptySample_hasThreeErrors() {
+        assertThat(embeddedJsonSchemaValidationService.validate(sampleSchema, mapper.valueToTree(new Sample())), hasSize(3));
+    }
+
+    @Test
+    public void sample_mustHaveReleaseDate() {
+        assertThat(embeddedJsonSchemaValidationService.validate(sampleSchema, mapper.valueToTree(createStaticSample())), hasSize(0));
+    }
+
+    @Test
+    public void schemasWithOntologyKeywordsAreLeftToTheRemoteValidator() throws IOException {
+        assertThat(EmbeddedJsonSchemaValidationService.usesRemoteKeywords(sampleSchema), is(false));
+        assertThat(EmbeddedJsonSchemaValidationService.usesRemoteKeywords(mapper.readTree(
+                "{\"properties\": {\"terms\": {\"items\": {\"isValidTerm\": true}}}}")), is(true));
+    }
+
+    /**
+     * Runs every keyword the error messages are mapped for, so a json-schema-validator needing a newer Jackson than
+     * the one managed by Spring Boot fails here, with the dependencies of the build, rather than in production.
+     */
+    @Test
+    public void everyMappedKeywordRunsWithTheManagedJacksonVersion() throws IOException {
+        JsonNode keywordsSchema = new ObjectMapper().readTree(getClass().getClassLoader().getResource("keywords.schema.json"));
+        JsonNode invalidDocument = mapper.readTree("{" +
+                "\"extra\": true, \"title\": 1, \"status\": \"other\", \"version\": 2, \"code\": \"abc\", " +
+                "\"email\": \"not an email\", \"short\": \"ab\", \"long\": \"abcd\", \"low\": 1, \"high\": 11, " +
+                "\"few\": [1], \"many\": [1, 2], \"dupes\": [1, 1], \"either\": 1, \"one\": 1, \"defined\": 0}");
+
+        List<String> dataPaths = embeddedJsonSchemaValidationService.validate(keywordsSchema, invalidDocument).stream()
+                .map(JsonSchemaValidationError::getDataPath)
+                .collect(Collectors.toList());
+
+        assertThat(dataPaths, containsInAnyOrder(".alias", ".extra", ".title", ".status", ".version", ".code",
+                ".email", ".short", ".long", ".low", ".high", ".few", ".many", ".dupes", ".either", ".one", ".defined"));
+    }
+}
@@ -17,6 +17,8 @@ import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
 import uk.ac.ebi.subs.validator.TestUtils;
 import uk.ac.ebi.subs.validator.coordinator.MessageEnvelopeTestHelper;
 import uk.ac.ebi.subs.validator.data.SingleValidationResultsEnvelope;
+import uk.ac.ebi.subs.validator.referencedata.ReferenceDataCache;
+import uk.ac.ebi.subs.validator.schema.custom.SchemaTreeNormalizer;
 import uk.ac.ebi.subs.validator.schema.model.JsonSchemaValidationError;
 import uk.ac.ebi.subs.validator.schema.model.SchemaValidationMessageEnvelope;
 
@@ -33,8 +35,8 @@ public class JsonSchemaValidationHandlerTest {
     JsonSchemaValidationHandler jsonSchemaValidationHandler;
     JsonSchemaValidationService jsonSchemaValidationService;
 
-    DataTypeRepository dataTypeRepository;
-    ChecklistRepository checklistRepository;
+    ReferenceDataCache referenceDataCache;
+    ValidationSchemaCache validationSchemaCache;
 
     SchemaValidationMessageEnvelope schemaValidationMessageEnvelope;
 
@@ -49,8 +51,7 @@ public class JsonSchemaValidationHandlerTest {
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule()); // emulate general usi mapping of local date as a 3 element array
 
-        dataTypeRepository = Mockito.mock(DataTypeRepository.class);
-        checklistRepository = Mockito.mock(ChecklistRepository.class);
+        referenceDataCache = Mockito.mock(ReferenceDataCache.class);
 
         dataType = new DataType();
         dataType.setValidationSchema(jsonStringToNode("{\"#dollar#schema\": \"foo\"}"));
@@ -67,19 +68,20 @@ public class JsonSchemaValidationHandlerTest {
         schemaValidationMessageEnvelope.setEntityToValidate( objectMapper.valueToTree(TestUtils.createStaticSampleWithReleaseDate(LocalDate.now())) );
 
         jsonSchemaValidationService = Mockito.mock(JsonSchemaValidationService.class);
+        validationSchemaCache = new ValidationSchemaCache(Mockito.mock(DataTypeRepository.class),
+                Mockito.mock(ChecklistRepository.class), jsonSchemaValidationService, 100);
         jsonSchemaValidationHandler = new JsonSchemaValidationHandler(
-                dataTypeRepository,
-                checklistRepository,
-                jsonSchemaValidationService,
-                objectMapper,
-                Collections.singletonList(Sample.class)
+                referenceDataCache,
+                validationSchemaCache,
+                new SchemaValidationResultCache(jsonSchemaValidationService, 100, 60000),
+                new SchemaTreeNormalizer(objectMapper, Collections.singletonList(Sample.class))
         );
     }
 
     @Test
     public void handleSampleValidation() {
-        Mockito.when(dataTypeRepository.findOne(dataType.getId())).thenReturn(dataType);
-        Mockito.when(checklistRepository.findOne(checklist.getId())).thenReturn(checklist);
+        Mockito.when(referenceDataCache.findDataType(dataType.getId())).thenReturn(dataType);
+        Mockito.when(referenceDataCache.findChecklist(checklist.getId())).thenReturn(checklist);
 
         JsonNode expectedDtSchema = jsonStringToNode("{\"$schema\": \"foo\"}");
         JsonNode expectedClSchema = jsonStringToNode("{\"$schema\": \"bar\"}");
@@ -102,6 +104,39 @@ public class JsonSchemaValidationHandlerTest {
         assertEquals(singleValidationResultsEnvelope.getSingleValidationResults().size(), 2);
     }
 
+    @Test
+    public void unchangedDocumentIsNotValidatedAgain() {
+        Mockito.when(referenceDataCache.findDataType(dataType.getId())).thenReturn(dataType);
+        Mockito.when(referenceDataCache.findChecklist(checklist.getId())).thenReturn(checklist);
+        Mockito.when(jsonSchemaValidationService.validate(Mockito.any(), Mockito.any())).thenReturn(
+                Collections.singletonList(error)
+        );
+
+        jsonSchemaValidationHandler.handleSubmittableValidation(schemaValidationMessageEnvelope);
+
+        schemaValidationMessageEnvelope.setValidationResultVersion(schemaValidationMessageEnvelope.getValidationResultVersion() + 1);
+        SingleValidationResultsEnvelope revalidated = jsonSchemaValidationHandler.handleSubmittableValidation(schemaValidationMessageEnvelope);
+
+        Mockito.verify(jsonSchemaValidationService, Mockito.times(2)).validate(Mockito.any(), Mockito.any());
+        assertEquals(revalidated.getSingleValidationResults().size(), 2);
+        assertEquals(revalidated.getValidationResultVersion(), schemaValidationMessageEnvelope.getValidationResultVersion());
+    }
+
+    @Test
+    public void documentIsValidatedAgainAgainstSchemasLookingTermsUp() {
+        dataType.setValidationSchema(jsonStringToNode("{\"properties\": {\"taxon\": {\"isValidTaxonomy\": true}}}"));
+        Mockito.when(referenceDataCache.findDataType(dataType.getId())).thenReturn(dataType);
+        Mockito.when(referenceDataCache.findChecklist(checklist.getId())).thenReturn(checklist);
+        Mockito.when(jsonSchemaValidationService.validate(Mockito.any(), Mockito.any())).thenReturn(
+                Collections.singletonList(error)
+        );
+
+        jsonSchemaValidationHandler.handleSubmittableValidation(schemaValidationMessageEnvelope);
+        jsonSchemaValidationHandler.handleSubmittableValidation(schemaValidationMessageEnvelope);
+
+        Mockito.verify(jsonSchemaValidationService, Mockito.times(3)).validate(Mockito.any(), Mockito.any());
+    }
+
     private ObjectNode jsonStringToNode(String str) {
         try {
             return new ObjectMapper().readValue(str, ObjectNode.class);
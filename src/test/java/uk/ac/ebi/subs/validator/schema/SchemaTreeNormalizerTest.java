@@ -0,0 +1,149 @@
+package uk.ac.ebi.subs.validator.schema;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.subs.repository.model.Analysis;
+import uk.ac.ebi.subs.repository.model.Assay;
+import uk.ac.ebi.subs.repository.model.AssayData;
+import uk.ac.ebi.subs.repository.model.EgaDac;
+import uk.ac.ebi.subs.repository.model.EgaDacPolicy;
+import uk.ac.ebi.subs.repository.model.EgaDataset;
+import uk.ac.ebi.subs.repository.model.Project;
+import uk.ac.ebi.subs.repository.model.Protocol;
+import uk.ac.ebi.subs.repository.model.Sample;
+import uk.ac.ebi.subs.repository.model.SampleGroup;
+import uk.ac.ebi.subs.repository.model.StoredSubmittable;
+import uk.ac.ebi.subs.repository.model.Study;
+import uk.ac.ebi.subs.validator.schema.custom.SchemaTreeNormalizer;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static uk.ac.ebi.subs.validator.TestUtils.createStaticSample;
+import static uk.ac.ebi.subs.validator.schema.custom.SchemaObjectMapperProvider.createCustomObjectMapper;
+
+public class SchemaTreeNormalizerTest {
+
+    private static final List<Class<? extends StoredSubmittable>> SUBMITTABLE_CLASSES = Arrays.asList(
+            Analysis.class, Assay.class, AssayData.class, EgaDac.class, EgaDacPolicy.class, EgaDataset.class,
+            Project.class, Protocol.class, Sample.class, SampleGroup.class, Study.class);
+
+    private ObjectMapper objectMapper;
+    private SchemaTreeNormalizer schemaTreeNormalizer;
+
+    @Before
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule()); // emulate general usi mapping of local date as a 3 element array
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        schemaTreeNormalizer = new SchemaTreeNormalizer(objectMapper, Collections.singletonList(Sample.class));
+    }
+
+    @Test
+    public void normalizedSampleIsTheSameAsThroughTheClass() throws Exception {
+        ObjectNode document = objectMapper.valueToTree(createStaticSample());
+        document.put("description", "");
+        document.put("unknownProperty", "dropped");
+        document.putNull("title");
+
+        JsonNode throughTheClass = createCustomObjectMapper().valueToTree(objectMapper.treeToValue(document, Sample.class));
+
+        JsonNode normalized = schemaTreeNormalizer.normalize(document, Sample.class.getName());
+
+        assertEquals(throughTheClass, normalized);
+        assertEquals(TextNode.valueOf("2018-01-01"), normalized.get("releaseDate"));
+        assertFalse(normalized.has("description"));
+        assertFalse(normalized.has("unknownProperty"));
+    }
+
+    @Test
+    public void everySubmittableIsNormalizedAsThroughTheClass() throws Exception {
+        schemaTreeNormalizer = new SchemaTreeNormalizer(objectMapper, SUBMITTABLE_CLASSES);
+
+        for (Class<? extends StoredSubmittable> submittableClass : SUBMITTABLE_CLASSES) {
+            for (boolean coerced : Arrays.asList(false, true)) {
+                ObjectNode document = objectMapper.valueToTree(submittableClass.getDeclaredConstructor().newInstance());
+                fillProperties(document, objectMapper.constructType(submittableClass), coerced);
+                document.put("unknownProperty", "dropped");
+
+                JsonNode throughTheClass = createCustomObjectMapper().valueToTree(objectMapper.treeToValue(document, submittableClass));
+
+                assertEquals(submittableClass.getSimpleName() + (coerced ? " with coerced values" : ""),
+                        throughTheClass, schemaTreeNormalizer.normalize(document, submittableClass.getName()));
+            }
+        }
+    }
+
+    @Test
+    public void documentOfAnUnknownClassIsLeftAsItIs() {
+        JsonNode document = objectMapper.valueToTree(createStaticSample());
+
+        assertSame(document, schemaTreeNormalizer.normalize(document, "uk.ac.ebi.subs.Unknown"));
+    }
+
+    /**
+     * Sets the scalar, date and list properties of the class, with values of the type the class writes them, or with
+     * values the object mapper coerces into that type, such as "5" for a number.
+     */
+    private void fillProperties(ObjectNode document, JavaType type, boolean coerced) {
+        for (BeanPropertyDefinition property : objectMapper.getDeserializationConfig().introspect(type).findProperties()) {
+            if (!property.couldDeserialize()) {
+                continue;
+            }
+            JavaType propertyType = property.getPrimaryType();
+            JsonNode value = value(propertyType, coerced);
+            if (value == null && (propertyType.isCollectionLikeType() || propertyType.isArrayType())) {
+                JsonNode element = value(propertyType.getContentType(), coerced);
+                if (element != null) {
+                    value = JsonNodeFactory.instance.arrayNode().add(element).addNull().add(element);
+                }
+            }
+            if (value != null) {
+                document.set(property.getName(), value);
+            }
+        }
+    }
+
+    private JsonNode value(JavaType type, boolean coerced) {
+        Class<?> rawClass = type.getRawClass();
+        if (rawClass == String.class) {
+            return coerced ? IntNode.valueOf(5) : TextNode.valueOf("value");
+        }
+        if (rawClass == int.class || rawClass == Integer.class || rawClass == long.class || rawClass == Long.class) {
+            return coerced ? TextNode.valueOf("5") : IntNode.valueOf(5);
+        }
+        if (rawClass == double.class || rawClass == Double.class) {
+            return coerced ? TextNode.valueOf("2.5") : IntNode.valueOf(2);
+        }
+        if (rawClass == boolean.class || rawClass == Boolean.class) {
+            return coerced ? TextNode.valueOf("true") : JsonNodeFactory.instance.booleanNode(true);
+        }
+        if (rawClass == LocalDate.class) {
+            return coerced ? TextNode.valueOf("2018-01-02") : objectMapper.valueToTree(LocalDate.of(2018, 1, 2));
+        }
+        if (rawClass == Date.class) {
+            return coerced ? TextNode.valueOf("2018-01-02T00:00:00.000+0000") : objectMapper.valueToTree(new Date(1514851200000L));
+        }
+        if (rawClass.isEnum() && rawClass.getEnumConstants().length > 0) {
+            return objectMapper.valueToTree(rawClass.getEnumConstants()[0]);
+        }
+        return null;
+    }
+}
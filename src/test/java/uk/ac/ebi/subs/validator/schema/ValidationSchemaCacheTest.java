@@ -0,0 +1,108 @@
+package uk.ac.ebi.subs.validator.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.metrics.Metric;
+import uk.ac.ebi.subs.repository.model.Checklist;
+import uk.ac.ebi.subs.repository.model.DataType;
+import uk.ac.ebi.subs.repository.repos.ChecklistRepository;
+import uk.ac.ebi.subs.repository.repos.DataTypeRepository;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ValidationSchemaCacheTest {
+
+    private DataTypeRepository dataTypeRepository;
+    private ChecklistRepository checklistRepository;
+    private ValidationSchemaCache validationSchemaCache;
+
+    private DataType dataType;
+
+    @Before
+    public void setUp() throws IOException {
+        dataTypeRepository = Mockito.mock(DataTypeRepository.class);
+        checklistRepository = Mockito.mock(ChecklistRepository.class);
+        validationSchemaCache = new ValidationSchemaCache(dataTypeRepository, checklistRepository,
+                Mockito.mock(JsonSchemaValidationService.class), 100);
+
+        dataType = new DataType();
+        dataType.setId("dt1");
+        dataType.setValidationSchema(json("{\"#dollar#schema\": \"foo\"}"));
+    }
+
+    @Test
+    public void schemaIsFixedOnceAndReused() throws IOException {
+        ValidationSchema schema = validationSchemaCache.findSchema(dataType);
+
+        assertThat(schema.getSchema(), is(json("{\"$schema\": \"foo\"}")));
+        assertThat(validationSchemaCache.findSchema(dataType), sameInstance(schema));
+
+        dataType.setValidationSchema(json("{\"#dollar#schema\": \"foo\"}"));
+        assertThat(validationSchemaCache.findSchema(dataType), sameInstance(schema));
+
+        Map<String, Number> metrics = metrics();
+        assertThat(metrics.get(ValidationSchemaCache.METRIC_PREFIX + "hits").longValue(), is(2L));
+        assertThat(metrics.get(ValidationSchemaCache.METRIC_PREFIX + "misses").longValue(), is(1L));
+    }
+
+    @Test
+    public void changedSchemaIsFixedAgain() throws IOException {
+        ValidationSchema schema = validationSchemaCache.findSchema(dataType);
+
+        dataType.setValidationSchema(json("{\"#dollar#schema\": \"bar\"}"));
+
+        ValidationSchema changedSchema = validationSchemaCache.findSchema(dataType);
+        assertThat(changedSchema.getSchema(), is(json("{\"$schema\": \"bar\"}")));
+        assertThat(changedSchema.getFingerprint(), is(not(schema.getFingerprint())));
+    }
+
+    @Test
+    public void schemasAreLoadedAtStartup() throws IOException {
+        Checklist checklist = new Checklist();
+        checklist.setId("cl1");
+        checklist.setValidationSchema(json("{\"#dollar#schema\": \"bar\"}"));
+        DataType withoutSchema = new DataType();
+        withoutSchema.setId("dt2");
+
+        Mockito.when(dataTypeRepository.findAll()).thenReturn(Arrays.asList(dataType, withoutSchema));
+        Mockito.when(checklistRepository.findAll()).thenReturn(Collections.singletonList(checklist));
+
+        validationSchemaCache.preload();
+        validationSchemaCache.findSchema(dataType);
+        validationSchemaCache.findSchema(checklist);
+
+        Map<String, Number> metrics = metrics();
+        assertThat(metrics.get(ValidationSchemaCache.METRIC_PREFIX + "size").longValue(), is(2L));
+        assertThat(metrics.get(ValidationSchemaCache.METRIC_PREFIX + "hits").longValue(), is(2L));
+    }
+
+    @Test
+    public void onlySchemasWithoutExternalLookupsOrRemoteRefsAreSelfContained() throws IOException {
+        assertThat(ValidationSchemaCache.isSelfContained(json(
+                "{\"properties\": {\"a\": {\"$ref\": \"#/definitions/a\"}}, \"definitions\": {\"a\": {\"type\": \"string\"}}}")), is(true));
+        assertThat(ValidationSchemaCache.isSelfContained(json(
+                "{\"properties\": {\"a\": {\"$ref\": \"https://example.org/a.json\"}}}")), is(false));
+        assertThat(ValidationSchemaCache.isSelfContained(json(
+                "{\"properties\": {\"a\": {\"isValidTaxonomy\": true}}}")), is(false));
+    }
+
+    private Map<String, Number> metrics() {
+        return validationSchemaCache.metrics().stream().collect(Collectors.toMap(Metric::getName, Metric::getValue));
+    }
+
+    private static JsonNode json(String json) throws IOException {
+        return new ObjectMapper().readTree(json);
+    }
+}